@@ -32,7 +32,6 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -239,14 +238,9 @@ public class ViewController {
 
     @GetMapping("/task_instances/{workflowInstanceId}")
     @Operation(summary = "任务实例列表接口", description = "任务实例列表接口")
-    public List<TaskInstanceVo> findByBusinessId(@PathVariable String workflowInstanceId) {
-        List<TaskInstanceVo> list = new ArrayList<>();
+    public List<TaskInstanceSummaryVo> findByBusinessId(@PathVariable String workflowInstanceId) {
         var taskInstances = this.taskInstanceApplication.findByBusinessId(workflowInstanceId);
-        taskInstances.forEach(taskInstance -> {
-            var vo = TaskInstanceMapper.INSTANCE.toTaskInstanceVo(taskInstance);
-            list.add(vo);
-        });
-        return list;
+        return TaskInstanceMapper.INSTANCE.toTaskInstanceSummaryVoList(taskInstances);
     }
 
     @GetMapping("/task_instance/{instanceId}")
@@ -1,7 +1,8 @@
 package dev.jianmu.api.eventhandler;
 
+import dev.jianmu.application.mailbox.InstanceMailbox;
 import dev.jianmu.application.service.ProjectApplication;
-import dev.jianmu.application.service.WorkflowInstanceApplication;
+import dev.jianmu.application.service.RunQueueApplication;
 import dev.jianmu.project.event.CreatedEvent;
 import dev.jianmu.project.event.DeletedEvent;
 import dev.jianmu.project.event.TriggerEvent;
@@ -19,25 +20,32 @@ import org.springframework.stereotype.Component;
 @Component
 @Slf4j
 public class ProjectEventHandler {
-    private final WorkflowInstanceApplication workflowInstanceApplication;
+    private final RunQueueApplication runQueueApplication;
     private final ProjectApplication projectApplication;
+    private final InstanceMailbox instanceMailbox;
 
     public ProjectEventHandler(
-            WorkflowInstanceApplication workflowInstanceApplication,
-            ProjectApplication projectApplication
+            RunQueueApplication runQueueApplication,
+            ProjectApplication projectApplication,
+            InstanceMailbox instanceMailbox
     ) {
-        this.workflowInstanceApplication = workflowInstanceApplication;
+        this.runQueueApplication = runQueueApplication;
         this.projectApplication = projectApplication;
+        this.instanceMailbox = instanceMailbox;
     }
 
     @Async
     @EventListener
     public void handleTriggerEvent(TriggerEvent triggerEvent) {
         // 使用project id与WorkflowVersion作为triggerId,用于参数引用查询，参见WorkerApplication#getEnvironmentMap
-        this.workflowInstanceApplication.createAndStart(
-                triggerEvent.getTriggerId(),
-                triggerEvent.getTriggerType(),
-                triggerEvent.getWorkflowRef() + triggerEvent.getWorkflowVersion()
+        // 同一项目的触发串行判断并发上限
+        this.instanceMailbox.submit(
+                RunQueueApplication.queueKey(triggerEvent.getWorkflowRef()),
+                () -> this.runQueueApplication.trigger(
+                        triggerEvent.getTriggerId(),
+                        triggerEvent.getTriggerType(),
+                        triggerEvent.getWorkflowRef() + triggerEvent.getWorkflowVersion()
+                )
         );
     }
 
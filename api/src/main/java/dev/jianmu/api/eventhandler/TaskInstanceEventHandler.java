@@ -1,6 +1,8 @@
 package dev.jianmu.api.eventhandler;
 
 import dev.jianmu.api.mapper.TaskResultMapper;
+import dev.jianmu.application.mailbox.InstanceMailbox;
+import dev.jianmu.application.service.DeadlineApplication;
 import dev.jianmu.application.service.TaskInstanceApplication;
 import dev.jianmu.application.service.WorkerApplication;
 import dev.jianmu.application.service.WorkflowInstanceApplication;
@@ -33,15 +35,21 @@ public class TaskInstanceEventHandler {
     private final TaskInstanceApplication taskInstanceApplication;
     private final WorkflowInstanceApplication workflowInstanceApplication;
     private final WorkerApplication workerApplication;
+    private final InstanceMailbox instanceMailbox;
+    private final DeadlineApplication deadlineApplication;
 
     public TaskInstanceEventHandler(
             TaskInstanceApplication taskInstanceApplication,
             WorkflowInstanceApplication workflowInstanceApplication,
-            WorkerApplication workerApplication
+            WorkerApplication workerApplication,
+            InstanceMailbox instanceMailbox,
+            DeadlineApplication deadlineApplication
     ) {
         this.taskInstanceApplication = taskInstanceApplication;
         this.workflowInstanceApplication = workflowInstanceApplication;
         this.workerApplication = workerApplication;
+        this.instanceMailbox = instanceMailbox;
+        this.deadlineApplication = deadlineApplication;
     }
 
     @EventListener
@@ -78,6 +86,8 @@ public class TaskInstanceEventHandler {
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void handleTaskInstanceEvent(TaskInstance taskInstance) {
 //        this.taskInstanceQueue.put(taskInstance);
+        // 内置Worker同步下发任务（包括拉取镜像），先设置超时以便拉取镜像也计入任务运行时间
+        this.deadlineApplication.armTask(taskInstance);
         // 任务上下文抛出事件通知Worker
         this.workerApplication.dispatchTask(taskInstance, false);
         logger.info("Task instance id: {}  ref: {} is running", taskInstance.getId(), taskInstance.getAsyncTaskRef());
@@ -87,21 +97,35 @@ public class TaskInstanceEventHandler {
     public void handleTaskInstanceRunningEvent(TaskInstanceRunningEvent event) {
         // 任务上下文抛出事件通知流程上下文
         logger.info("get TaskInstanceRunningEvent: {}", event);
-        this.workflowInstanceApplication.taskRun(event.getTaskInstanceId());
+        // 开启命令邮箱时在任务实例事务提交后串行执行
+        this.instanceMailbox.submitAfterCommit(
+                event.getBusinessId(),
+                () -> this.workflowInstanceApplication.taskRun(event.getTaskInstanceId())
+        );
     }
 
     @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
     public void handleTaskInstanceSucceedEvent(TaskInstanceSucceedEvent event) {
         // 任务上下文抛出事件通知流程上下文
         logger.info("get TaskInstanceSucceedEvent: {}", event);
-        this.workflowInstanceApplication.taskSucceed(event.getTaskInstanceId());
+        this.deadlineApplication.cancelTask(event.getTaskInstanceId());
+        // 开启命令邮箱时在任务实例事务提交后串行执行
+        this.instanceMailbox.submitAfterCommit(
+                event.getBusinessId(),
+                () -> this.workflowInstanceApplication.taskSucceed(event.getTaskInstanceId())
+        );
     }
 
     @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
     public void handleTaskInstanceFailedEvent(TaskInstanceFailedEvent event) {
         // 任务上下文抛出事件通知流程上下文
         logger.info("get TaskInstanceFailedEvent: {}", event);
-        this.workflowInstanceApplication.taskFail(event.getTaskInstanceId());
+        this.deadlineApplication.cancelTask(event.getTaskInstanceId());
+        // 开启命令邮箱时在任务实例事务提交后串行执行
+        this.instanceMailbox.submitAfterCommit(
+                event.getBusinessId(),
+                () -> this.workflowInstanceApplication.taskFail(event.getTaskInstanceId())
+        );
     }
 
     @EventListener
@@ -118,5 +142,7 @@ public class TaskInstanceEventHandler {
                 this.taskInstanceApplication.executeFailed(taskInstance.getId());
             }
         });
+        // 按开始时间重新设置运行中任务与流程实例的期限
+        this.deadlineApplication.rearm();
     }
 }
@@ -1,5 +1,8 @@
 package dev.jianmu.api.eventhandler;
 
+import dev.jianmu.application.mailbox.InstanceMailbox;
+import dev.jianmu.application.service.DeadlineApplication;
+import dev.jianmu.application.service.RunQueueApplication;
 import dev.jianmu.application.service.TaskInstanceApplication;
 import dev.jianmu.application.service.WorkerApplication;
 import dev.jianmu.application.service.WorkflowInstanceApplication;
@@ -15,6 +18,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @class: WorkflowEventHandler
  * @description: 流程事件处理器
@@ -24,26 +30,43 @@ import org.springframework.transaction.event.TransactionalEventListener;
 @Component
 public class WorkflowEventHandler {
     private static final Logger logger = LoggerFactory.getLogger(WorkflowEventHandler.class);
+    // 节点激活与跳过事件的批量命令Key
+    private static final String NODE_EVENTS = "nodeEvents";
 
     private final WorkflowInstanceApplication instanceApplication;
     private final TaskInstanceApplication taskInstanceApplication;
     private final WorkerApplication workerApplication;
     private final ApplicationEventPublisher publisher;
+    private final InstanceMailbox instanceMailbox;
+    private final RunQueueApplication runQueueApplication;
+    private final DeadlineApplication deadlineApplication;
 
-    public WorkflowEventHandler(WorkflowInstanceApplication instanceApplication, TaskInstanceApplication taskInstanceApplication, WorkerApplication workerApplication, ApplicationEventPublisher publisher) {
+    public WorkflowEventHandler(WorkflowInstanceApplication instanceApplication, TaskInstanceApplication taskInstanceApplication, WorkerApplication workerApplication, ApplicationEventPublisher publisher, InstanceMailbox instanceMailbox, RunQueueApplication runQueueApplication, DeadlineApplication deadlineApplication) {
         this.instanceApplication = instanceApplication;
         this.taskInstanceApplication = taskInstanceApplication;
         this.workerApplication = workerApplication;
         this.publisher = publisher;
+        this.instanceMailbox = instanceMailbox;
+        this.runQueueApplication = runQueueApplication;
+        this.deadlineApplication = deadlineApplication;
     }
 
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void handleAggregateRootEvents(AggregateRoot aggregateRoot) {
         logger.info("Get AggregateRoot here -------------------------");
+        // 开启命令邮箱时，同一次保存产生的节点激活与跳过事件合并为一个批量命令，不再逐个发布
+        List<BaseEvent> nodeEvents = new ArrayList<>();
         aggregateRoot.getUncommittedDomainEvents().forEach(event -> {
+            if (this.instanceMailbox.isEnabled() && (event instanceof NodeActivatingEvent || event instanceof NodeSkipEvent)) {
+                nodeEvents.add((BaseEvent) event);
+                return;
+            }
             logger.info("publishEvent here");
             this.publisher.publishEvent(event);
         });
+        if (!nodeEvents.isEmpty()) {
+            this.submitNodeEvents(nodeEvents);
+        }
         logger.info("-----------------------------------------------------");
     }
 
@@ -95,7 +118,10 @@ public class WorkflowEventHandler {
         logger.info(event.getName());
         logger.info(event.getNodeRef());
         logger.info("-----------------------------------------------------");
-        this.instanceApplication.stop(event.getWorkflowInstanceId());
+        this.instanceMailbox.submit(
+                event.getWorkflowInstanceId(),
+                () -> this.instanceApplication.stop(event.getWorkflowInstanceId())
+        );
         this.workerApplication.cleanupWorkspace(event.getTriggerId());
     }
 
@@ -105,7 +131,7 @@ public class WorkflowEventHandler {
         MDC.put("triggerId", event.getTriggerId());
         logger.info("Get NodeActivatingEvent here -------------------------");
         logger.info(event.getNodeRef());
-        this.instanceApplication.activateNode(event.getWorkflowInstanceId(), event.getNodeRef());
+        this.submitNodeEvents(List.of(event));
         logger.info("handle NodeActivatingEvent end-----------------------------------------------------");
     }
 
@@ -114,7 +140,7 @@ public class WorkflowEventHandler {
         MDC.put("triggerId", event.getTriggerId());
         logger.info("Get NodeSkipEvent here -------------------------");
         logger.info(event.getNodeRef());
-        this.instanceApplication.skipNode(event.getWorkflowInstanceId(), event.getNodeRef());
+        this.submitNodeEvents(List.of(event));
         logger.info("handle NodeSkipEvent end-----------------------------------------------------");
     }
 
@@ -126,6 +152,8 @@ public class WorkflowEventHandler {
         logger.info(event.getWorkflowInstanceId());
         logger.info(event.getTriggerId());
         this.workerApplication.createWorkspace(event.getTriggerId());
+        this.instanceApplication.initContext(event.getWorkflowRef(), event.getWorkflowVersion(), event.getWorkflowInstanceId(), event.getTriggerId());
+        this.deadlineApplication.armWorkflow(event.getWorkflowInstanceId(), event.getWorkflowRef(), event.getWorkflowVersion(), event.getOccurredTime());
         logger.info("-----------------------------------------------------");
     }
 
@@ -139,6 +167,61 @@ public class WorkflowEventHandler {
         logger.info(event.getTriggerId());
         logger.info("Delete Volume here -------------------------");
         this.workerApplication.cleanupWorkspace(event.getTriggerId());
+        this.instanceApplication.clearContext(event.getWorkflowInstanceId());
+        this.instanceApplication.clearTaskSerialNos(event.getWorkflowInstanceId());
+        this.deadlineApplication.cancelWorkflow(event.getWorkflowInstanceId());
+        this.startQueued(event.getWorkflowRef());
+        logger.info("-----------------------------------------------------");
+    }
+
+    @Async
+    @EventListener
+    public void handleWorkflowTerminatedEvent(WorkflowTerminatedEvent event) {
+        MDC.put("triggerId", event.getTriggerId());
+        logger.info("Get WorkflowTerminatedEvent here -------------------------");
+        logger.info(event.getWorkflowInstanceId());
+        this.instanceApplication.clearTaskSerialNos(event.getWorkflowInstanceId());
+        this.deadlineApplication.cancelWorkflow(event.getWorkflowInstanceId());
+        this.startQueued(event.getWorkflowRef());
         logger.info("-----------------------------------------------------");
     }
+
+    // 流程实例结束或终止后启动项目运行队列中的触发
+    private void startQueued(String workflowRef) {
+        this.instanceMailbox.submit(
+                RunQueueApplication.queueKey(workflowRef),
+                () -> this.runQueueApplication.startQueued(workflowRef)
+        );
+    }
+
+    // 同一流程实例的节点事件在一个事务中处理
+    private void submitNodeEvents(List<BaseEvent> events) {
+        var instanceId = events.get(0).getWorkflowInstanceId();
+        logger.info("submit {} node events of WorkflowInstance {}", events.size(), instanceId);
+        this.instanceMailbox.submitBatch(
+                instanceId,
+                NODE_EVENTS,
+                events,
+                batch -> this.applyNodeEvents(instanceId, batch)
+        );
+    }
+
+    // 合并后的节点事件在一个事务中处理，其中一个事件失败会回滚整批，此时逐个重新处理，失败的事件不影响其他事件
+    private void applyNodeEvents(String instanceId, List<BaseEvent> events) {
+        try {
+            this.instanceApplication.applyNodeEvents(instanceId, events);
+        } catch (RuntimeException e) {
+            if (events.size() == 1) {
+                throw e;
+            }
+            logger.warn("WorkflowInstance {} 的{}个节点事件批量处理失败，逐个重新处理", instanceId, events.size(), e);
+            events.forEach(event -> {
+                try {
+                    this.instanceApplication.applyNodeEvents(instanceId, List.of(event));
+                } catch (RuntimeException ex) {
+                    logger.error("WorkflowInstance {} 的节点 {} 事件处理失败", instanceId, event.getNodeRef(), ex);
+                }
+            });
+        }
+    }
 }
@@ -1,6 +1,8 @@
 package dev.jianmu.api.mapper;
 
+import dev.jianmu.api.vo.TaskInstanceSummaryVo;
 import dev.jianmu.api.vo.TaskInstanceVo;
+import dev.jianmu.infrastructure.mybatis.task.TaskInstanceSummary;
 import dev.jianmu.task.aggregate.InstanceStatus;
 import dev.jianmu.task.aggregate.TaskInstance;
 import dev.jianmu.workflow.aggregate.process.TaskStatus;
@@ -10,6 +12,8 @@ import org.mapstruct.ValueMapping;
 import org.mapstruct.ValueMappings;
 import org.mapstruct.factory.Mappers;
 
+import java.util.List;
+
 /**
  * @class: TaskInstanceMapper
  * @description: 任务实例Mapper
@@ -24,6 +28,13 @@ public interface TaskInstanceMapper {
     @Mapping(target = "nodeName", source = "asyncTaskRef")
     TaskInstanceVo toTaskInstanceVo(TaskInstance taskInstance);
 
+    // 列表只使用任务实例摘要
+    @Mapping(target = "instanceId", source = "id")
+    @Mapping(target = "nodeName", source = "asyncTaskRef")
+    TaskInstanceSummaryVo toTaskInstanceSummaryVo(TaskInstanceSummary taskInstanceSummary);
+
+    List<TaskInstanceSummaryVo> toTaskInstanceSummaryVoList(List<TaskInstanceSummary> taskInstanceSummaryList);
+
     @ValueMappings({
             @ValueMapping(target = "WAITING", source = "WAITING"),
             @ValueMapping(target = "RUNNING", source = "RUNNING"),
@@ -1,6 +1,7 @@
 package dev.jianmu.api.mapper;
 
 import dev.jianmu.api.vo.WorkflowInstanceVo;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceSummary;
 import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
 import dev.jianmu.workflow.aggregate.process.TaskStatus;
 import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
@@ -23,5 +24,8 @@ public interface WorkflowInstanceMapper {
     @Mapping(target = "latestTaskStatus", expression = "java(workflowInstance.findLatestAsyncTaskInstance().map(AsyncTaskInstance::getStatus).map(TaskStatus::name).orElse(\"\"))")
     WorkflowInstanceVo toWorkflowInstanceVo(WorkflowInstance workflowInstance);
 
-    List<WorkflowInstanceVo> toWorkflowInstanceVoList(List<WorkflowInstance> workflowInstanceList);
+    // 列表只使用流程实例摘要
+    WorkflowInstanceVo toWorkflowInstanceVo(WorkflowInstanceSummary workflowInstanceSummary);
+
+    List<WorkflowInstanceVo> toWorkflowInstanceVoList(List<WorkflowInstanceSummary> workflowInstanceSummaryList);
 }
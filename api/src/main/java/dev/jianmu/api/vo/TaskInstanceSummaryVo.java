@@ -0,0 +1,27 @@
+package dev.jianmu.api.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @class: TaskInstanceSummaryVo
+ * @description: 任务实例列表Vo，不包含节点信息
+ * @author: Ethan Liu
+ * @create: 2021-10-29 11:00
+ **/
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "任务实例列表Vo")
+public class TaskInstanceSummaryVo {
+    private String instanceId;
+    private String nodeName;
+    private String defKey;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private TaskInstanceVo.Status status;
+}
@@ -0,0 +1,18 @@
+CREATE TABLE `workflow_instance_event`
+(
+    `id`                   bigint                                                       NOT NULL AUTO_INCREMENT COMMENT '主键',
+    `workflow_instance_id` varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '流程实例ID',
+    `sequence_no`          int                                                          NOT NULL COMMENT '事件序号',
+    `event_name`           varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '事件名称',
+    `async_task_ref`       varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '任务定义唯一引用名称',
+    `task_instance`        blob COMMENT '变化后的任务实例',
+    `occurred_time`        datetime                                                     NOT NULL COMMENT '发生时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `instance_sequence_UNIQUE` (`workflow_instance_id`, `sequence_no`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci COMMENT ='流程实例事件表';
+
+ALTER TABLE `workflow_instance`
+    ADD COLUMN `event_sequence` int NOT NULL DEFAULT 0 COMMENT '已追加的事件序号' AFTER `end_time`,
+    ADD COLUMN `snapshot_sequence` int NOT NULL DEFAULT 0 COMMENT '任务实例列表快照对应的事件序号' AFTER `event_sequence`;
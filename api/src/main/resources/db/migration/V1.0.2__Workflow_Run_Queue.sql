@@ -0,0 +1,15 @@
+CREATE TABLE `workflow_run_queue`
+(
+    `seq`              bigint                                                       NOT NULL AUTO_INCREMENT COMMENT '入队顺序',
+    `id`               varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT 'ID',
+    `trigger_id`       varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '触发器ID',
+    `trigger_type`     varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '触发器类型',
+    `workflow_ref`     varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '流程定义唯一引用名称',
+    `workflow_version` varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '流程定义版本',
+    `enqueue_time`     datetime                                                     NOT NULL COMMENT '入队时间',
+    PRIMARY KEY (`seq`),
+    UNIQUE KEY `id_UNIQUE` (`id`),
+    KEY `workflow_ref_seq_IDX` (`workflow_ref`, `seq`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci COMMENT ='流程触发排队表';
@@ -0,0 +1,23 @@
+CREATE TABLE `serial_no_counter`
+(
+    `counter_key`   varchar(128) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '计数器Key',
+    `workflow_ref`  varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci  NOT NULL COMMENT '流程定义唯一引用名称',
+    `current_value` int                                                           NOT NULL COMMENT '已分配的最大序号',
+    PRIMARY KEY (`counter_key`),
+    KEY `workflow_ref_IDX` (`workflow_ref`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci COMMENT ='序号计数器表';
+
+INSERT INTO `serial_no_counter`(`counter_key`, `workflow_ref`, `current_value`)
+SELECT CONCAT('workflow:', `workflow_ref`), `workflow_ref`, MAX(`serial_no`)
+FROM `workflow_instance`
+GROUP BY `workflow_ref`;
+
+-- 任务序号计数在流程实例结束后删除，只为运行中的流程实例创建
+INSERT INTO `serial_no_counter`(`counter_key`, `workflow_ref`, `current_value`)
+SELECT CONCAT('task:', t.`business_id`, ':', t.`async_task_ref`), MAX(w.`workflow_ref`), COUNT(*)
+FROM `task_instance` t
+         JOIN `workflow_instance` w ON w.`id` = t.`business_id`
+WHERE w.`status` = 'RUNNING'
+GROUP BY t.`business_id`, t.`async_task_ref`;
@@ -0,0 +1,2 @@
+ALTER TABLE `workflow`
+    ADD COLUMN `timeout` bigint DEFAULT NULL COMMENT '流程实例运行期限（秒）' AFTER `dsl_text`;
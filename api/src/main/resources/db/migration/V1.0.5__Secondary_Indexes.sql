@@ -0,0 +1,18 @@
+ALTER TABLE `task_instance`
+    ADD KEY `business_id_start_time_IDX` (`business_id`, `start_time`),
+    ADD KEY `task_ref_business_id_IDX` (`async_task_ref`, `business_id`, `status`),
+    ADD KEY `status_IDX` (`status`),
+    ADD KEY `workflow_ref_IDX` (`workflow_ref`);
+
+ALTER TABLE `task_instance_parameter`
+    ADD KEY `instance_id_type_IDX` (`instance_id`, `type`),
+    ADD KEY `business_trigger_type_IDX` (`business_id`, `trigger_id`, `type`);
+
+ALTER TABLE `workflow_instance`
+    ADD KEY `ref_version_status_IDX` (`workflow_ref`, `workflow_version`, `status`),
+    ADD KEY `ref_status_serial_no_IDX` (`workflow_ref`, `status`, `serial_no`),
+    ADD KEY `ref_serial_no_IDX` (`workflow_ref`, `serial_no`),
+    ADD KEY `status_IDX` (`status`);
+
+ALTER TABLE `secret_kv_pair`
+    ADD KEY `namespace_key_IDX` (`namespace_name`, `kv_key`);
@@ -0,0 +1,2 @@
+ALTER TABLE `workflow_instance`
+    ADD COLUMN `latest_task_status` varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '最近启动的任务实例状态' AFTER `status`;
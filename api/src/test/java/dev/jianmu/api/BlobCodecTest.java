@@ -0,0 +1,152 @@
+package dev.jianmu.api;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import dev.jianmu.infrastructure.codec.BlobFormat;
+import dev.jianmu.infrastructure.codec.CodecProperties;
+import dev.jianmu.infrastructure.typehandler.NodeSetTypeHandler;
+import dev.jianmu.infrastructure.typehandler.TaskInstanceListTypeHandler;
+import dev.jianmu.workflow.aggregate.definition.End;
+import dev.jianmu.workflow.aggregate.definition.Node;
+import dev.jianmu.workflow.aggregate.definition.Start;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: BlobCodecTest
+ * @description: Blob字段编解码测试，旧版JSON数据与新格式数据均可读取
+ * @author: Ethan Liu
+ * @create: 2021-10-29 14:20
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+public class BlobCodecTest {
+    private final NodeSetTypeHandler jsonTypeHandler = new NodeSetTypeHandler(BlobFormat.JSON);
+    private final NodeSetTypeHandler smileTypeHandler = new NodeSetTypeHandler(BlobFormat.SMILE);
+    private Set<Node> nodes;
+
+    @Resource
+    private DataSource dataSource;
+    @Resource
+    private SqlSessionFactory sqlSessionFactory;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        var start = Start.Builder.aStart().name("Start").ref("Start").build();
+        var end = End.Builder.anEnd().name("End").ref("End").build();
+        start.addTarget("End");
+        end.addSource("Start");
+        this.nodes = Set.of(start, end);
+        try (Connection connection = this.dataSource.getConnection(); var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS blob_codec_test (id INT PRIMARY KEY, data BLOB)");
+            statement.execute("DELETE FROM blob_codec_test");
+        }
+    }
+
+    @Test
+    void readLegacyJson() throws Exception {
+        // 旧版类型转换器的序列化方式
+        var objectMapper = new ObjectMapper();
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        var json = objectMapper.writerFor(new TypeReference<Set<Node>>() {}).writeValueAsString(this.nodes);
+        try (Connection connection = this.dataSource.getConnection()) {
+            try (var ps = connection.prepareStatement("INSERT INTO blob_codec_test VALUES (1, ?)")) {
+                ps.setBytes(1, json.getBytes(StandardCharsets.UTF_8));
+                ps.executeUpdate();
+            }
+            assertEquals(Set.of("Start", "End"), refs(this.read(connection, 1)));
+        }
+    }
+
+    @Test
+    void writeAndRead() throws SQLException {
+        try (Connection connection = this.dataSource.getConnection()) {
+            this.write(this.jsonTypeHandler, connection, 1);
+            this.write(this.smileTypeHandler, connection, 2);
+            var json = this.bytes(connection, 1);
+            var smile = this.bytes(connection, 2);
+            // JSON格式不带格式头，旧版本可以读取
+            assertEquals('[', json[0]);
+            assertEquals(0x01, smile[0]);
+            assertEquals(BlobFormat.SMILE.getId(), smile[1]);
+            assertTrue(smile.length < json.length, "SMILE: " + smile.length + ", JSON: " + json.length);
+
+            var jsonNodes = this.read(connection, 1);
+            var smileNodes = this.read(connection, 2);
+            assertEquals(Set.of("Start", "End"), refs(jsonNodes));
+            assertEquals(Set.of("Start", "End"), refs(smileNodes));
+            var start = smileNodes.stream().filter(node -> node instanceof Start).findFirst().orElseThrow();
+            assertEquals(Set.of("End"), start.getTargets());
+        }
+    }
+
+    @Test
+    void readCorruptData() throws SQLException {
+        try (Connection connection = this.dataSource.getConnection()) {
+            try (var ps = connection.prepareStatement("INSERT INTO blob_codec_test VALUES (1, ?)")) {
+                ps.setBytes(1, "[\"java.util.HashSet\",[{".getBytes(StandardCharsets.UTF_8));
+                ps.executeUpdate();
+            }
+            // 无法解析的记录抛出异常，不返回空值
+            assertThrows(SQLException.class, () -> this.read(connection, 1));
+        }
+    }
+
+    @Test
+    void defaultFormat() {
+        // 旧版本只能读取JSON，默认写入格式保持JSON
+        assertEquals(BlobFormat.JSON, new CodecProperties().getFormat());
+    }
+
+    @Test
+    void registeredTypeHandler() {
+        // Mapper中引用的类型转换器使用登记的实例，不由MyBatis反射创建
+        var registry = this.sqlSessionFactory.getConfiguration().getTypeHandlerRegistry();
+        assertNotNull(registry.getMappingTypeHandler(NodeSetTypeHandler.class));
+        assertNotNull(registry.getMappingTypeHandler(TaskInstanceListTypeHandler.class));
+        // 不作为Set类型的默认转换器
+        assertFalse(registry.getTypeHandler(Set.class) instanceof NodeSetTypeHandler);
+    }
+
+    private void write(NodeSetTypeHandler typeHandler, Connection connection, int id) throws SQLException {
+        try (var ps = connection.prepareStatement("INSERT INTO blob_codec_test VALUES (" + id + ", ?)")) {
+            typeHandler.setNonNullParameter(ps, 1, this.nodes, null);
+            ps.executeUpdate();
+        }
+    }
+
+    private Set<Node> read(Connection connection, int id) throws SQLException {
+        try (var ps = connection.prepareStatement("SELECT data FROM blob_codec_test WHERE id = " + id);
+             var rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            return this.smileTypeHandler.getNullableResult(rs, "data");
+        }
+    }
+
+    private byte[] bytes(Connection connection, int id) throws SQLException {
+        try (var ps = connection.prepareStatement("SELECT data FROM blob_codec_test WHERE id = " + id);
+             var rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            return rs.getBytes(1);
+        }
+    }
+
+    private static Set<String> refs(Set<Node> nodes) {
+        assertNotNull(nodes);
+        return nodes.stream().map(Node::getRef).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,250 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.mailbox.InstanceMailbox;
+import dev.jianmu.application.service.DeadlineApplication;
+import dev.jianmu.application.service.EmbeddedWorkerApplication;
+import dev.jianmu.application.service.TaskInstanceApplication;
+import dev.jianmu.application.service.WorkflowInstanceApplication;
+import dev.jianmu.infrastructure.mailbox.MailboxProperties;
+import dev.jianmu.infrastructure.mybatis.task.TaskInstanceSummary;
+import dev.jianmu.infrastructure.timer.HashedWheelTimer;
+import dev.jianmu.task.aggregate.InstanceStatus;
+import dev.jianmu.task.aggregate.TaskInstance;
+import dev.jianmu.workflow.aggregate.definition.AsyncTask;
+import dev.jianmu.workflow.aggregate.definition.End;
+import dev.jianmu.workflow.aggregate.definition.Start;
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.repository.WorkflowRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @class: DeadlineApplicationTest
+ * @description: 任务超时与流程实例运行期限测试
+ * @author: Ethan Liu
+ * @create: 2021-10-29 17:45
+ **/
+@DisplayName("任务超时与流程运行期限测试")
+public class DeadlineApplicationTest {
+    private final HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 64, Runnable::run);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<String, TaskInstance> taskInstances = new HashMap<>();
+    private final List<TaskInstanceSummary> businessTasks = new ArrayList<>();
+    // 置为失败的任务实例
+    private final List<String> failed = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch failedLatch = new CountDownLatch(1);
+    // 终止的流程实例
+    private final List<String> stopped = Collections.synchronizedList(new ArrayList<>());
+    private final Workflow workflow = workflow(1L);
+
+    private final DeadlineApplication deadlineApplication = new DeadlineApplication(
+            this.timer,
+            new WorkflowRepository() {
+                @Override
+                public Optional<Workflow> findByRefAndVersion(String ref, String version) {
+                    return Optional.of(workflow);
+                }
+
+                @Override
+                public Optional<Workflow> findByRefVersion(String refVersion) {
+                    return Optional.of(workflow);
+                }
+
+                @Override
+                public List<Workflow> findByRef(String ref) {
+                    return List.of(workflow);
+                }
+
+                @Override
+                public Workflow add(Workflow workflow) {
+                    return workflow;
+                }
+
+                @Override
+                public void deleteByRefAndVersion(String ref, String version) {
+                }
+
+                @Override
+                public void deleteByRef(String ref) {
+                }
+            },
+            new TaskInstanceApplication(null, null, null, null, null, null, null, null, null) {
+                @Override
+                public Optional<TaskInstance> findById(String instanceId) {
+                    return Optional.ofNullable(taskInstances.get(instanceId));
+                }
+
+                @Override
+                public List<TaskInstanceSummary> findByBusinessId(String businessId) {
+                    return businessTasks;
+                }
+
+                @Override
+                public void executeFailed(String taskInstanceId) {
+                    failed.add(taskInstanceId);
+                    failedLatch.countDown();
+                }
+            },
+            new WorkflowInstanceApplication(null, null, null, null, null, null, null) {
+                @Override
+                public Optional<WorkflowInstance> findById(String id) {
+                    return Optional.of(WorkflowInstance.Builder.aWorkflowInstance().build());
+                }
+
+                @Override
+                public void stop(String instanceId) {
+                    stopped.add(instanceId);
+                }
+            },
+            new EmbeddedWorkerApplication(null, null) {
+                // 任务容器未创建
+                @Override
+                public boolean terminateTask(String taskInstanceId) {
+                    return false;
+                }
+            },
+            new InstanceMailbox(null, disabledMailbox(), this.meterRegistry),
+            this.meterRegistry
+    );
+
+    @AfterEach
+    void tearDown() {
+        this.timer.stop();
+    }
+
+    private static MailboxProperties disabledMailbox() {
+        var properties = new MailboxProperties();
+        properties.setEnabled(false);
+        return properties;
+    }
+
+    private static Workflow workflow(Long timeout) {
+        Start start = Start.Builder.aStart()
+                .name("Start")
+                .ref("start")
+                .description("开始节点")
+                .build();
+        AsyncTask task = AsyncTask.Builder.anAsyncTask()
+                .name("Task1")
+                .ref("task_1")
+                .description("异步任务节点1")
+                .timeout(1L)
+                .build();
+        End end = End.Builder.anEnd()
+                .name("End")
+                .ref("end")
+                .description("结束节点")
+                .build();
+        start.setTargets(Set.of(task.getRef()));
+        task.setSources(Set.of(start.getRef()));
+        task.setTargets(Set.of(end.getRef()));
+        end.setSources(Set.of(task.getRef()));
+        return Workflow.Builder.aWorkflow()
+                .name("DeadlineWL")
+                .ref("deadline_wl")
+                .type(Workflow.Type.PIPELINE)
+                .description("期限测试流程")
+                .nodes(Set.of(start, task, end))
+                .globalParameters(Set.of())
+                .timeout(timeout)
+                .build();
+    }
+
+    private TaskInstance taskInstance() {
+        var taskInstance = TaskInstance.Builder.anInstance()
+                .serialNo(1)
+                .defKey("shell")
+                .asyncTaskRef("task_1")
+                .workflowRef(this.workflow.getRef())
+                .workflowVersion(this.workflow.getVersion())
+                .businessId("instance_1")
+                .triggerId("trigger_1")
+                .build();
+        this.taskInstances.put(taskInstance.getId(), taskInstance);
+        return taskInstance;
+    }
+
+    private static TaskInstanceSummary summary(String id, InstanceStatus status) {
+        var summary = new TaskInstanceSummary();
+        summary.setId(id);
+        summary.setStatus(status);
+        return summary;
+    }
+
+    private double expired(String type) {
+        return this.meterRegistry.get("workflow.deadline.expired").tag("type", type).counter().count();
+    }
+
+    @Test
+    @DisplayName("任务超时后置为失败")
+    void taskExpireTest() throws InterruptedException {
+        var taskInstance = this.taskInstance();
+        this.deadlineApplication.armTask(taskInstance);
+        assertEquals(this.timer.pendingTimeouts(), 1);
+        assertTrue(this.failedLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(this.failed, List.of(taskInstance.getId()));
+        assertEquals(this.expired("task"), 1.0);
+        assertEquals(this.timer.pendingTimeouts(), 0);
+    }
+
+    @Test
+    @DisplayName("任务结束后取消超时")
+    void taskCancelTest() throws InterruptedException {
+        var taskInstance = this.taskInstance();
+        this.deadlineApplication.armTask(taskInstance);
+        this.deadlineApplication.cancelTask(taskInstance.getId());
+        assertEquals(this.timer.pendingTimeouts(), 0);
+        assertFalse(this.failedLatch.await(1500, TimeUnit.MILLISECONDS));
+        assertEquals(this.expired("task"), 0.0);
+    }
+
+    @Test
+    @DisplayName("到期时任务已结束不处理")
+    void taskFinishedTest() throws InterruptedException {
+        var taskInstance = this.taskInstance();
+        this.deadlineApplication.armTask(taskInstance);
+        // 任务结束事件未取消超时，到期时按任务实例状态判断
+        taskInstance.executeFailed();
+        assertFalse(this.failedLatch.await(1500, TimeUnit.MILLISECONDS));
+        assertEquals(this.timer.pendingTimeouts(), 0);
+        assertEquals(this.expired("task"), 0.0);
+    }
+
+    @Test
+    @DisplayName("已超过运行期限的流程实例立即终止")
+    void overdueWorkflowTest() throws InterruptedException {
+        this.businessTasks.add(summary("task_running", InstanceStatus.RUNNING));
+        this.businessTasks.add(summary("task_succeeded", InstanceStatus.EXECUTION_SUCCEEDED));
+        // 服务重启前已启动的流程实例
+        var startTime = LocalDateTime.now().minusSeconds(10);
+        this.deadlineApplication.armWorkflow("instance_1", this.workflow.getRef(), this.workflow.getVersion(), startTime);
+        assertTrue(this.failedLatch.await(1, TimeUnit.SECONDS));
+        assertEquals(this.stopped, List.of("instance_1"));
+        // 只停止仍在执行的任务
+        assertEquals(this.failed, List.of("task_running"));
+        assertEquals(this.expired("workflow"), 1.0);
+    }
+
+    @Test
+    @DisplayName("流程结束后取消运行期限")
+    void workflowCancelTest() throws InterruptedException {
+        this.deadlineApplication.armWorkflow("instance_1", this.workflow.getRef(), this.workflow.getVersion(), LocalDateTime.now());
+        assertEquals(this.timer.pendingTimeouts(), 1);
+        this.deadlineApplication.cancelWorkflow("instance_1");
+        assertEquals(this.timer.pendingTimeouts(), 0);
+        Thread.sleep(1500);
+        assertEquals(this.stopped, List.of());
+    }
+}
@@ -0,0 +1,100 @@
+package dev.jianmu.api;
+
+import dev.jianmu.infrastructure.timer.HashedWheelTimer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: HashedWheelTimerTest
+ * @description: 时间轮定时器测试
+ * @author: Ethan Liu
+ * @create: 2021-10-29 17:30
+ **/
+@DisplayName("时间轮定时器测试")
+public class HashedWheelTimerTest {
+    // 每格10毫秒，8格一轮共80毫秒
+    private final HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8, Runnable::run);
+
+    @AfterEach
+    void tearDown() {
+        this.timer.stop();
+    }
+
+    @Test
+    @DisplayName("到期执行")
+    void expireTest() throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        var expiredAt = new AtomicLong();
+        long start = System.nanoTime();
+        var timeout = this.timer.newTimeout(() -> {
+            expiredAt.set(System.nanoTime());
+            latch.countDown();
+        }, 50, TimeUnit.MILLISECONDS);
+        assertEquals(this.timer.pendingTimeouts(), 1);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        // 不早于到期时间执行
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(expiredAt.get() - start) >= 50);
+        assertTrue(timeout.isExpired());
+        assertEquals(this.timer.pendingTimeouts(), 0);
+        // 已到期的任务无法取消
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    @DisplayName("到期前取消")
+    void cancelTest() throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        var timeout = this.timer.newTimeout(latch::countDown, 50, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+        assertEquals(this.timer.pendingTimeouts(), 0);
+        assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+        assertFalse(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    @DisplayName("超过一轮的超时")
+    void multipleRoundsTest() throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        var expiredAt = new AtomicLong();
+        long start = System.nanoTime();
+        // 约三轮后到期，经过所在格子时未到最后一轮不触发
+        this.timer.newTimeout(() -> {
+            expiredAt.set(System.nanoTime());
+            latch.countDown();
+        }, 250, TimeUnit.MILLISECONDS);
+        assertFalse(latch.await(150, TimeUnit.MILLISECONDS));
+        assertEquals(this.timer.pendingTimeouts(), 1);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(expiredAt.get() - start) >= 250);
+        assertEquals(this.timer.pendingTimeouts(), 0);
+    }
+
+    @Test
+    @DisplayName("已过期的超时在下一格执行")
+    void overdueTest() throws InterruptedException {
+        var latch = new CountDownLatch(2);
+        this.timer.newTimeout(latch::countDown, -1000, TimeUnit.MILLISECONDS);
+        this.timer.newTimeout(latch::countDown, 0, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(this.timer.pendingTimeouts(), 0);
+    }
+
+    @Test
+    @DisplayName("停止后不再执行与添加")
+    void stopTest() throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        this.timer.newTimeout(latch::countDown, 50, TimeUnit.MILLISECONDS);
+        this.timer.stop();
+        assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+        assertThrows(RuntimeException.class, () -> this.timer.newTimeout(() -> {
+        }, 10, TimeUnit.MILLISECONDS));
+    }
+}
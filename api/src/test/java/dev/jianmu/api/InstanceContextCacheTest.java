@@ -0,0 +1,110 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.el.InstanceContextCache;
+import dev.jianmu.infrastructure.elimpl.ElProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @class: InstanceContextCacheTest
+ * @description: 流程实例参数上下文缓存测试
+ * @author: Ethan Liu
+ * @create: 2021-10-29 14:30
+ **/
+@DisplayName("流程实例参数上下文缓存测试")
+public class InstanceContextCacheTest {
+    private final InstanceContextCache cache = new InstanceContextCache(new ElProperties(), new SimpleMeterRegistry());
+    // 数据库加载次数
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private Function<String, Map<String, Object>> loader(Map<String, Object> values) {
+        return scope -> {
+            this.loads.incrementAndGet();
+            return values;
+        };
+    }
+
+    @Test
+    @DisplayName("预加载后不再查询数据库")
+    void seedTest() {
+        this.cache.getScope("instance_1", "global", this.loader(Map.of("global.name", "jianmu")));
+        assertEquals(this.loads.get(), 1);
+        var values = this.cache.getScope("instance_1", "global", this.loader(Map.of()));
+        assertEquals(values, Map.of("global.name", "jianmu"));
+        assertEquals(this.loads.get(), 1);
+    }
+
+    @Test
+    @DisplayName("清除后重新加载")
+    void evictTest() {
+        this.cache.getScope("instance_1", "global", this.loader(Map.of("global.name", "jianmu")));
+        this.cache.evict("instance_1");
+        var values = this.cache.getScope("instance_1", "global", this.loader(Map.of("global.name", "reloaded")));
+        assertEquals(values, Map.of("global.name", "reloaded"));
+        assertEquals(this.loads.get(), 2);
+    }
+
+    @Test
+    @DisplayName("空scope不缓存")
+    void emptyScopeTest() {
+        // 任务输出参数提交前加载到空scope
+        assertTrue(this.cache.getScope("instance_1", "shell_1", this.loader(Map.of())).isEmpty());
+        var values = this.cache.getScope("instance_1", "shell_1", this.loader(Map.of("shell_1.result", "ok")));
+        assertEquals(values, Map.of("shell_1.result", "ok"));
+        assertEquals(this.loads.get(), 2);
+    }
+
+    @Test
+    @DisplayName("事务提交后更新任务输出参数")
+    void putAfterCommitTest() {
+        this.cache.getScope("instance_1", "global", this.loader(Map.of("global.name", "jianmu")));
+        TransactionSynchronizationManager.initSynchronization();
+        this.cache.putScope("instance_1", "shell_1", Map.of("shell_1.result", "ok"));
+        // 提交前访问从数据库加载
+        assertTrue(this.cache.getScope("instance_1", "shell_1", this.loader(Map.of())).isEmpty());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        var values = this.cache.getScope("instance_1", "shell_1", this.loader(Map.of()));
+        assertEquals(values, Map.of("shell_1.result", "ok"));
+        assertEquals(this.loads.get(), 2);
+    }
+
+    @Test
+    @DisplayName("事务回滚不更新")
+    void rollbackTest() {
+        this.cache.getScope("instance_1", "global", this.loader(Map.of("global.name", "jianmu")));
+        TransactionSynchronizationManager.initSynchronization();
+        this.cache.putScope("instance_1", "shell_1", Map.of("shell_1.result", "ok"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        assertTrue(this.cache.getScope("instance_1", "shell_1", this.loader(Map.of())).isEmpty());
+    }
+
+    @Test
+    @DisplayName("未缓存的流程实例不更新")
+    void putUncachedTest() {
+        this.cache.putScope("instance_2", "shell_1", Map.of("shell_1.result", "ok"));
+        var values = this.cache.getScope("instance_2", "shell_1", this.loader(Map.of("shell_1.result", "db")));
+        assertEquals(values, Map.of("shell_1.result", "db"));
+        assertEquals(this.loads.get(), 1);
+    }
+}
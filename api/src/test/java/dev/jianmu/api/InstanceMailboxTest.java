@@ -0,0 +1,203 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.mailbox.InstanceMailbox;
+import dev.jianmu.infrastructure.mailbox.MailboxProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @class: InstanceMailboxTest
+ * @description: 流程实例命令邮箱测试
+ * @author: Ethan Liu
+ * @create: 2021-10-29 15:00
+ **/
+@DisplayName("流程实例命令邮箱测试")
+public class InstanceMailboxTest {
+    private ThreadPoolTaskExecutor executor;
+    private InstanceMailbox mailbox;
+
+    @BeforeEach
+    void setUp() {
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(4);
+        this.executor.setMaxPoolSize(4);
+        this.executor.initialize();
+        var properties = new MailboxProperties();
+        // 每次调度执行较少命令，多个邮箱交替占用线程
+        properties.setThroughput(3);
+        this.mailbox = new InstanceMailbox(this.executor, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        this.executor.shutdown();
+    }
+
+    // 等待流程实例已提交的命令全部执行完
+    private void await(String instanceId) throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        this.mailbox.submit(instanceId, latch::countDown);
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "命令执行超时");
+    }
+
+    private static void commit() {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static void rollback() {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+
+    @Test
+    @DisplayName("同一流程实例的命令按提交顺序串行执行")
+    void orderingTest() throws InterruptedException {
+        var instances = List.of("instance_1", "instance_2", "instance_3");
+        var executed = instances.stream()
+                .collect(Collectors.toMap(id -> id, id -> Collections.synchronizedList(new ArrayList<Integer>())));
+        var running = instances.stream()
+                .collect(Collectors.toMap(id -> id, id -> new AtomicInteger()));
+        var overlaps = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            var seq = i;
+            instances.forEach(id -> this.mailbox.submit(id, () -> {
+                if (running.get(id).incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                executed.get(id).add(seq);
+                running.get(id).decrementAndGet();
+            }));
+        }
+        for (String id : instances) {
+            this.await(id);
+        }
+        var expected = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        instances.forEach(id -> assertEquals(executed.get(id), expected));
+        assertEquals(overlaps.get(), 0);
+    }
+
+    @Test
+    @DisplayName("事务回滚时丢弃命令")
+    void rollbackTest() throws InterruptedException {
+        var executed = Collections.synchronizedList(new ArrayList<String>());
+        TransactionSynchronizationManager.initSynchronization();
+        this.mailbox.submitAfterCommit("instance_1", () -> executed.add("rolled back"));
+        // 事务提交前不执行
+        this.await("instance_1");
+        assertTrue(executed.isEmpty());
+        rollback();
+        TransactionSynchronizationManager.initSynchronization();
+        this.mailbox.submitAfterCommit("instance_1", () -> executed.add("committed"));
+        commit();
+        this.await("instance_1");
+        assertEquals(executed, List.of("committed"));
+    }
+
+    @Test
+    @DisplayName("事务提交后执行的命令失败只记录日志")
+    void afterCommitFailureTest() throws InterruptedException {
+        // 任务状态命令（taskRun/taskSucceed/taskFail）在任务实例事务提交后执行，
+        // 命令失败时任务实例状态已提交，异常不会抛给提交事务的线程，邮箱继续执行后续命令
+        var executed = Collections.synchronizedList(new ArrayList<String>());
+        TransactionSynchronizationManager.initSynchronization();
+        this.mailbox.submitAfterCommit("instance_1", () -> {
+            throw new RuntimeException("taskSucceed failed");
+        });
+        this.mailbox.submitAfterCommit("instance_1", () -> executed.add("next"));
+        commit();
+        this.await("instance_1");
+        assertEquals(executed, List.of("next"));
+    }
+
+    // 阻塞流程实例邮箱，使后续提交的命令在队列中排队
+    private CountDownLatch block(String instanceId) throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        this.mailbox.submit(instanceId, () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS), "命令执行超时");
+        return release;
+    }
+
+    @Test
+    @DisplayName("相邻的同类批量命令合并执行")
+    void coalesceTest() throws InterruptedException {
+        var executed = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        var release = this.block("instance_1");
+        this.mailbox.submitBatch("instance_1", "nodeEvents", List.of(1), executed::add);
+        this.mailbox.submitBatch("instance_1", "nodeEvents", List.of(2, 3), executed::add);
+        this.mailbox.submitBatch("instance_1", "nodeEvents", List.of(4), executed::add);
+        // 非批量命令与不同batchKey的批量命令不合并，并保持提交顺序
+        this.mailbox.submit("instance_1", () -> executed.add(List.of(-1)));
+        this.mailbox.submitBatch("instance_1", "nodeEvents", List.of(5), executed::add);
+        this.mailbox.submitBatch("instance_1", "otherEvents", List.of(6), executed::add);
+        this.mailbox.submitBatch("instance_1", "nodeEvents", List.of(7), executed::add);
+        // 其他流程实例的批量命令不合并
+        this.mailbox.submitBatch("instance_2", "nodeEvents", List.of(8), executed::add);
+        release.countDown();
+        this.await("instance_1");
+        this.await("instance_2");
+        assertTrue(executed.remove(List.of(8)));
+        assertEquals(executed, List.of(List.of(1, 2, 3, 4), List.of(-1), List.of(5), List.of(6), List.of(7)));
+    }
+
+    @Test
+    @DisplayName("批量命令失败只记录日志，不影响后续命令")
+    void batchFailureTest() throws InterruptedException {
+        var executed = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        var release = this.block("instance_1");
+        this.mailbox.<Integer>submitBatch("instance_1", "nodeEvents", List.of(1), batch -> {
+            throw new RuntimeException("applyNodeEvents failed");
+        });
+        this.mailbox.submitBatch("instance_1", "nodeEvents", List.of(2), executed::add);
+        this.mailbox.submit("instance_1", () -> executed.add(List.of(-1)));
+        this.mailbox.submitBatch("instance_1", "nodeEvents", List.of(3), executed::add);
+        release.countDown();
+        this.await("instance_1");
+        // 合并后由首个命令的handler处理，整批失败，拆分重试由handler负责
+        assertEquals(executed, List.of(List.of(-1), List.of(3)));
+    }
+
+    @Test
+    @DisplayName("关闭邮箱时在调用线程执行")
+    void disabledTest() {
+        var properties = new MailboxProperties();
+        properties.setEnabled(false);
+        var disabled = new InstanceMailbox(this.executor, properties, new SimpleMeterRegistry());
+        var thread = Thread.currentThread();
+        var executed = new ArrayList<Thread>();
+        disabled.submit("instance_1", () -> executed.add(Thread.currentThread()));
+        disabled.submitAfterCommit("instance_1", () -> executed.add(Thread.currentThread()));
+        assertEquals(executed, List.of(thread, thread));
+    }
+}
@@ -0,0 +1,118 @@
+package dev.jianmu.api;
+
+import dev.jianmu.api.mapper.TaskInstanceMapper;
+import dev.jianmu.api.mapper.WorkflowInstanceMapper;
+import dev.jianmu.api.vo.TaskInstanceVo;
+import dev.jianmu.infrastructure.mybatis.task.TaskInstanceSummary;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceSummary;
+import dev.jianmu.task.aggregate.InstanceStatus;
+import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @class: InstanceSummaryMapperTest
+ * @description: 流程实例与任务实例列表摘要转换测试
+ * @author: Ethan Liu
+ * @create: 2021-10-29 18:30
+ **/
+@DisplayName("实例列表摘要转换测试")
+public class InstanceSummaryMapperTest {
+    private final LocalDateTime startTime = LocalDateTime.of(2021, 10, 29, 10, 0);
+    private final LocalDateTime endTime = LocalDateTime.of(2021, 10, 29, 10, 5);
+
+    private WorkflowInstanceSummary workflowInstanceSummary() {
+        var summary = new WorkflowInstanceSummary();
+        summary.setId("instance_1");
+        summary.setSerialNo(3);
+        summary.setTriggerId("trigger_1");
+        summary.setTriggerType("MANUAL");
+        summary.setName("SummaryWL");
+        summary.setDescription("摘要测试流程");
+        summary.setWorkflowRef("summary_wl");
+        summary.setWorkflowVersion("1");
+        summary.setStatus(ProcessStatus.FINISHED);
+        summary.setLatestTaskStatus("SUCCEEDED");
+        summary.setStartTime(this.startTime);
+        summary.setEndTime(this.endTime);
+        return summary;
+    }
+
+    private TaskInstanceSummary taskInstanceSummary(InstanceStatus status) {
+        var summary = new TaskInstanceSummary();
+        summary.setId("task_instance_1");
+        summary.setSerialNo(1);
+        summary.setDefKey("shell");
+        summary.setAsyncTaskRef("task_1");
+        summary.setWorkflowRef("summary_wl");
+        summary.setWorkflowVersion("1");
+        summary.setBusinessId("instance_1");
+        summary.setTriggerId("trigger_1");
+        summary.setStartTime(this.startTime);
+        summary.setEndTime(this.endTime);
+        summary.setStatus(status);
+        return summary;
+    }
+
+    @Test
+    @DisplayName("流程实例摘要转换")
+    void workflowInstanceSummaryTest() {
+        var vo = WorkflowInstanceMapper.INSTANCE.toWorkflowInstanceVo(this.workflowInstanceSummary());
+        assertEquals(vo.getId(), "instance_1");
+        assertEquals(vo.getSerialNo(), 3);
+        assertEquals(vo.getTriggerId(), "trigger_1");
+        assertEquals(vo.getTriggerType(), "MANUAL");
+        assertEquals(vo.getName(), "SummaryWL");
+        assertEquals(vo.getDescription(), "摘要测试流程");
+        assertEquals(vo.getWorkflowRef(), "summary_wl");
+        assertEquals(vo.getWorkflowVersion(), "1");
+        assertEquals(vo.getStatus(), ProcessStatus.FINISHED);
+        assertEquals(vo.getLatestTaskStatus(), "SUCCEEDED");
+        assertEquals(vo.getStartTime(), this.startTime);
+        assertEquals(vo.getEndTime(), this.endTime);
+    }
+
+    @Test
+    @DisplayName("流程实例摘要列表转换")
+    void workflowInstanceSummaryListTest() {
+        var summary = this.workflowInstanceSummary();
+        summary.setLatestTaskStatus("");
+        var vos = WorkflowInstanceMapper.INSTANCE.toWorkflowInstanceVoList(List.of(this.workflowInstanceSummary(), summary));
+        assertEquals(vos.size(), 2);
+        assertEquals(vos.get(0).getLatestTaskStatus(), "SUCCEEDED");
+        // 没有已启动的任务实例
+        assertEquals(vos.get(1).getLatestTaskStatus(), "");
+    }
+
+    @Test
+    @DisplayName("任务实例摘要转换")
+    void taskInstanceSummaryTest() {
+        var vo = TaskInstanceMapper.INSTANCE.toTaskInstanceSummaryVo(this.taskInstanceSummary(InstanceStatus.RUNNING));
+        assertEquals(vo.getInstanceId(), "task_instance_1");
+        assertEquals(vo.getNodeName(), "task_1");
+        assertEquals(vo.getDefKey(), "shell");
+        assertEquals(vo.getStartTime(), this.startTime);
+        assertEquals(vo.getEndTime(), this.endTime);
+        assertEquals(vo.getStatus(), TaskInstanceVo.Status.RUNNING);
+    }
+
+    @Test
+    @DisplayName("任务实例摘要状态转换")
+    void taskInstanceSummaryStatusTest() {
+        var vos = TaskInstanceMapper.INSTANCE.toTaskInstanceSummaryVoList(List.of(
+                this.taskInstanceSummary(InstanceStatus.WAITING),
+                this.taskInstanceSummary(InstanceStatus.EXECUTION_SUCCEEDED),
+                this.taskInstanceSummary(InstanceStatus.EXECUTION_FAILED),
+                this.taskInstanceSummary(InstanceStatus.DISPATCH_FAILED)
+        ));
+        assertEquals(vos.get(0).getStatus(), TaskInstanceVo.Status.WAITING);
+        assertEquals(vos.get(1).getStatus(), TaskInstanceVo.Status.SUCCEEDED);
+        assertEquals(vos.get(2).getStatus(), TaskInstanceVo.Status.FAILED);
+        assertEquals(vos.get(3).getStatus(), TaskInstanceVo.Status.FAILED);
+    }
+}
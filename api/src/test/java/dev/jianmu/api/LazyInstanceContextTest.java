@@ -0,0 +1,68 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.el.LazyInstanceContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @class: LazyInstanceContextTest
+ * @description: 流程实例表达式上下文测试
+ * @author: Ethan Liu
+ * @create: 2021-10-29 14:00
+ **/
+@DisplayName("流程实例表达式上下文测试")
+public class LazyInstanceContextTest {
+    // 已加载的scope，按加载顺序记录
+    private final List<String> loaded = new ArrayList<>();
+
+    private final LazyInstanceContext context = new LazyInstanceContext(scope -> {
+        this.loaded.add(scope);
+        if (scope.equals("global")) {
+            return Map.of("global.name", "jianmu", "global.version", "1.0");
+        }
+        if (scope.equals("shell_1")) {
+            return Map.of("shell_1.result", "ok");
+        }
+        return Map.of();
+    });
+
+    @Test
+    @DisplayName("首次访问时加载scope")
+    void loadOnFirstAccessTest() {
+        assertTrue(this.loaded.isEmpty());
+        assertEquals(this.context.getVariable("global.name"), "jianmu");
+        assertEquals(this.loaded, List.of("global"));
+        // 同一scope的其他参数不再加载
+        assertEquals(this.context.getVariable("global.version"), "1.0");
+        assertEquals(this.context.getVariable("global.name"), "jianmu");
+        assertEquals(this.loaded, List.of("global"));
+        assertEquals(this.context.getVariable("shell_1.result"), "ok");
+        assertEquals(this.loaded, List.of("global", "shell_1"));
+    }
+
+    @Test
+    @DisplayName("未知scope测试")
+    void unknownScopeTest() {
+        // 未找到的参数原样返回占位符，scope只加载一次
+        assertEquals(this.context.getVariable("unknown.name"), "${unknown.name}");
+        assertEquals(this.context.getVariable("unknown.other"), "${unknown.other}");
+        assertEquals(this.loaded, List.of("unknown"));
+        // scope中不存在的参数
+        assertEquals(this.context.getVariable("global.missing"), "${global.missing}");
+        assertEquals(this.loaded, List.of("unknown", "global"));
+    }
+
+    @Test
+    @DisplayName("无scope的变量名测试")
+    void variableWithoutScopeTest() {
+        assertEquals(this.context.getVariable("name"), "${name}");
+        assertTrue(this.loaded.isEmpty());
+    }
+}
@@ -0,0 +1,123 @@
+package dev.jianmu.api;
+
+import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @class: MapperExplainTest
+ * @description: Mapper语句执行计划测试，热点表上带查询条件的语句不允许全表扫描
+ * @author: Ethan Liu
+ * @create: 2021-10-28 15:30
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+public class MapperExplainTest {
+    // 热点表
+    private static final Pattern HOT_TABLE = Pattern.compile(
+            "(?i)[\\s`](task_instance|task_instance_parameter|workflow_instance|secret_kv_pair)[\\s`]"
+    );
+    // H2执行计划中的全表扫描标记
+    private static final Pattern TABLE_SCAN = Pattern.compile(
+            "(?i)\\.(task_instance|task_instance_parameter|workflow_instance|secret_kv_pair)\\.tableScan"
+    );
+    // 访问热点表的Mapper
+    private static final Set<String> HOT_MAPPERS = Set.of(
+            "TaskInstanceMapper", "InstanceParameterMapper", "WorkflowInstanceMapper", "WorkflowInstanceEventMapper", "KVPairMapper"
+    );
+    // 动态SQL语句需指定参数才能生成SQL，新增热点表上的动态SQL时须在此登记
+    private static final Map<String, Object> DYNAMIC_PARAMETERS = Map.of(
+            "dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceMapper.findAllPage",
+            Map.of("id", "", "name", "", "workflowVersion", "", "status", ProcessStatus.RUNNING),
+            "dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceEventMapper.findAfterSnapshot",
+            Map.of("instances", List.of(Map.of("id", "1", "snapshotSequence", 0)))
+    );
+
+    @Resource
+    private SqlSessionFactory sqlSessionFactory;
+    @Resource
+    private DataSource dataSource;
+
+    @Test
+    void hotTableStatementsUseIndex() throws SQLException {
+        var statements = new TreeMap<String, MappedStatement>();
+        // 同一语句会以全限定名与短名称各注册一次
+        for (Object o : this.sqlSessionFactory.getConfiguration().getMappedStatements()) {
+            if (o instanceof MappedStatement) {
+                var ms = (MappedStatement) o;
+                statements.put(ms.getId(), ms);
+            }
+        }
+        List<String> violations = new ArrayList<>();
+        int checked = 0;
+        try (Connection connection = this.dataSource.getConnection()) {
+            for (MappedStatement ms : statements.values()) {
+                var type = ms.getSqlCommandType();
+                if (type != SqlCommandType.SELECT && type != SqlCommandType.UPDATE && type != SqlCommandType.DELETE) {
+                    continue;
+                }
+                var boundSql = ms.getSqlSource() instanceof DynamicSqlSource
+                        ? this.dynamicSql(ms, violations)
+                        : ms.getBoundSql(null);
+                if (boundSql == null) {
+                    continue;
+                }
+                var sql = boundSql.getSql().replaceAll("\\s+", " ");
+                // 只检查热点表上带查询条件的语句，无条件的全表查询不在检查范围内
+                if (!HOT_TABLE.matcher(" " + sql + " ").find() || !sql.toLowerCase().contains("where")) {
+                    continue;
+                }
+                var plan = this.explain(connection, sql, boundSql.getParameterMappings().size());
+                checked++;
+                if (TABLE_SCAN.matcher(plan).find()) {
+                    violations.add(ms.getId() + " 全表扫描: " + plan);
+                }
+            }
+        }
+        assertTrue(checked > 0, "未找到需要检查的语句");
+        assertTrue(violations.isEmpty(), String.join("\n", violations));
+    }
+
+    private BoundSql dynamicSql(MappedStatement ms, List<String> violations) {
+        var parameter = DYNAMIC_PARAMETERS.get(ms.getId());
+        if (parameter != null) {
+            return ms.getBoundSql(parameter);
+        }
+        var id = ms.getId();
+        var namespace = id.substring(0, id.lastIndexOf('.'));
+        if (HOT_MAPPERS.contains(namespace.substring(namespace.lastIndexOf('.') + 1))) {
+            violations.add(id + " 动态SQL未登记参数");
+        }
+        return null;
+    }
+
+    private String explain(Connection connection, String sql, int parameterCount) throws SQLException {
+        try (var ps = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 1; i <= parameterCount; i++) {
+                ps.setString(i, "1");
+            }
+            try (var rs = ps.executeQuery()) {
+                var plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append(' ');
+                }
+                return plan.toString();
+            }
+        }
+    }
+}
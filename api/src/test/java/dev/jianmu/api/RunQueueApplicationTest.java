@@ -0,0 +1,173 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.service.RunQueueApplication;
+import dev.jianmu.infrastructure.runqueue.RunQueueProperties;
+import dev.jianmu.project.aggregate.Project;
+import dev.jianmu.project.repository.ProjectRepository;
+import dev.jianmu.workflow.aggregate.definition.End;
+import dev.jianmu.workflow.aggregate.definition.Start;
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import dev.jianmu.workflow.aggregate.process.QueuedTrigger;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.repository.QueuedTriggerRepository;
+import dev.jianmu.workflow.repository.WorkflowInstanceRepository;
+import dev.jianmu.workflow.repository.WorkflowRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @class: RunQueueApplicationTest
+ * @description: 项目运行队列溢出策略测试
+ * @author: Ethan Liu
+ * @create: 2021-10-29 16:30
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("项目运行队列测试")
+public class RunQueueApplicationTest {
+    @Resource
+    private RunQueueApplication runQueueApplication;
+    @Resource
+    private RunQueueProperties runQueueProperties;
+    @Resource
+    private WorkflowRepository workflowRepository;
+    @Resource
+    private WorkflowInstanceRepository workflowInstanceRepository;
+    @Resource
+    private QueuedTriggerRepository queuedTriggerRepository;
+    @Resource
+    private ProjectRepository projectRepository;
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private String workflowRef;
+
+    @AfterEach
+    void tearDown() {
+        this.runQueueProperties.getProjects().remove(this.workflowRef);
+    }
+
+    // 创建项目与流程定义，并发上限为1，返回流程定义的refVersion
+    private String createProject(String workflowRef, RunQueueProperties.OverflowPolicy policy) {
+        this.workflowRef = workflowRef;
+        var limit = new RunQueueProperties.Limit();
+        limit.setMaxConcurrentRuns(1);
+        limit.setOverflowPolicy(policy);
+        this.runQueueProperties.getProjects().put(workflowRef, limit);
+        Start start = Start.Builder.aStart()
+                .name("Start")
+                .ref("start")
+                .description("开始节点")
+                .build();
+        End end = End.Builder.anEnd()
+                .name("End")
+                .ref("end")
+                .description("结束节点")
+                .build();
+        start.setTargets(Set.of(end.getRef()));
+        end.setSources(Set.of(start.getRef()));
+        var workflow = Workflow.Builder.aWorkflow()
+                .name(workflowRef)
+                .ref(workflowRef)
+                .type(Workflow.Type.WORKFLOW)
+                .description("运行队列测试流程")
+                .nodes(Set.of(start, end))
+                .globalParameters(Set.of())
+                .dslText("")
+                .build();
+        this.workflowRepository.add(workflow);
+        this.projectRepository.add(Project.Builder.aReference()
+                .gitRepoId("git_repo")
+                .workflowName(workflowRef)
+                .workflowRef(workflowRef)
+                .workflowVersion(workflow.getVersion())
+                .steps(0)
+                .dslText("")
+                .build());
+        return workflow.getRef() + workflow.getVersion();
+    }
+
+    private List<String> running() {
+        return this.workflowInstanceRepository.findByRefAndStatus(this.workflowRef, ProcessStatus.RUNNING).stream()
+                .map(WorkflowInstance::getTriggerId)
+                .collect(Collectors.toList());
+    }
+
+    private String firstQueued() {
+        return this.queuedTriggerRepository.findFirstByWorkflowRef(this.workflowRef)
+                .map(QueuedTrigger::getTriggerId)
+                .orElse(null);
+    }
+
+    private double overflows(RunQueueProperties.OverflowPolicy policy) {
+        return this.meterRegistry.get("workflow.run.queue.overflow")
+                .tag("policy", policy.name())
+                .counter()
+                .count();
+    }
+
+    @Test
+    @DisplayName("排队策略测试")
+    void queueTest() {
+        var refVersion = this.createProject("run_queue_wl", RunQueueProperties.OverflowPolicy.QUEUE);
+        var overflows = this.overflows(RunQueueProperties.OverflowPolicy.QUEUE);
+        this.runQueueApplication.trigger("trigger_1", "MANUAL", refVersion);
+        this.runQueueApplication.trigger("trigger_2", "MANUAL", refVersion);
+        this.runQueueApplication.trigger("trigger_3", "MANUAL", refVersion);
+        assertEquals(this.running(), List.of("trigger_1"));
+        assertEquals(this.queuedTriggerRepository.countByWorkflowRef(this.workflowRef), 2);
+        assertEquals(this.firstQueued(), "trigger_2");
+        assertEquals(this.overflows(RunQueueProperties.OverflowPolicy.QUEUE), overflows + 2);
+        // 运行中的流程实例终止后按入队顺序启动
+        var instance = this.workflowInstanceRepository.findByRefAndStatus(this.workflowRef, ProcessStatus.RUNNING).get(0);
+        instance.terminate();
+        this.workflowInstanceRepository.save(instance);
+        this.runQueueApplication.startQueued(this.workflowRef);
+        assertEquals(this.running(), List.of("trigger_2"));
+        assertEquals(this.firstQueued(), "trigger_3");
+        // 没有空闲时不启动
+        this.runQueueApplication.startQueued(this.workflowRef);
+        assertEquals(this.running(), List.of("trigger_2"));
+        assertEquals(this.queuedTriggerRepository.countByWorkflowRef(this.workflowRef), 1);
+    }
+
+    @Test
+    @DisplayName("合并策略测试")
+    void coalesceTest() {
+        var refVersion = this.createProject("run_queue_coalesce_wl", RunQueueProperties.OverflowPolicy.COALESCE);
+        this.runQueueApplication.trigger("trigger_1", "MANUAL", refVersion);
+        this.runQueueApplication.trigger("trigger_2", "MANUAL", refVersion);
+        this.runQueueApplication.trigger("trigger_3", "MANUAL", refVersion);
+        // 只保留最新的一次触发
+        assertEquals(this.running(), List.of("trigger_1"));
+        assertEquals(this.queuedTriggerRepository.countByWorkflowRef(this.workflowRef), 1);
+        assertEquals(this.firstQueued(), "trigger_3");
+    }
+
+    @Test
+    @DisplayName("终止运行中流程策略测试")
+    void cancelRunningTest() {
+        var refVersion = this.createProject("run_queue_cancel_wl", RunQueueProperties.OverflowPolicy.CANCEL_RUNNING);
+        this.runQueueApplication.trigger("trigger_1", "MANUAL", refVersion);
+        this.runQueueApplication.trigger("trigger_2", "MANUAL", refVersion);
+        assertEquals(this.running(), List.of("trigger_2"));
+        assertEquals(this.queuedTriggerRepository.countByWorkflowRef(this.workflowRef), 0);
+        var terminated = this.workflowInstanceRepository.findByRefAndStatus(this.workflowRef, ProcessStatus.TERMINATED);
+        assertEquals(terminated.size(), 1);
+        assertEquals(terminated.get(0).getTriggerId(), "trigger_1");
+    }
+}
@@ -0,0 +1,139 @@
+package dev.jianmu.api;
+
+import dev.jianmu.infrastructure.mapper.serialno.SerialNoCounterMapper;
+import dev.jianmu.infrastructure.serialno.SerialNoAllocator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @class: SerialNoAllocatorTest
+ * @description: 序号分配器测试
+ * @author: Ethan Liu
+ * @create: 2021-10-29 17:00
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@DisplayName("序号分配器测试")
+public class SerialNoAllocatorTest {
+    @Resource
+    private SerialNoAllocator serialNoAllocator;
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("首次分配时并发插入计数行")
+    void firstAllocationRaceTest() {
+        // 计数行不存在时递增失败，插入时对方已插入计数行
+        List<String> calls = new ArrayList<>();
+        var allocator = new SerialNoAllocator(new SerialNoCounterMapper() {
+            private int value;
+
+            @Override
+            public int increment(String counterKey) {
+                calls.add("increment");
+                if (calls.size() == 1) {
+                    return 0;
+                }
+                this.value++;
+                return 1;
+            }
+
+            @Override
+            public void add(String counterKey, String workflowRef) {
+                calls.add("add");
+                this.value = 1;
+                throw new DuplicateKeyException("Duplicate entry '" + counterKey + "' for key 'PRIMARY'");
+            }
+
+            @Override
+            public int getValue(String counterKey) {
+                calls.add("getValue");
+                return this.value;
+            }
+
+            @Override
+            public void deleteByWorkflowRef(String workflowRef) {
+            }
+
+            @Override
+            public void deleteByKeyPrefix(String prefix) {
+            }
+        });
+        assertEquals(allocator.nextWorkflowSerialNo("serial_wl"), 2);
+        assertEquals(calls, List.of("increment", "add", "increment", "getValue"));
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("首次分配与递增")
+    void allocateTest() {
+        assertEquals(this.serialNoAllocator.nextWorkflowSerialNo("serial_wl"), 1);
+        assertEquals(this.serialNoAllocator.nextWorkflowSerialNo("serial_wl"), 2);
+        assertEquals(this.serialNoAllocator.nextTaskSerialNo("serial_wl", "instance_1", "task_1"), 1);
+        assertEquals(this.serialNoAllocator.nextTaskSerialNo("serial_wl", "instance_1", "task_1"), 2);
+        assertEquals(this.serialNoAllocator.nextTaskSerialNo("serial_wl", "instance_1", "task_2"), 1);
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("删除流程实例的任务序号计数")
+    void deleteByBusinessIdTest() {
+        this.serialNoAllocator.nextWorkflowSerialNo("serial_wl");
+        this.serialNoAllocator.nextTaskSerialNo("serial_wl", "instance_1", "task_1");
+        this.serialNoAllocator.nextTaskSerialNo("serial_wl", "instance_2", "task_1");
+        this.serialNoAllocator.deleteByBusinessId("instance_1");
+        assertEquals(this.serialNoAllocator.nextTaskSerialNo("serial_wl", "instance_1", "task_1"), 1);
+        assertEquals(this.serialNoAllocator.nextTaskSerialNo("serial_wl", "instance_2", "task_1"), 2);
+        assertEquals(this.serialNoAllocator.nextWorkflowSerialNo("serial_wl"), 2);
+    }
+
+    @Test
+    @DisplayName("并发分配不重复不留空号")
+    void concurrentAllocationTest() throws Exception {
+        var workflowRef = "serial_concurrent_wl";
+        int threads = 8;
+        int perThread = 5;
+        var executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<List<Integer>>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    List<Integer> allocated = new ArrayList<>();
+                    for (int j = 0; j < perThread; j++) {
+                        // 每次分配在独立事务中，首次分配时多个线程同时插入计数行
+                        allocated.add(this.transactionTemplate.execute(status ->
+                                this.serialNoAllocator.nextWorkflowSerialNo(workflowRef)
+                        ));
+                    }
+                    return allocated;
+                });
+            }
+            List<Integer> serialNos = new ArrayList<>();
+            for (Future<List<Integer>> future : executor.invokeAll(tasks)) {
+                serialNos.addAll(future.get());
+            }
+            Collections.sort(serialNos);
+            assertEquals(serialNos, IntStream.rangeClosed(1, threads * perThread).boxed().collect(Collectors.toList()));
+        } finally {
+            executor.shutdown();
+            this.serialNoAllocator.deleteByWorkflowRef(workflowRef);
+        }
+    }
+}
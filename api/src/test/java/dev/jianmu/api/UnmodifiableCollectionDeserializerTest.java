@@ -0,0 +1,142 @@
+package dev.jianmu.api;
+
+import dev.jianmu.infrastructure.codec.BlobCodec;
+import dev.jianmu.infrastructure.codec.BlobFormat;
+import dev.jianmu.infrastructure.codec.CodecRegistry;
+import dev.jianmu.workflow.aggregate.definition.*;
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: UnmodifiableCollectionDeserializerTest
+ * @description: 不可变集合反序列化器测试，默认类型信息下JSON与Smile格式往返读写
+ * @author: Ethan Liu
+ * @create: 2021-10-29 18:10
+ **/
+@DisplayName("不可变集合反序列化器测试")
+public class UnmodifiableCollectionDeserializerTest {
+
+    private static <T> T roundTrip(BlobCodec<T> codec, BlobFormat format, T value) throws IOException {
+        var out = new ByteArrayOutputStream();
+        codec.write(value, format, out);
+        return codec.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static Set<Node> nodes() {
+        Start start = Start.Builder.aStart()
+                .name("Start")
+                .ref("start")
+                .description("开始节点")
+                .build();
+        AsyncTask task = AsyncTask.Builder.anAsyncTask()
+                .name("Task1")
+                .ref("task_1")
+                .description("异步任务节点1")
+                .build();
+        End end1 = End.Builder.anEnd()
+                .name("End1")
+                .ref("end_1")
+                .build();
+        End end2 = End.Builder.anEnd()
+                .name("End2")
+                .ref("end_2")
+                .build();
+        End end3 = End.Builder.anEnd()
+                .name("End3")
+                .ref("end_3")
+                .build();
+        // 不同元素数量对应不同的不可变集合实现类
+        start.setSources(Set.of());
+        start.setTargets(Set.of("task_1"));
+        task.setSources(Set.of("start"));
+        task.setTargets(Set.of("end_1", "end_2", "end_3"));
+        end1.setSources(Set.of("task_1"));
+        end2.setSources(Set.of("task_1"));
+        end3.setSources(Set.of("task_1"));
+        return Set.of(start, task, end1, end2, end3);
+    }
+
+    private static AsyncTaskInstance taskInstance(String ref) {
+        return AsyncTaskInstance.Builder.anAsyncTaskInstance()
+                .name(ref)
+                .asyncTaskRef(ref)
+                .asyncTaskType("shell")
+                .build();
+    }
+
+    private static List<String> refs(List<AsyncTaskInstance> taskInstances) {
+        return taskInstances.stream().map(AsyncTaskInstance::getAsyncTaskRef).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("节点集合往返读写")
+    void nodeSetTest() throws IOException {
+        var nodes = nodes();
+        for (BlobFormat format : BlobFormat.values()) {
+            var result = roundTrip(CodecRegistry.NODES, format, nodes);
+            assertEquals(5, result.size(), format.name());
+            assertThrows(UnsupportedOperationException.class, () -> result.add(End.Builder.anEnd().ref("end").build()));
+            Map<String, Node> byRef = result.stream().collect(Collectors.toMap(Node::getRef, node -> node));
+            // 元素按类型信息恢复为具体的节点类型
+            assertTrue(byRef.get("start") instanceof Start, format.name());
+            assertTrue(byRef.get("task_1") instanceof AsyncTask, format.name());
+            assertTrue(byRef.get("end_1") instanceof End, format.name());
+            assertEquals(Set.of(), byRef.get("start").getSources());
+            assertEquals(Set.of("task_1"), byRef.get("start").getTargets());
+            assertEquals(Set.of("end_1", "end_2", "end_3"), byRef.get("task_1").getTargets());
+            assertEquals(Set.of("task_1"), byRef.get("end_3").getSources());
+        }
+    }
+
+    @Test
+    @DisplayName("全局参数集合往返读写")
+    void parameterSetTest() throws IOException {
+        var parameter = GlobalParameter.Builder.aGlobalParameter()
+                .name("param")
+                .value("value")
+                .build();
+        for (BlobFormat format : BlobFormat.values()) {
+            var single = roundTrip(CodecRegistry.GLOBAL_PARAMETERS, format, Set.of(parameter));
+            assertEquals(1, single.size(), format.name());
+            var result = single.iterator().next();
+            assertEquals("param", result.getName());
+            assertEquals("value", result.getValue());
+            assertThrows(UnsupportedOperationException.class, () -> single.add(parameter));
+
+            var empty = roundTrip(CodecRegistry.GLOBAL_PARAMETERS, format, Set.of());
+            assertNotNull(empty, format.name());
+            assertTrue(empty.isEmpty(), format.name());
+        }
+    }
+
+    @Test
+    @DisplayName("任务实例列表往返读写")
+    void taskInstanceListTest() throws IOException {
+        var taskInstances = List.of(taskInstance("task_1"), taskInstance("task_2"), taskInstance("task_3"));
+        for (BlobFormat format : BlobFormat.values()) {
+            var result = roundTrip(CodecRegistry.TASK_INSTANCES, format, taskInstances);
+            // 列表保持写入顺序
+            assertEquals(List.of("task_1", "task_2", "task_3"), refs(result), format.name());
+            assertEquals("shell", result.get(0).getAsyncTaskType());
+            assertThrows(UnsupportedOperationException.class, () -> result.add(taskInstance("task_4")));
+
+            var single = roundTrip(CodecRegistry.TASK_INSTANCES, format, List.of(taskInstance("task_1")));
+            assertEquals(List.of("task_1"), refs(single), format.name());
+
+            var empty = roundTrip(CodecRegistry.TASK_INSTANCES, format, List.of());
+            assertNotNull(empty, format.name());
+            assertTrue(empty.isEmpty(), format.name());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package dev.jianmu.api;
+
+import dev.jianmu.api.eventhandler.WorkflowEventHandler;
+import dev.jianmu.application.mailbox.InstanceMailbox;
+import dev.jianmu.application.service.WorkflowInstanceApplication;
+import dev.jianmu.infrastructure.mailbox.MailboxProperties;
+import dev.jianmu.workflow.aggregate.definition.Start;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.event.BaseEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @class: WorkflowEventHandlerTest
+ * @description: 流程事件处理器测试，合并的节点事件批量处理失败时逐个重新处理
+ * @author: Ethan Liu
+ * @create: 2021-10-29 16:00
+ **/
+@DisplayName("流程事件处理器测试")
+public class WorkflowEventHandlerTest {
+    private ThreadPoolTaskExecutor executor;
+    private InstanceMailbox mailbox;
+    // 每次调用applyNodeEvents处理的节点，按调用顺序记录
+    private final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+    // 成功处理的节点
+    private final List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+    // 包含task_bad的批次处理失败，整批回滚
+    private final WorkflowInstanceApplication instanceApplication = new WorkflowInstanceApplication(
+            null, null, null, null, null, null, null
+    ) {
+        @Override
+        public void applyNodeEvents(String instanceId, List<BaseEvent> events) {
+            var refs = events.stream().map(BaseEvent::getNodeRef).sorted().collect(Collectors.toList());
+            calls.add(refs);
+            if (refs.contains("task_bad")) {
+                throw new RuntimeException("未找到该节点定义: task_bad");
+            }
+            applied.addAll(refs);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.initialize();
+        this.mailbox = new InstanceMailbox(this.executor, new MailboxProperties(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdown();
+    }
+
+    private WorkflowInstance startInstance(Set<String> targets) {
+        var start = Start.Builder.aStart()
+                .name("Start")
+                .ref("start")
+                .description("开始节点")
+                .build();
+        start.setTargets(targets);
+        var instance = WorkflowInstance.Builder.aWorkflowInstance()
+                .triggerId("trigger_1")
+                .workflowRef("test_wl")
+                .workflowVersion("1")
+                .build();
+        // 发布流程启动事件与所有下游节点激活事件
+        instance.activateNode(start);
+        return instance;
+    }
+
+    private void handle(WorkflowInstance instance) throws InterruptedException {
+        var handler = new WorkflowEventHandler(
+                this.instanceApplication, null, null, event -> {
+                }, this.mailbox, null, null
+        );
+        handler.handleAggregateRootEvents(instance);
+        var latch = new CountDownLatch(1);
+        this.mailbox.submit(instance.getId(), latch::countDown);
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "命令执行超时");
+    }
+
+    @Test
+    @DisplayName("节点事件合并为一次处理")
+    void batchTest() throws InterruptedException {
+        this.handle(this.startInstance(Set.of("task_a", "task_b", "task_c")));
+        assertEquals(this.calls, List.of(List.of("task_a", "task_b", "task_c")));
+        assertEquals(this.applied, List.of("task_a", "task_b", "task_c"));
+    }
+
+    @Test
+    @DisplayName("批量处理失败时逐个重新处理")
+    void splitOnFailureTest() throws InterruptedException {
+        this.handle(this.startInstance(Set.of("task_a", "task_bad", "task_c")));
+        assertEquals(this.calls.get(0), List.of("task_a", "task_bad", "task_c"));
+        assertEquals(this.calls.size(), 4);
+        var retried = this.calls.subList(1, 4).stream()
+                .flatMap(List::stream)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(retried, List.of("task_a", "task_bad", "task_c"));
+        // 失败的事件不影响同批的其他事件
+        this.applied.sort(String::compareTo);
+        assertEquals(this.applied, List.of("task_a", "task_c"));
+    }
+}
@@ -0,0 +1,219 @@
+package dev.jianmu.api;
+
+import dev.jianmu.infrastructure.exception.DBException;
+import dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceEventMapper;
+import dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceMapper;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceEvent;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceRepositoryImpl;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceSummary;
+import dev.jianmu.workflow.aggregate.AggregateRoot;
+import dev.jianmu.workflow.aggregate.definition.AsyncTask;
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+import dev.jianmu.workflow.aggregate.process.TaskStatus;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.repository.WorkflowInstanceRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @class: WorkflowInstanceRepositoryTest
+ * @description: 流程实例仓储测试，任务实例事件追加与快照回放、乐观锁与领域事件发布、列表摘要
+ * @author: Ethan Liu
+ * @create: 2021-10-29 15:30
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@Transactional
+@RecordApplicationEvents
+@DisplayName("流程实例仓储测试")
+public class WorkflowInstanceRepositoryTest {
+    // 超过仓储实现中的快照间隔(20)
+    private static final int TASK_COUNT = 25;
+
+    @Resource
+    private WorkflowInstanceRepository workflowInstanceRepository;
+    @Resource
+    private WorkflowInstanceEventMapper workflowInstanceEventMapper;
+    @Resource
+    private ApplicationEvents applicationEvents;
+    @Resource
+    private WorkflowInstanceRepositoryImpl workflowInstanceRepositoryImpl;
+    @Resource
+    private WorkflowInstanceMapper workflowInstanceMapper;
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    private static AsyncTask task(int i) {
+        return AsyncTask.Builder.anAsyncTask()
+                .name("Task" + i)
+                .ref("task_" + i)
+                .description("异步任务节点" + i)
+                .build();
+    }
+
+    private WorkflowInstance createInstance() {
+        var instance = WorkflowInstance.Builder.aWorkflowInstance()
+                .serialNo(1)
+                .triggerId("trigger_snapshot")
+                .triggerType("MANUAL")
+                .name("SnapshotWL")
+                .description("快照测试流程")
+                .workflowRef("snapshot_wl")
+                .workflowVersion("1")
+                .build();
+        return this.workflowInstanceRepository.add(instance);
+    }
+
+    // 每次保存激活并运行一个任务，追加一条任务实例事件
+    private void runTask(String instanceId, int i) {
+        var instance = this.workflowInstanceRepository.findById(instanceId).orElseThrow();
+        instance.activateNode(task(i));
+        instance.taskRun("task_" + i);
+        this.workflowInstanceRepository.save(instance);
+    }
+
+    private WorkflowInstanceSummary summary(String instanceId) {
+        return this.workflowInstanceRepositoryImpl.findByWorkflowRef("snapshot_wl").stream()
+                .filter(summary -> summary.getId().equals(instanceId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private String latestTaskStatusColumn(String instanceId) {
+        return this.jdbcTemplate.queryForObject(
+                "select latest_task_status from workflow_instance where id = ?", String.class, instanceId);
+    }
+
+    private static List<String> refs(WorkflowInstance instance) {
+        return instance.getAsyncTaskInstances().stream()
+                .map(AsyncTaskInstance::getAsyncTaskRef)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("跨过快照间隔后回放快照之后的事件")
+    void replayAcrossSnapshotTest() {
+        var instanceId = this.createInstance().getId();
+        for (int i = 1; i <= TASK_COUNT; i++) {
+            this.runTask(instanceId, i);
+        }
+        var loaded = this.workflowInstanceRepository.findById(instanceId).orElseThrow();
+        assertEquals(loaded.getEventSequence(), TASK_COUNT);
+        assertEquals(loaded.getSnapshotSequence(), 20);
+        assertEquals(loaded.getVersion(), TASK_COUNT + 1);
+        var expected = IntStream.rangeClosed(1, TASK_COUNT).mapToObj(i -> "task_" + i).collect(Collectors.toList());
+        assertEquals(refs(loaded), expected);
+        loaded.getAsyncTaskInstances().forEach(taskInstance -> assertEquals(taskInstance.getStatus(), TaskStatus.RUNNING));
+    }
+
+    @Test
+    @DisplayName("加载后写入新快照，按加载时的快照序号查询事件")
+    void snapshotWrittenAfterLoadTest() {
+        var instanceId = this.createInstance().getId();
+        for (int i = 1; i <= 19; i++) {
+            this.runTask(instanceId, i);
+        }
+        // 读取流程实例行后，其他保存跨过快照间隔写入了新快照
+        var stale = this.workflowInstanceRepository.findById(instanceId).orElseThrow();
+        assertEquals(stale.getSnapshotSequence(), 0);
+        this.runTask(instanceId, 20);
+        var events = this.workflowInstanceEventMapper.findAfterSnapshot(List.of(stale));
+        var sequences = events.stream().map(WorkflowInstanceEvent::getSequenceNo).collect(Collectors.toList());
+        assertEquals(sequences, IntStream.rangeClosed(1, 20).boxed().collect(Collectors.toList()));
+        // 重新加载后从新快照回放
+        var loaded = this.workflowInstanceRepository.findById(instanceId).orElseThrow();
+        assertEquals(loaded.getSnapshotSequence(), 20);
+        assertEquals(this.workflowInstanceEventMapper.findAfterSnapshot(List.of(loaded)).size(), 0);
+        assertEquals(refs(loaded).size(), 20);
+    }
+
+    @Test
+    @DisplayName("以过期版本保存时乐观锁失败")
+    void staleVersionTest() {
+        var instanceId = this.createInstance().getId();
+        var first = this.workflowInstanceRepository.findById(instanceId).orElseThrow();
+        var stale = this.workflowInstanceRepository.findById(instanceId).orElseThrow();
+        first.activateNode(task(1));
+        this.workflowInstanceRepository.save(first);
+        stale.activateNode(task(2));
+        assertThrows(DBException.OptimisticLocking.class, () -> this.workflowInstanceRepository.save(stale));
+        // 保存失败时不追加事件，版本不变
+        assertEquals(this.workflowInstanceEventMapper.findAfterSnapshot(List.of(stale)).size(), 1);
+        assertEquals(stale.getVersion(), 1);
+        var loaded = this.workflowInstanceRepository.findById(instanceId).orElseThrow();
+        assertEquals(loaded.getVersion(), 2);
+        assertEquals(refs(loaded), List.of("task_1"));
+    }
+
+    @Test
+    @DisplayName("保存后继续使用同一聚合根时不重复发布领域事件")
+    void drainDomainEventsTest() {
+        var instanceId = this.createInstance().getId();
+        var instance = this.workflowInstanceRepository.findById(instanceId).orElseThrow();
+        instance.activateNode(task(1));
+        var raised = instance.getUncommittedDomainEvents();
+        assertTrue(raised.size() > 0);
+        this.applicationEvents.clear();
+        this.workflowInstanceRepository.save(instance);
+        assertEquals(instance.getUncommittedDomainEvents().size(), 0);
+        instance.taskRun("task_1");
+        this.workflowInstanceRepository.save(instance);
+        this.workflowInstanceRepository.save(instance);
+        // 每次保存只发布上次保存之后产生的事件
+        var published = this.applicationEvents.stream(AggregateRoot.class)
+                .map(AggregateRoot::getUncommittedDomainEvents)
+                .collect(Collectors.toList());
+        assertEquals(published.size(), 3);
+        assertEquals(published.get(0), raised);
+        assertEquals(published.get(1).size(), 1);
+        assertEquals(published.get(2).size(), 0);
+    }
+
+    @Test
+    @DisplayName("列表摘要读取保存时写入的最近任务状态")
+    void latestTaskStatusTest() {
+        var instanceId = this.createInstance().getId();
+        assertEquals(this.summary(instanceId).getLatestTaskStatus(), "");
+        this.runTask(instanceId, 1);
+        var summary = this.summary(instanceId);
+        assertEquals(summary.getLatestTaskStatus(), "RUNNING");
+        assertEquals(summary.getSerialNo(), 1);
+        assertEquals(summary.getTriggerId(), "trigger_snapshot");
+    }
+
+    @Test
+    @DisplayName("缺少最近任务状态时计算一次并写回")
+    void latestTaskStatusFallbackTest() {
+        var instanceId = this.createInstance().getId();
+        this.runTask(instanceId, 1);
+        var emptyInstanceId = this.createInstance().getId();
+        // 模拟增加latest_task_status字段之前保存的流程实例
+        this.jdbcTemplate.update("update workflow_instance set latest_task_status = null where id in (?, ?)", instanceId, emptyInstanceId);
+        assertEquals(this.summary(instanceId).getLatestTaskStatus(), "RUNNING");
+        assertEquals(this.summary(emptyInstanceId).getLatestTaskStatus(), "");
+        // 写回后再次查询直接读取字段
+        assertEquals(this.latestTaskStatusColumn(instanceId), "RUNNING");
+        assertEquals(this.latestTaskStatusColumn(emptyInstanceId), "");
+        // 已有值时不覆盖，也不改变乐观锁版本
+        assertFalse(this.workflowInstanceMapper.fillLatestTaskStatus(instanceId, "FAILED"));
+        assertEquals(this.latestTaskStatusColumn(instanceId), "RUNNING");
+        var loaded = this.workflowInstanceRepository.findById(instanceId).orElseThrow();
+        assertEquals(loaded.getVersion(), 2);
+    }
+}
@@ -0,0 +1,13 @@
+CREATE TABLE `workflow_run_queue`
+(
+    `seq`              bigint      NOT NULL AUTO_INCREMENT COMMENT '入队顺序',
+    `id`               varchar(45) NOT NULL COMMENT 'ID',
+    `trigger_id`       varchar(45) NOT NULL COMMENT '触发器ID',
+    `trigger_type`     varchar(45) NOT NULL COMMENT '触发器类型',
+    `workflow_ref`     varchar(45) NOT NULL COMMENT '流程定义唯一引用名称',
+    `workflow_version` varchar(45) NOT NULL COMMENT '流程定义版本',
+    `enqueue_time`     datetime    NOT NULL COMMENT '入队时间',
+    PRIMARY KEY (`seq`),
+    UNIQUE (`id`)
+);
+CREATE INDEX `workflow_ref_seq_IDX` ON `workflow_run_queue` (`workflow_ref`, `seq`);
@@ -0,0 +1,21 @@
+CREATE TABLE `serial_no_counter`
+(
+    `counter_key`   varchar(128) NOT NULL COMMENT '计数器Key',
+    `workflow_ref`  varchar(45)  NOT NULL COMMENT '流程定义唯一引用名称',
+    `current_value` int          NOT NULL COMMENT '已分配的最大序号',
+    PRIMARY KEY (`counter_key`)
+);
+CREATE INDEX `workflow_ref_IDX` ON `serial_no_counter` (`workflow_ref`);
+
+INSERT INTO `serial_no_counter`(`counter_key`, `workflow_ref`, `current_value`)
+SELECT CONCAT('workflow:', `workflow_ref`), `workflow_ref`, MAX(`serial_no`)
+FROM `workflow_instance`
+GROUP BY `workflow_ref`;
+
+-- 任务序号计数在流程实例结束后删除，只为运行中的流程实例创建
+INSERT INTO `serial_no_counter`(`counter_key`, `workflow_ref`, `current_value`)
+SELECT CONCAT('task:', t.`business_id`, ':', t.`async_task_ref`), MAX(w.`workflow_ref`), COUNT(*)
+FROM `task_instance` t
+         JOIN `workflow_instance` w ON w.`id` = t.`business_id`
+WHERE w.`status` = 'RUNNING'
+GROUP BY t.`business_id`, t.`async_task_ref`;
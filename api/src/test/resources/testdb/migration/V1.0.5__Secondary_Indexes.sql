@@ -0,0 +1,14 @@
+CREATE INDEX `task_business_id_start_time_IDX` ON `task_instance` (`business_id`, `start_time`);
+CREATE INDEX `task_ref_business_id_IDX` ON `task_instance` (`async_task_ref`, `business_id`, `status`);
+CREATE INDEX `task_status_IDX` ON `task_instance` (`status`);
+CREATE INDEX `task_workflow_ref_IDX` ON `task_instance` (`workflow_ref`);
+
+CREATE INDEX `parameter_instance_id_type_IDX` ON `task_instance_parameter` (`instance_id`, `type`);
+CREATE INDEX `parameter_business_trigger_type_IDX` ON `task_instance_parameter` (`business_id`, `trigger_id`, `type`);
+
+CREATE INDEX `instance_ref_version_status_IDX` ON `workflow_instance` (`workflow_ref`, `workflow_version`, `status`);
+CREATE INDEX `instance_ref_status_serial_no_IDX` ON `workflow_instance` (`workflow_ref`, `status`, `serial_no`);
+CREATE INDEX `instance_ref_serial_no_IDX` ON `workflow_instance` (`workflow_ref`, `serial_no`);
+CREATE INDEX `instance_status_IDX` ON `workflow_instance` (`status`);
+
+CREATE INDEX `namespace_key_IDX` ON `secret_kv_pair` (`namespace_name`, `kv_key`);
@@ -0,0 +1,2 @@
+ALTER TABLE `workflow_instance`
+    ADD COLUMN `latest_task_status` varchar(45) DEFAULT NULL COMMENT '最近启动的任务实例状态';
@@ -21,6 +21,8 @@ public class DslNode {
     private final Map<String, String> param;
     private final String expression;
     private final Map<String, String> cases;
+    // 任务执行超时时间（秒）
+    private final Long timeout;
 
     public DslNode(String nodeName, Map<?, ?> node) {
         this.name = nodeName;
@@ -61,5 +63,47 @@ public class DslNode {
         } else {
             this.expression = "";
         }
+        this.timeout = parseTimeout(node.get("timeout"));
+    }
+
+    // 解析超时时间，数字单位为秒，字符串支持s/m/h后缀，如30s、10m、2h
+    static Long parseTimeout(Object value) {
+        if (null == value) {
+            return null;
+        }
+        long seconds;
+        if (value instanceof Number) {
+            seconds = ((Number) value).longValue();
+        } else {
+            var text = value.toString().trim();
+            if (text.isEmpty()) {
+                throw new RuntimeException("timeout格式错误: " + value);
+            }
+            long unit = 1;
+            switch (text.charAt(text.length() - 1)) {
+                case 'h':
+                    unit = 3600;
+                    text = text.substring(0, text.length() - 1);
+                    break;
+                case 'm':
+                    unit = 60;
+                    text = text.substring(0, text.length() - 1);
+                    break;
+                case 's':
+                    text = text.substring(0, text.length() - 1);
+                    break;
+                default:
+                    break;
+            }
+            try {
+                seconds = Math.multiplyExact(Long.parseLong(text.trim()), unit);
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new RuntimeException("timeout格式错误: " + value);
+            }
+        }
+        if (seconds <= 0) {
+            throw new RuntimeException("timeout必须大于0: " + value);
+        }
+        return seconds;
     }
 }
@@ -1,8 +1,8 @@
 package dev.jianmu.application.dsl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.databind.ObjectReader;
 import dev.jianmu.application.query.NodeDef;
+import dev.jianmu.infrastructure.codec.CodecRegistry;
 import dev.jianmu.workflow.aggregate.definition.*;
 import lombok.extern.slf4j.Slf4j;
 
@@ -21,6 +21,8 @@ import java.util.stream.Collectors;
  **/
 @Slf4j
 public class DslParser {
+    private static final ObjectReader DSL_READER = CodecRegistry.yamlReaderFor(DslParser.class);
+
     private String cron;
     private String eb;
     private Map<String, String> param;
@@ -29,15 +31,15 @@ public class DslParser {
     private String name;
     private String ref;
     private String description;
+    // 流程实例运行期限（秒）
+    private Long timeout;
     private Workflow.Type type;
     private final List<DslNode> dslNodes = new ArrayList<>();
 
-    private final ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-
     public static DslParser parse(String dslText) {
-        var parser = new DslParser();
+        DslParser parser;
         try {
-            parser = parser.mapper.readValue(dslText, DslParser.class);
+            parser = DSL_READER.readValue(dslText);
             parser.syntaxCheck();
         } catch (IOException e) {
             log.error("DSL解析异常:", e);
@@ -177,6 +179,7 @@ public class DslParser {
                 .type(dslNode.getType())
                 .taskParameters(taskParameters)
                 .description(nodeDef.getDescription())
+                .timeout(dslNode.getTimeout())
                 .build();
     }
 
@@ -225,6 +228,7 @@ public class DslParser {
         this.ref = (String) pipe.get("ref");
         RefChecker.check(this.ref);
         this.description = (String) pipe.get("description");
+        this.timeout = DslNode.parseTimeout(pipe.get("timeout"));
         pipe.forEach((key, val) -> {
             if (val instanceof Map) {
                 this.checkPipeNode(key, (Map<?, ?>) val);
@@ -258,6 +262,7 @@ public class DslParser {
         this.ref = (String) flow.get("ref");
         RefChecker.check(this.ref);
         this.description = (String) flow.get("description");
+        this.timeout = DslNode.parseTimeout(flow.get("timeout"));
         flow.forEach((key, val) -> {
             if (val instanceof Map) {
                 this.checkNode(key, (Map<?, ?>) val);
@@ -379,6 +384,10 @@ public class DslParser {
         return description;
     }
 
+    public Long getTimeout() {
+        return timeout;
+    }
+
     public Workflow.Type getType() {
         return type;
     }
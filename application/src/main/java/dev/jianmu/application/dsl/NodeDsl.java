@@ -1,10 +1,10 @@
 package dev.jianmu.application.dsl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.databind.ObjectReader;
 import dev.jianmu.embedded.worker.aggregate.spec.ContainerSpec;
 import dev.jianmu.hub.intergration.aggregate.NodeParameter;
+import dev.jianmu.infrastructure.codec.CodecRegistry;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -27,6 +27,8 @@ import java.util.Set;
 @AllArgsConstructor
 @Slf4j
 public class NodeDsl {
+    private static final ObjectReader DSL_READER = CodecRegistry.yamlReaderFor(NodeDsl.class);
+
     /**
      * 归属ref
      */
@@ -70,8 +72,7 @@ public class NodeDsl {
      */
     public static NodeDsl parseDsl(String dsl) {
         try {
-            var mapper = new ObjectMapper(new YAMLFactory());
-            var dslVo = mapper.readValue(dsl, NodeDsl.class);
+            NodeDsl dslVo = DSL_READER.readValue(dsl);
             if (dslVo.ref.contains("/")) {
                 var arr = dslVo.ref.split("/");
                 dslVo.ownerRef = arr[0];
@@ -98,9 +99,8 @@ public class NodeDsl {
     }
 
     public String getSpecString() {
-        var mapper = new ObjectMapper();
         try {
-            return mapper.writeValueAsString(this.spec);
+            return CodecRegistry.CONTAINER_SPEC_WRITER.writeValueAsString(this.spec);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("无法序列化Spec");
         }
@@ -0,0 +1,79 @@
+package dev.jianmu.application.el;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.jianmu.infrastructure.elimpl.ElProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * @class: InstanceContextCache
+ * @description: 流程实例参数上下文缓存，按流程实例保存各scope的参数值
+ * 流程启动时预加载，任务输出参数增量更新，流程结束或终止时清除，缓存未命中时从数据库重新加载
+ * @author: Ethan Liu
+ * @create: 2021-10-22 10:30
+ **/
+@Component
+public class InstanceContextCache {
+    private final Cache<String, Map<String, Map<String, Object>>> cache;
+
+    public InstanceContextCache(ElProperties elProperties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(elProperties.getContextCacheMaximumSize())
+                .expireAfterAccess(elProperties.getContextCacheExpireAfterAccess())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "el.instance.context");
+    }
+
+    // 加载结果为空时不缓存，任务输出参数所在事务提交前加载到的空scope在下次访问时重新加载
+    public Map<String, Object> getScope(String businessId, String scope, Function<String, Map<String, Object>> loader) {
+        var scopes = this.cache.get(businessId, k -> new ConcurrentHashMap<>());
+        var values = scopes.get(scope);
+        if (values != null) {
+            return values;
+        }
+        var loaded = Collections.unmodifiableMap(loader.apply(scope));
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+        // 加载期间事务提交写入的值优先
+        var previous = scopes.putIfAbsent(scope, loaded);
+        return previous == null ? loaded : previous;
+    }
+
+    // 仅更新已缓存的流程实例，事务提交后生效，未缓存的实例在下次访问时从数据库加载
+    public void putScope(String businessId, String scope, Map<String, Object> values) {
+        var copy = Collections.unmodifiableMap(new HashMap<>(values));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.doPutScope(businessId, scope, copy);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                doPutScope(businessId, scope, copy);
+            }
+        });
+    }
+
+    private void doPutScope(String businessId, String scope, Map<String, Object> values) {
+        var scopes = this.cache.getIfPresent(businessId);
+        if (scopes != null) {
+            scopes.put(scope, values);
+        }
+    }
+
+    public void evict(String businessId) {
+        this.cache.invalidate(businessId);
+    }
+}
@@ -0,0 +1,118 @@
+package dev.jianmu.application.el;
+
+import dev.jianmu.eventbridge.aggregate.TargetEvent;
+import dev.jianmu.eventbridge.repository.TargetEventRepository;
+import dev.jianmu.task.repository.InstanceParameterRepository;
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.parameter.Parameter;
+import dev.jianmu.workflow.el.EvaluationContext;
+import dev.jianmu.workflow.repository.ParameterRepository;
+import dev.jianmu.workflow.service.ParameterDomainService;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @class: InstanceContextFactory
+ * @description: 流程实例表达式上下文工厂，参数在表达式实际引用时才查询，同一流程实例的参数缓存复用
+ * @author: Ethan Liu
+ * @create: 2021-10-21 14:30
+ **/
+@Component
+public class InstanceContextFactory {
+    private final TargetEventRepository targetEventRepository;
+    private final InstanceParameterRepository instanceParameterRepository;
+    private final ParameterRepository parameterRepository;
+    private final ParameterDomainService parameterDomainService;
+    private final InstanceContextCache instanceContextCache;
+
+    public InstanceContextFactory(
+            TargetEventRepository targetEventRepository,
+            InstanceParameterRepository instanceParameterRepository,
+            ParameterRepository parameterRepository,
+            ParameterDomainService parameterDomainService,
+            InstanceContextCache instanceContextCache
+    ) {
+        this.targetEventRepository = targetEventRepository;
+        this.instanceParameterRepository = instanceParameterRepository;
+        this.parameterRepository = parameterRepository;
+        this.parameterDomainService = parameterDomainService;
+        this.instanceContextCache = instanceContextCache;
+    }
+
+    public EvaluationContext create(Workflow workflow, String businessId, String triggerId) {
+        return new LazyInstanceContext(scope ->
+                this.instanceContextCache.getScope(businessId, scope, s -> this.loadScope(workflow, businessId, triggerId, s))
+        );
+    }
+
+    // 流程启动时预加载全局参数与事件参数
+    public void seed(Workflow workflow, String businessId, String triggerId) {
+        this.instanceContextCache.getScope(businessId, "global", s -> this.globalScope(workflow));
+        this.instanceContextCache.getScope(businessId, "event", s -> this.eventScope(triggerId));
+    }
+
+    // 任务输出参数保存后增量更新
+    public void putOutputs(String businessId, String asyncTaskRef, Map<String, Object> outputs) {
+        var values = new HashMap<String, Object>();
+        outputs.forEach((ref, value) -> values.put(asyncTaskRef + "." + ref, value));
+        this.instanceContextCache.putScope(businessId, asyncTaskRef, values);
+    }
+
+    public void evict(String businessId) {
+        this.instanceContextCache.evict(businessId);
+    }
+
+    private Map<String, Object> loadScope(Workflow workflow, String businessId, String triggerId, String scope) {
+        if (scope.equals("global")) {
+            return this.globalScope(workflow);
+        }
+        if (scope.equals("event")) {
+            return this.eventScope(triggerId);
+        }
+        // 任务输出参数scope为asyncTaskRef
+        return this.outputScope(businessId, triggerId, scope);
+    }
+
+    private Map<String, Object> globalScope(Workflow workflow) {
+        var values = new HashMap<String, Object>();
+        workflow.getGlobalParameters()
+                .forEach(globalParameter -> values.put("global." + globalParameter.getName(), Parameter.Type.STRING.newParameter(globalParameter.getValue()).getValue()));
+        return values;
+    }
+
+    private Map<String, Object> eventScope(String triggerId) {
+        var eventParams = this.targetEventRepository.findById(triggerId)
+                .map(TargetEvent::getEventParameters)
+                .orElseGet(Set::of)
+                .stream()
+                .map(eventParameter -> Map.entry("event." + eventParameter.getName(), eventParameter.getParameterId()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return this.findValues(eventParams);
+    }
+
+    private Map<String, Object> outputScope(String businessId, String triggerId, String asyncTaskRef) {
+        var outParams = this.instanceParameterRepository
+                .findOutputParamByBusinessIdAndTriggerIdAndAsyncTaskRef(businessId, triggerId, asyncTaskRef)
+                .stream()
+                .map(instanceParameter -> Map.entry(instanceParameter.getAsyncTaskRef() + "." + instanceParameter.getRef(), instanceParameter.getParameterId()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        return this.findValues(outParams);
+    }
+
+    // 一次查询同一scope下全部参数值
+    private Map<String, Object> findValues(Map<String, String> params) {
+        if (params.isEmpty()) {
+            return Map.of();
+        }
+        var parameters = this.parameterRepository.findByIds(new HashSet<>(params.values()));
+        var values = new HashMap<String, Object>();
+        this.parameterDomainService.matchParameters(params, parameters)
+                .forEach((key, val) -> values.put(key, val.getValue()));
+        return values;
+    }
+}
@@ -0,0 +1,44 @@
+package dev.jianmu.application.el;
+
+import dev.jianmu.workflow.el.EvaluationContext;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * @class: LazyInstanceContext
+ * @description: 流程实例表达式上下文，按scope在首次访问时批量加载参数并缓存
+ * 变量名格式为scope.name，scope为global、event或asyncTaskRef，仅在单次求值过程中使用，非线程安全
+ * @author: Ethan Liu
+ * @create: 2021-10-21 14:20
+ **/
+public class LazyInstanceContext implements EvaluationContext {
+
+    private final Function<String, Map<String, Object>> scopeLoader;
+    private final Map<String, Object> values = new HashMap<>();
+    private final Set<String> loadedScopes = new HashSet<>();
+
+    public LazyInstanceContext(Function<String, Map<String, Object>> scopeLoader) {
+        this.scopeLoader = scopeLoader;
+    }
+
+    @Override
+    public Object getVariable(String variableName) {
+        var value = this.values.get(variableName);
+        if (value == null) {
+            var i = variableName.indexOf(".");
+            if (i > 0 && this.loadedScopes.add(variableName.substring(0, i))) {
+                // 同一scope的参数一次加载
+                this.values.putAll(this.scopeLoader.apply(variableName.substring(0, i)));
+                value = this.values.get(variableName);
+            }
+        }
+        if (value == null) {
+            return "${" + variableName + "}";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,233 @@
+package dev.jianmu.application.mailbox;
+
+import dev.jianmu.infrastructure.mailbox.MailboxProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * @class: InstanceMailbox
+ * @description: 流程实例命令邮箱，同一流程实例的命令在共享线程池上串行执行，避免并行分支同时修改流程实例产生乐观锁冲突
+ * 邮箱在有命令时创建，命令执行完后移除，相邻的同类批量命令在执行前合并为一次执行
+ * @author: Ethan Liu
+ * @create: 2021-10-25 14:30
+ **/
+@Component
+public class InstanceMailbox {
+    private static final Logger logger = LoggerFactory.getLogger(InstanceMailbox.class);
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    // 所有邮箱中等待执行的命令总数
+    private final AtomicInteger depth = new AtomicInteger();
+    private final ThreadPoolTaskExecutor executor;
+    private final MailboxProperties mailboxProperties;
+    private final Timer waitTimer;
+    private final DistributionSummary batchSize;
+
+    public InstanceMailbox(
+            @Qualifier("instanceMailboxExecutor") ThreadPoolTaskExecutor executor,
+            MailboxProperties mailboxProperties,
+            MeterRegistry meterRegistry
+    ) {
+        this.executor = executor;
+        this.mailboxProperties = mailboxProperties;
+        Gauge.builder("workflow.instance.mailbox.depth", this.depth, AtomicInteger::get)
+                .description("等待执行的流程实例命令数")
+                .register(meterRegistry);
+        Gauge.builder("workflow.instance.mailbox.active", this.mailboxes, Map::size)
+                .description("存在待执行命令的流程实例数")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("workflow.instance.mailbox.wait")
+                .description("命令从入队到开始执行的等待时间")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("workflow.instance.mailbox.batch.size")
+                .description("每次合并执行的批量命令数")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return this.mailboxProperties.isEnabled();
+    }
+
+    // 提交流程实例命令
+    public void submit(String instanceId, Runnable command) {
+        if (!this.mailboxProperties.isEnabled()) {
+            command.run();
+            return;
+        }
+        this.enqueue(instanceId, command);
+    }
+
+    // 在当前事务提交后提交流程实例命令，事务回滚则丢弃，须在事务提交前调用
+    public void submitAfterCommit(String instanceId, Runnable command) {
+        if (!this.mailboxProperties.isEnabled()) {
+            command.run();
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.enqueue(instanceId, command);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(instanceId, command);
+            }
+        });
+    }
+
+    // 提交批量命令，同一流程实例队列中相邻且batchKey相同的批量命令合并后由handler一次处理
+    @SuppressWarnings("unchecked")
+    public <T> void submitBatch(String instanceId, String batchKey, List<T> items, Consumer<List<T>> handler) {
+        if (!this.mailboxProperties.isEnabled()) {
+            handler.accept(items);
+            return;
+        }
+        var envelope = new Envelope(
+                () -> handler.accept(items),
+                batchKey,
+                new ArrayList<>(items),
+                batch -> handler.accept((List<T>) batch),
+                System.nanoTime(),
+                MDC.getCopyOfContextMap()
+        );
+        this.enqueue(instanceId, envelope);
+    }
+
+    private void enqueue(String instanceId, Runnable command) {
+        this.enqueue(instanceId, new Envelope(command, null, null, null, System.nanoTime(), MDC.getCopyOfContextMap()));
+    }
+
+    private void enqueue(String instanceId, Envelope envelope) {
+        this.depth.incrementAndGet();
+        // 在compute中入队，保证与空邮箱的移除互斥
+        var mailbox = this.mailboxes.compute(instanceId, (id, m) -> {
+            var box = m == null ? new Mailbox(id) : m;
+            box.queue.add(envelope);
+            return box;
+        });
+        this.schedule(mailbox);
+    }
+
+    private void schedule(Mailbox mailbox) {
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            this.executor.execute(() -> this.drain(mailbox));
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        for (int i = 0; i < this.mailboxProperties.getThroughput(); i++) {
+            var envelope = mailbox.queue.poll();
+            if (envelope == null) {
+                break;
+            }
+            this.depth.decrementAndGet();
+            this.execute(mailbox.instanceId, this.coalesce(mailbox, envelope));
+        }
+        mailbox.scheduled.set(false);
+        // 移除空闲的空邮箱，仍有命令时重新调度
+        var remaining = this.mailboxes.computeIfPresent(mailbox.instanceId, (id, m) ->
+                m.queue.isEmpty() && !m.scheduled.get() ? null : m
+        );
+        if (remaining != null) {
+            this.schedule(remaining);
+        }
+    }
+
+    // 合并队列头部与当前命令batchKey相同的批量命令
+    private Envelope coalesce(Mailbox mailbox, Envelope envelope) {
+        if (envelope.batchKey == null) {
+            return envelope;
+        }
+        var next = mailbox.queue.peek();
+        if (next == null || !envelope.batchKey.equals(next.batchKey)) {
+            this.batchSize.record(1);
+            return envelope;
+        }
+        List<Object> items = new ArrayList<>(envelope.items);
+        int merged = 1;
+        // 只有当前线程会从邮箱取出命令，peek到的命令不会被其他线程取走
+        while (next != null && envelope.batchKey.equals(next.batchKey)) {
+            mailbox.queue.poll();
+            this.depth.decrementAndGet();
+            this.waitTimer.record(System.nanoTime() - next.enqueuedAt, TimeUnit.NANOSECONDS);
+            items.addAll(next.items);
+            merged++;
+            next = mailbox.queue.peek();
+        }
+        logger.info("流程实例{}合并{}个批量命令，共{}项", mailbox.instanceId, merged, items.size());
+        this.batchSize.record(merged);
+        var handler = envelope.batchHandler;
+        return new Envelope(() -> handler.accept(items), envelope.batchKey, items, handler, envelope.enqueuedAt, envelope.context);
+    }
+
+    private void execute(String instanceId, Envelope envelope) {
+        this.waitTimer.record(System.nanoTime() - envelope.enqueuedAt, TimeUnit.NANOSECONDS);
+        if (envelope.context != null) {
+            MDC.setContextMap(envelope.context);
+        }
+        try {
+            envelope.command.run();
+        } catch (Exception e) {
+            logger.error("流程实例{}命令执行失败", instanceId, e);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private static final class Mailbox {
+        private final String instanceId;
+        private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Mailbox(String instanceId) {
+            this.instanceId = instanceId;
+        }
+    }
+
+    private static final class Envelope {
+        private final Runnable command;
+        // 批量命令的合并Key，非批量命令为null
+        private final String batchKey;
+        private final List<Object> items;
+        private final Consumer<List<Object>> batchHandler;
+        private final long enqueuedAt;
+        private final Map<String, String> context;
+
+        private Envelope(
+                Runnable command,
+                String batchKey,
+                List<Object> items,
+                Consumer<List<Object>> batchHandler,
+                long enqueuedAt,
+                Map<String, String> context
+        ) {
+            this.command = command;
+            this.batchKey = batchKey;
+            this.items = items;
+            this.batchHandler = batchHandler;
+            this.enqueuedAt = enqueuedAt;
+            this.context = context;
+        }
+    }
+}
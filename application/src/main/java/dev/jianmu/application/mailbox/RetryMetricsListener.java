@@ -0,0 +1,62 @@
+package dev.jianmu.application.mailbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.listener.RetryListenerSupport;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: RetryMetricsListener
+ * @description: 乐观锁重试监控，统计重试次数与发生重试的命令总耗时（含退避等待），用于对比命令邮箱开启前后的效果
+ * @author: Ethan Liu
+ * @create: 2021-10-25 15:10
+ **/
+@Component
+public class RetryMetricsListener extends RetryListenerSupport {
+    private static final String START_TIME = "metrics.startTime";
+
+    private final MeterRegistry meterRegistry;
+
+    public RetryMetricsListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
+        context.setAttribute(START_TIME, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        Counter.builder("workflow.instance.retry.errors")
+                .tag("name", name(context))
+                .tag("exception", throwable.getClass().getSimpleName())
+                .register(this.meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        var startTime = (Long) context.getAttribute(START_TIME);
+        // 首次执行即成功的命令不计入
+        if (startTime == null || context.getRetryCount() == 0) {
+            return;
+        }
+        Timer.builder("workflow.instance.retry.time")
+                .tag("name", name(context))
+                .tag("outcome", throwable == null ? "succeeded" : "exhausted")
+                .register(this.meterRegistry)
+                .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    private static String name(RetryContext context) {
+        var name = context.getAttribute(RetryContext.NAME);
+        return name == null ? "unknown" : name.toString();
+    }
+}
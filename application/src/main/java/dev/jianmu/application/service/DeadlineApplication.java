@@ -0,0 +1,187 @@
+package dev.jianmu.application.service;
+
+import dev.jianmu.application.mailbox.InstanceMailbox;
+import dev.jianmu.infrastructure.timer.HashedWheelTimer;
+import dev.jianmu.task.aggregate.InstanceStatus;
+import dev.jianmu.task.aggregate.TaskInstance;
+import dev.jianmu.workflow.aggregate.definition.AsyncTask;
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import dev.jianmu.workflow.repository.WorkflowRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: DeadlineApplication
+ * @description: 任务超时与流程实例运行期限门面类，所有期限由同一个时间轮定时器触发
+ * 期限由开始时间加DSL中的timeout计算，服务重启后按运行中的任务与流程实例重新设置
+ * @author: Ethan Liu
+ * @create: 2021-10-28 11:00
+ **/
+@Service
+public class DeadlineApplication {
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineApplication.class);
+
+    private final HashedWheelTimer timer;
+    // 任务实例ID与未到期的超时任务
+    private final Map<String, HashedWheelTimer.Timeout> taskTimeouts = new ConcurrentHashMap<>();
+    // 流程实例ID与未到期的超时任务
+    private final Map<String, HashedWheelTimer.Timeout> workflowTimeouts = new ConcurrentHashMap<>();
+    private final WorkflowRepository workflowRepository;
+    private final TaskInstanceApplication taskInstanceApplication;
+    private final WorkflowInstanceApplication workflowInstanceApplication;
+    private final EmbeddedWorkerApplication embeddedWorkerApplication;
+    private final InstanceMailbox instanceMailbox;
+    private final Counter taskExpired;
+    private final Counter workflowExpired;
+
+    public DeadlineApplication(
+            HashedWheelTimer timer,
+            WorkflowRepository workflowRepository,
+            TaskInstanceApplication taskInstanceApplication,
+            WorkflowInstanceApplication workflowInstanceApplication,
+            EmbeddedWorkerApplication embeddedWorkerApplication,
+            InstanceMailbox instanceMailbox,
+            MeterRegistry meterRegistry
+    ) {
+        this.timer = timer;
+        this.workflowRepository = workflowRepository;
+        this.taskInstanceApplication = taskInstanceApplication;
+        this.workflowInstanceApplication = workflowInstanceApplication;
+        this.embeddedWorkerApplication = embeddedWorkerApplication;
+        this.instanceMailbox = instanceMailbox;
+        Gauge.builder("workflow.deadline.pending", this.timer, HashedWheelTimer::pendingTimeouts)
+                .description("未到期的任务超时与流程运行期限数")
+                .register(meterRegistry);
+        this.taskExpired = Counter.builder("workflow.deadline.expired")
+                .tag("type", "task")
+                .description("超时的任务实例数")
+                .register(meterRegistry);
+        this.workflowExpired = Counter.builder("workflow.deadline.expired")
+                .tag("type", "workflow")
+                .description("超过运行期限的流程实例数")
+                .register(meterRegistry);
+    }
+
+    // 任务下发时按任务节点的timeout设置超时
+    public void armTask(TaskInstance taskInstance) {
+        var timeout = this.workflowRepository
+                .findByRefAndVersion(taskInstance.getWorkflowRef(), taskInstance.getWorkflowVersion())
+                .flatMap(workflow -> workflow.getNode(taskInstance.getAsyncTaskRef()))
+                .filter(node -> node instanceof AsyncTask)
+                .map(node -> ((AsyncTask) node).getTimeout())
+                .orElse(null);
+        if (timeout == null) {
+            return;
+        }
+        var taskInstanceId = taskInstance.getId();
+        this.arm(this.taskTimeouts, taskInstanceId, taskInstance.getStartTime().plusSeconds(timeout),
+                () -> this.expireTask(taskInstanceId));
+    }
+
+    public void cancelTask(String taskInstanceId) {
+        this.cancel(this.taskTimeouts, taskInstanceId);
+    }
+
+    // 流程实例启动时按流程定义的timeout设置运行期限
+    public void armWorkflow(String instanceId, String workflowRef, String workflowVersion, LocalDateTime startTime) {
+        var timeout = this.workflowRepository.findByRefAndVersion(workflowRef, workflowVersion)
+                .map(Workflow::getTimeout)
+                .orElse(null);
+        if (timeout == null) {
+            return;
+        }
+        this.arm(this.workflowTimeouts, instanceId, startTime.plusSeconds(timeout),
+                () -> this.expireWorkflow(instanceId));
+    }
+
+    public void cancelWorkflow(String instanceId) {
+        this.cancel(this.workflowTimeouts, instanceId);
+    }
+
+    // 服务重启后重新设置运行中任务与流程实例的期限，已过期的在下一格立即触发
+    public void rearm() {
+        var taskInstances = this.taskInstanceApplication.findRunningTask();
+        taskInstances.forEach(this::armTask);
+        var instances = this.workflowInstanceApplication.findRunning();
+        instances.forEach(instance -> this.armWorkflow(
+                instance.getId(),
+                instance.getWorkflowRef(),
+                instance.getWorkflowVersion(),
+                instance.getStartTime()
+        ));
+        logger.info("重新设置期限，任务实例：{}，流程实例：{}", this.taskTimeouts.size(), this.workflowTimeouts.size());
+    }
+
+    private void arm(Map<String, HashedWheelTimer.Timeout> timeouts, String id, LocalDateTime deadline, Runnable task) {
+        var delay = Duration.between(LocalDateTime.now(), deadline).toMillis();
+        var timeout = this.timer.newTimeout(() -> {
+            timeouts.remove(id);
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("超时处理失败: {}", id, e);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        var previous = timeouts.put(id, timeout);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void cancel(Map<String, HashedWheelTimer.Timeout> timeouts, String id) {
+        var timeout = timeouts.remove(id);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private void expireTask(String taskInstanceId) {
+        var taskInstance = this.taskInstanceApplication.findById(taskInstanceId).orElse(null);
+        if (taskInstance == null || !isActive(taskInstance.getStatus())) {
+            return;
+        }
+        logger.info("任务实例{}运行超时", taskInstanceId);
+        this.taskExpired.increment();
+        this.terminateTask(taskInstanceId);
+    }
+
+    private void expireWorkflow(String instanceId) {
+        // 与流程实例的其他命令串行执行
+        this.instanceMailbox.submit(instanceId, () -> {
+            var instance = this.workflowInstanceApplication.findById(instanceId).orElse(null);
+            if (instance == null || instance.getStatus() != ProcessStatus.RUNNING) {
+                return;
+            }
+            logger.info("流程实例{}超过运行期限", instanceId);
+            this.workflowExpired.increment();
+            this.workflowInstanceApplication.stop(instanceId);
+            // 停止流程实例中仍在执行的任务
+            this.taskInstanceApplication.findByBusinessId(instanceId).stream()
+                    .filter(taskInstance -> isActive(taskInstance.getStatus()))
+                    .forEach(taskInstance -> this.terminateTask(taskInstance.getId()));
+        });
+    }
+
+    // 停止任务容器，Worker按非0退出码结束任务；容器未创建或已退出时直接将任务置为失败
+    private void terminateTask(String taskInstanceId) {
+        this.cancelTask(taskInstanceId);
+        if (!this.embeddedWorkerApplication.terminateTask(taskInstanceId)) {
+            this.taskInstanceApplication.executeFailed(taskInstanceId);
+        }
+    }
+
+    private static boolean isActive(InstanceStatus status) {
+        return status == InstanceStatus.WAITING || status == InstanceStatus.RUNNING;
+    }
+}
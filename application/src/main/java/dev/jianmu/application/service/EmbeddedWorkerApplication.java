@@ -1,7 +1,6 @@
 package dev.jianmu.application.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.jianmu.embedded.worker.aggregate.DockerTask;
 import dev.jianmu.embedded.worker.aggregate.DockerWorker;
 import dev.jianmu.embedded.worker.aggregate.spec.ContainerSpec;
@@ -10,6 +9,7 @@ import dev.jianmu.embedded.worker.aggregate.spec.Mount;
 import dev.jianmu.embedded.worker.aggregate.spec.MountType;
 import dev.jianmu.hub.intergration.event.NodeDeletedEvent;
 import dev.jianmu.hub.intergration.event.NodeUpdatedEvent;
+import dev.jianmu.infrastructure.codec.CodecRegistry;
 import dev.jianmu.infrastructure.storage.StorageService;
 import dev.jianmu.worker.aggregate.WorkerTask;
 import lombok.extern.slf4j.Slf4j;
@@ -30,16 +30,13 @@ import java.util.stream.Collectors;
 public class EmbeddedWorkerApplication {
     private final StorageService storageService;
     private final DockerWorker dockerWorker;
-    private final ObjectMapper objectMapper;
 
     public EmbeddedWorkerApplication(
             StorageService storageService,
-            DockerWorker dockerWorker,
-            ObjectMapper objectMapper
+            DockerWorker dockerWorker
     ) {
         this.storageService = storageService;
         this.dockerWorker = dockerWorker;
-        this.objectMapper = objectMapper;
     }
 
     public void createVolume(String volumeName) {
@@ -73,9 +70,13 @@ public class EmbeddedWorkerApplication {
         }
     }
 
+    public boolean terminateTask(String taskInstanceId) {
+        return this.dockerWorker.terminateTask(taskInstanceId);
+    }
+
     public void deleteImage(NodeDeletedEvent event) {
         try {
-            var spec = objectMapper.readValue(event.getSpec(), ContainerSpec.class);
+            ContainerSpec spec = CodecRegistry.CONTAINER_SPEC_READER.readValue(event.getSpec());
             log.info("删除镜像: {}", spec.getImage());
             this.dockerWorker.deleteImage(spec.getImage());
         } catch (Exception e) {
@@ -85,7 +86,7 @@ public class EmbeddedWorkerApplication {
 
     public void updateImage(NodeUpdatedEvent event) {
         try {
-            var spec = objectMapper.readValue(event.getSpec(), ContainerSpec.class);
+            ContainerSpec spec = CodecRegistry.CONTAINER_SPEC_READER.readValue(event.getSpec());
             log.info("更新镜像: {}", spec.getImage());
             this.dockerWorker.updateImage(spec.getImage());
         } catch (JsonProcessingException e) {
@@ -94,7 +95,7 @@ public class EmbeddedWorkerApplication {
     }
 
     private DockerTask createDockerTask(WorkerTask workerTask, Map<String, String> environmentMap) throws JsonProcessingException {
-        var spec = objectMapper.readValue(workerTask.getSpec(), ContainerSpec.class);
+        ContainerSpec spec = CodecRegistry.CONTAINER_SPEC_READER.readValue(workerTask.getSpec());
         var env = environmentMap.entrySet().stream()
                 .map(entry -> entry.getKey() + "=" + entry.getValue()).toArray(String[]::new);
         // 使用TriggerId作为工作目录名称与volume名称
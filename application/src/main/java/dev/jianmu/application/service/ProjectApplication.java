@@ -8,6 +8,7 @@ import dev.jianmu.eventbridge.repository.SourceRepository;
 import dev.jianmu.eventbridge.repository.TargetRepository;
 import dev.jianmu.infrastructure.jgit.JgitService;
 import dev.jianmu.infrastructure.mybatis.project.ProjectRepositoryImpl;
+import dev.jianmu.infrastructure.serialno.SerialNoAllocator;
 import dev.jianmu.project.aggregate.CronTrigger;
 import dev.jianmu.project.aggregate.GitRepo;
 import dev.jianmu.project.aggregate.Project;
@@ -22,6 +23,7 @@ import dev.jianmu.workflow.aggregate.definition.GlobalParameter;
 import dev.jianmu.workflow.aggregate.definition.Node;
 import dev.jianmu.workflow.aggregate.definition.Workflow;
 import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import dev.jianmu.workflow.repository.QueuedTriggerRepository;
 import dev.jianmu.workflow.repository.WorkflowInstanceRepository;
 import dev.jianmu.workflow.repository.WorkflowRepository;
 import org.apache.commons.lang3.StringUtils;
@@ -56,10 +58,12 @@ public class ProjectApplication {
     private final GitRepoRepository gitRepoRepository;
     private final WorkflowRepository workflowRepository;
     private final WorkflowInstanceRepository workflowInstanceRepository;
+    private final QueuedTriggerRepository queuedTriggerRepository;
     private final TaskInstanceRepository taskInstanceRepository;
     private final NodeDefApi nodeDefApi;
     private final ApplicationEventPublisher publisher;
     private final JgitService jgitService;
+    private final SerialNoAllocator serialNoAllocator;
 
     public ProjectApplication(
             ProjectRepositoryImpl projectRepository,
@@ -70,10 +74,12 @@ public class ProjectApplication {
             GitRepoRepository gitRepoRepository,
             WorkflowRepository workflowRepository,
             WorkflowInstanceRepository workflowInstanceRepository,
+            QueuedTriggerRepository queuedTriggerRepository,
             TaskInstanceRepository taskInstanceRepository,
             NodeDefApi nodeDefApi,
             ApplicationEventPublisher publisher,
-            JgitService jgitService
+            JgitService jgitService,
+            SerialNoAllocator serialNoAllocator
     ) {
         this.projectRepository = projectRepository;
         this.cronTriggerRepository = cronTriggerRepository;
@@ -83,10 +89,12 @@ public class ProjectApplication {
         this.gitRepoRepository = gitRepoRepository;
         this.workflowRepository = workflowRepository;
         this.workflowInstanceRepository = workflowInstanceRepository;
+        this.queuedTriggerRepository = queuedTriggerRepository;
         this.taskInstanceRepository = taskInstanceRepository;
         this.nodeDefApi = nodeDefApi;
         this.publisher = publisher;
         this.jgitService = jgitService;
+        this.serialNoAllocator = serialNoAllocator;
     }
 
     public void trigger(String projectId, String triggerId, String triggerType) {
@@ -144,6 +152,7 @@ public class ProjectApplication {
                 .nodes(nodes)
                 .globalParameters(globalParameters)
                 .dslText(dslText)
+                .timeout(parser.getTimeout())
                 .build();
     }
 
@@ -386,6 +395,8 @@ public class ProjectApplication {
         this.projectRepository.deleteByWorkflowRef(project.getWorkflowRef());
         this.workflowRepository.deleteByRef(project.getWorkflowRef());
         this.workflowInstanceRepository.deleteByWorkflowRef(project.getWorkflowRef());
+        this.queuedTriggerRepository.deleteByWorkflowRef(project.getWorkflowRef());
+        this.serialNoAllocator.deleteByWorkflowRef(project.getWorkflowRef());
         this.taskInstanceRepository.deleteByWorkflowRef(project.getWorkflowRef());
         this.cronTriggerRepository.deleteByProjectId(project.getId());
         this.gitRepoRepository.deleteById(project.getGitRepoId());
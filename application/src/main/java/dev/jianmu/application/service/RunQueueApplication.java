@@ -0,0 +1,167 @@
+package dev.jianmu.application.service;
+
+import dev.jianmu.application.exception.DataNotFoundException;
+import dev.jianmu.infrastructure.mybatis.project.ProjectRepositoryImpl;
+import dev.jianmu.infrastructure.runqueue.RunQueueProperties;
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import dev.jianmu.workflow.aggregate.process.QueuedTrigger;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.repository.QueuedTriggerRepository;
+import dev.jianmu.workflow.repository.WorkflowInstanceRepository;
+import dev.jianmu.workflow.repository.WorkflowRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @class: RunQueueApplication
+ * @description: 项目运行队列，运行中的流程实例达到并发上限时按溢出策略排队、合并或终止运行中的流程
+ * 准入判断前锁定项目行，并发触发不会同时判断为有空闲，同一项目的命令通过命令邮箱以queueKey串行提交以减少锁等待
+ * @author: Ethan Liu
+ * @create: 2021-10-27 11:20
+ **/
+@Service
+public class RunQueueApplication {
+    private static final Logger logger = LoggerFactory.getLogger(RunQueueApplication.class);
+
+    private final WorkflowRepository workflowRepository;
+    private final WorkflowInstanceRepository workflowInstanceRepository;
+    private final QueuedTriggerRepository queuedTriggerRepository;
+    private final WorkflowInstanceApplication workflowInstanceApplication;
+    private final ProjectRepositoryImpl projectRepository;
+    private final RunQueueProperties runQueueProperties;
+    private final Timer waitTimer;
+    private final Map<RunQueueProperties.OverflowPolicy, Counter> overflowCounters = new EnumMap<>(RunQueueProperties.OverflowPolicy.class);
+
+    public RunQueueApplication(
+            WorkflowRepository workflowRepository,
+            WorkflowInstanceRepository workflowInstanceRepository,
+            QueuedTriggerRepository queuedTriggerRepository,
+            WorkflowInstanceApplication workflowInstanceApplication,
+            ProjectRepositoryImpl projectRepository,
+            RunQueueProperties runQueueProperties,
+            MeterRegistry meterRegistry
+    ) {
+        this.workflowRepository = workflowRepository;
+        this.workflowInstanceRepository = workflowInstanceRepository;
+        this.queuedTriggerRepository = queuedTriggerRepository;
+        this.workflowInstanceApplication = workflowInstanceApplication;
+        this.projectRepository = projectRepository;
+        this.runQueueProperties = runQueueProperties;
+        Gauge.builder("workflow.run.queue.length", queuedTriggerRepository, QueuedTriggerRepository::count)
+                .description("排队中的流程触发数")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("workflow.run.queue.wait")
+                .description("流程触发从入队到启动的等待时间")
+                .register(meterRegistry);
+        for (RunQueueProperties.OverflowPolicy policy : RunQueueProperties.OverflowPolicy.values()) {
+            this.overflowCounters.put(policy, Counter.builder("workflow.run.queue.overflow")
+                    .description("运行中的流程实例达到上限时的触发数")
+                    .tag("policy", policy.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    // 同一项目的运行队列命令在命令邮箱中使用的Key
+    public static String queueKey(String workflowRef) {
+        return "runQueue:" + workflowRef;
+    }
+
+    // 触发流程
+    @Transactional
+    public void trigger(String triggerId, String triggerType, String workflowRefVersion) {
+        Workflow workflow = this.workflowRepository
+                .findByRefVersion(workflowRefVersion)
+                .orElseThrow(() -> new DataNotFoundException("未找到流程定义"));
+        var workflowRef = workflow.getRef();
+        this.lock(workflowRef);
+        int running = this.workflowInstanceRepository.countByRefAndStatus(workflowRef, ProcessStatus.RUNNING);
+        int maxConcurrentRuns = this.runQueueProperties.maxConcurrentRuns(workflowRef);
+        if (running < maxConcurrentRuns) {
+            // 已有排队的触发时保持先后顺序
+            if (this.queuedTriggerRepository.countByWorkflowRef(workflowRef) > 0) {
+                this.enqueue(triggerId, triggerType, workflow);
+                this.startQueued(workflowRef);
+                return;
+            }
+            this.workflowInstanceApplication.createAndStart(triggerId, triggerType, workflowRefVersion);
+            return;
+        }
+        var policy = this.runQueueProperties.overflowPolicy(workflowRef);
+        logger.info("项目{}运行中的流程实例数{}已达上限{}，按{}策略处理触发{}", workflowRef, running, maxConcurrentRuns, policy, triggerId);
+        this.overflowCounters.get(policy).increment();
+        switch (policy) {
+            case COALESCE:
+                this.queuedTriggerRepository.deleteByWorkflowRef(workflowRef);
+                this.enqueue(triggerId, triggerType, workflow);
+                break;
+            case CANCEL_RUNNING:
+                List<WorkflowInstance> instances = this.workflowInstanceRepository.findByRefAndStatus(workflowRef, ProcessStatus.RUNNING);
+                instances.stream()
+                        .limit(running - maxConcurrentRuns + 1)
+                        .forEach(instance -> {
+                            logger.info("终止流程实例{}", instance.getId());
+                            this.workflowInstanceApplication.stop(instance.getId());
+                        });
+                this.workflowInstanceApplication.createAndStart(triggerId, triggerType, workflowRefVersion);
+                break;
+            default:
+                this.enqueue(triggerId, triggerType, workflow);
+        }
+    }
+
+    // 流程实例结束或终止后按入队顺序启动排队中的触发
+    @Transactional
+    public void startQueued(String workflowRef) {
+        this.lock(workflowRef);
+        int running = this.workflowInstanceRepository.countByRefAndStatus(workflowRef, ProcessStatus.RUNNING);
+        int free = this.runQueueProperties.maxConcurrentRuns(workflowRef) - running;
+        while (free > 0) {
+            var queued = this.queuedTriggerRepository.findFirstByWorkflowRef(workflowRef);
+            if (queued.isEmpty()) {
+                return;
+            }
+            var queuedTrigger = queued.get();
+            this.queuedTriggerRepository.deleteById(queuedTrigger.getId());
+            this.waitTimer.record(Duration.between(queuedTrigger.getEnqueueTime(), LocalDateTime.now()));
+            var workflowRefVersion = queuedTrigger.getWorkflowRef() + queuedTrigger.getWorkflowVersion();
+            if (this.workflowRepository.findByRefVersion(workflowRefVersion).isEmpty()) {
+                logger.info("未找到流程定义{}，丢弃排队的触发{}", workflowRefVersion, queuedTrigger.getTriggerId());
+                continue;
+            }
+            logger.info("启动排队的触发{}", queuedTrigger.getTriggerId());
+            this.workflowInstanceApplication.createAndStart(queuedTrigger.getTriggerId(), queuedTrigger.getTriggerType(), workflowRefVersion);
+            free--;
+        }
+    }
+
+    // 锁定项目行直到事务结束，未开启命令邮箱或多个服务实例时并发的准入判断也会串行执行
+    private void lock(String workflowRef) {
+        if (!this.projectRepository.lockByWorkflowRef(workflowRef)) {
+            logger.warn("未找到项目{}，运行队列准入未加锁", workflowRef);
+        }
+    }
+
+    private void enqueue(String triggerId, String triggerType, Workflow workflow) {
+        var queuedTrigger = QueuedTrigger.Builder.aQueuedTrigger()
+                .triggerId(triggerId)
+                .triggerType(triggerType)
+                .workflowRef(workflow.getRef())
+                .workflowVersion(workflow.getVersion())
+                .build();
+        this.queuedTriggerRepository.add(queuedTrigger);
+        logger.info("触发{}进入项目{}的运行队列", triggerId, workflow.getRef());
+    }
+}
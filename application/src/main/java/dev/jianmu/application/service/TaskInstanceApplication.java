@@ -1,27 +1,26 @@
 package dev.jianmu.application.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.jianmu.application.el.InstanceContextFactory;
 import dev.jianmu.application.exception.DataNotFoundException;
 import dev.jianmu.application.query.NodeDef;
 import dev.jianmu.application.query.NodeDefApi;
-import dev.jianmu.el.ElContext;
-import dev.jianmu.eventbridge.aggregate.TargetEvent;
-import dev.jianmu.eventbridge.repository.TargetEventRepository;
 import dev.jianmu.hub.intergration.aggregate.NodeParameter;
+import dev.jianmu.infrastructure.codec.CodecRegistry;
+import dev.jianmu.infrastructure.mybatis.task.TaskInstanceRepositoryImpl;
+import dev.jianmu.infrastructure.mybatis.task.TaskInstanceSummary;
+import dev.jianmu.infrastructure.serialno.SerialNoAllocator;
 import dev.jianmu.task.aggregate.InstanceParameter;
+import dev.jianmu.task.aggregate.InstanceStatus;
 import dev.jianmu.task.aggregate.NodeInfo;
 import dev.jianmu.task.aggregate.TaskInstance;
 import dev.jianmu.task.repository.InstanceParameterRepository;
-import dev.jianmu.task.repository.TaskInstanceRepository;
 import dev.jianmu.task.service.InstanceDomainService;
 import dev.jianmu.workflow.aggregate.parameter.Parameter;
 import dev.jianmu.workflow.el.ExpressionLanguage;
 import dev.jianmu.workflow.event.TaskActivatingEvent;
 import dev.jianmu.workflow.repository.ParameterRepository;
 import dev.jianmu.workflow.repository.WorkflowRepository;
-import dev.jianmu.workflow.service.ParameterDomainService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -40,43 +39,43 @@ import java.util.stream.Collectors;
 public class TaskInstanceApplication {
     private static final Logger logger = LoggerFactory.getLogger(TaskInstanceApplication.class);
 
-    private final TaskInstanceRepository taskInstanceRepository;
+    private final TaskInstanceRepositoryImpl taskInstanceRepository;
     private final WorkflowRepository workflowRepository;
     private final InstanceDomainService instanceDomainService;
     private final ParameterRepository parameterRepository;
-    private final ParameterDomainService parameterDomainService;
-    private final TargetEventRepository targetEventRepository;
     private final InstanceParameterRepository instanceParameterRepository;
     private final NodeDefApi nodeDefApi;
     private final ExpressionLanguage expressionLanguage;
+    private final InstanceContextFactory instanceContextFactory;
+    private final SerialNoAllocator serialNoAllocator;
 
     public TaskInstanceApplication(
-            TaskInstanceRepository taskInstanceRepository,
+            TaskInstanceRepositoryImpl taskInstanceRepository,
             WorkflowRepository workflowRepository,
             InstanceDomainService instanceDomainService,
             ParameterRepository parameterRepository,
-            ParameterDomainService parameterDomainService,
-            TargetEventRepository targetEventRepository,
             InstanceParameterRepository instanceParameterRepository,
             NodeDefApi nodeDefApi,
-            ExpressionLanguage expressionLanguage
+            ExpressionLanguage expressionLanguage,
+            InstanceContextFactory instanceContextFactory,
+            SerialNoAllocator serialNoAllocator
     ) {
         this.taskInstanceRepository = taskInstanceRepository;
         this.workflowRepository = workflowRepository;
         this.instanceDomainService = instanceDomainService;
         this.parameterRepository = parameterRepository;
-        this.parameterDomainService = parameterDomainService;
-        this.targetEventRepository = targetEventRepository;
         this.instanceParameterRepository = instanceParameterRepository;
         this.nodeDefApi = nodeDefApi;
         this.expressionLanguage = expressionLanguage;
+        this.instanceContextFactory = instanceContextFactory;
+        this.serialNoAllocator = serialNoAllocator;
     }
 
     public List<InstanceParameter> findParameters(String instanceId) {
         return this.instanceParameterRepository.findByInstanceId(instanceId);
     }
 
-    public List<TaskInstance> findByBusinessId(String businessId) {
+    public List<TaskInstanceSummary> findByBusinessId(String businessId) {
         return this.taskInstanceRepository.findByBusinessId(businessId);
     }
 
@@ -95,9 +94,10 @@ public class TaskInstanceApplication {
         var asyncTask = workflow.findNode(event.getNodeRef());
         var nodeDef = this.nodeDefApi.getByType(asyncTask.getType());
         // 创建任务实例
-        List<TaskInstance> taskInstances = this.taskInstanceRepository.findByAsyncTaskRefAndBusinessId(event.getNodeRef(), event.getWorkflowInstanceId());
+        int activeCount = this.taskInstanceRepository.countActiveByAsyncTaskRefAndBusinessId(event.getNodeRef(), event.getWorkflowInstanceId());
         // 运行前检查规则
-        this.instanceDomainService.runningCheck(taskInstances);
+        this.instanceDomainService.runningCheck(activeCount);
+        int serialNo = this.serialNoAllocator.nextTaskSerialNo(workflow.getRef(), event.getWorkflowInstanceId(), event.getNodeRef());
         var nodeInfo = NodeInfo.Builder.aNodeDef()
                 .name(nodeDef.getName())
                 .icon(nodeDef.getIcon())
@@ -113,7 +113,7 @@ public class TaskInstanceApplication {
                 .sourceLink(nodeDef.getSourceLink())
                 .build();
         var taskInstance = TaskInstance.Builder.anInstance()
-                .serialNo(taskInstances.size() + 1)
+                .serialNo(serialNo)
                 .defKey(asyncTask.getType())
                 .nodeInfo(nodeInfo)
                 .asyncTaskRef(asyncTask.getRef())
@@ -122,37 +122,9 @@ public class TaskInstanceApplication {
                 .businessId(event.getWorkflowInstanceId())
                 .triggerId(event.getTriggerId())
                 .build();
-        // 查询参数源
-        var eventParameters = this.targetEventRepository.findById(event.getTriggerId())
-                .map(TargetEvent::getEventParameters)
-                .orElseGet(Set::of);
-        var instanceParameters = this.instanceParameterRepository
-                .findOutputParamByBusinessIdAndTriggerId(event.getWorkflowInstanceId(), event.getTriggerId());
-        // 创建表达式上下文
-        var context = new ElContext();
-        // 全局参数加入上下文
-        workflow.getGlobalParameters()
-                .forEach(globalParameter -> context.add("global", globalParameter.getName(), Parameter.Type.STRING.newParameter(globalParameter.getValue())));
-        // 事件参数加入上下文
-        var eventParams = eventParameters.stream()
-                .map(eventParameter -> Map.entry(eventParameter.getName(), eventParameter.getParameterId()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        var eventParamValues = this.parameterRepository.findByIds(new HashSet<>(eventParams.values()));
-        var eventMap = this.parameterDomainService.matchParameters(eventParams, eventParamValues);
-        // 事件参数scope为event
-        eventMap.forEach((key, val) -> context.add("event", key, val));
-        // 任务输出参数加入上下文
-        var outParams = instanceParameters.stream()
-                // 输出参数scope为asyncTaskRef
-                .map(instanceParameter -> Map.entry(instanceParameter.getAsyncTaskRef() + "." + instanceParameter.getRef(), instanceParameter.getParameterId()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        var outParamValues = this.parameterRepository.findByIds(new HashSet<>(outParams.values()));
-        var outMap = this.parameterDomainService.matchParameters(outParams, outParamValues);
-        outMap.forEach(context::add);
-
-        workflow.setExpressionLanguage(this.expressionLanguage);
-        workflow.setContext(context);
-        var params = workflow.calculateTaskParams(asyncTask.getRef());
+        // 创建表达式上下文，参数在表达式引用时才查询
+        var context = this.instanceContextFactory.create(workflow, event.getWorkflowInstanceId(), event.getTriggerId());
+        var params = workflow.calculateTaskParams(asyncTask.getRef(), this.expressionLanguage, context);
 
         // 创建任务实例输入参数
         var instanceInputParameters = this.createInstanceParameters(params, taskInstance, nodeDef.getInputParameters());
@@ -202,6 +174,9 @@ public class TaskInstanceApplication {
     public void executeSucceeded(String taskInstanceId, String resultFile) {
         TaskInstance taskInstance = this.taskInstanceRepository.findById(taskInstanceId)
                 .orElseThrow(() -> new DataNotFoundException("未找到该任务实例"));
+        if (this.isFinished(taskInstance)) {
+            return;
+        }
         var nodeVersion = this.nodeDefApi.findByType(taskInstance.getDefKey());
         if (nodeVersion.getResultFile() != null) {
             // 解析Json为Map
@@ -212,6 +187,10 @@ public class TaskInstanceApplication {
             this.instanceParameterRepository.addAll(outputParameters.keySet());
             // 保存参数
             this.parameterRepository.addAll(new ArrayList<>(outputParameters.values()));
+            // 更新流程实例参数上下文缓存
+            var outputs = new HashMap<String, Object>();
+            outputParameters.forEach((instanceParameter, parameter) -> outputs.put(instanceParameter.getRef(), parameter.getValue()));
+            this.instanceContextFactory.putOutputs(taskInstance.getBusinessId(), taskInstance.getAsyncTaskRef(), outputs);
         }
         taskInstance.executeSucceeded(resultFile);
         this.taskInstanceRepository.saveSucceeded(taskInstance);
@@ -221,6 +200,9 @@ public class TaskInstanceApplication {
     public void executeFailed(String taskInstanceId) {
         TaskInstance taskInstance = this.taskInstanceRepository.findById(taskInstanceId)
                 .orElseThrow(() -> new DataNotFoundException("未找到该任务实例"));
+        if (this.isFinished(taskInstance)) {
+            return;
+        }
         taskInstance.executeFailed();
         this.taskInstanceRepository.updateStatus(taskInstance);
     }
@@ -233,14 +215,22 @@ public class TaskInstanceApplication {
         this.taskInstanceRepository.updateStatus(taskInstance);
     }
 
+    // 超时处理可能先于Worker结束任务，已结束的任务实例忽略后到的执行结果
+    private boolean isFinished(TaskInstance taskInstance) {
+        var status = taskInstance.getStatus();
+        if (status == InstanceStatus.WAITING || status == InstanceStatus.RUNNING) {
+            return false;
+        }
+        logger.info("任务实例{}已结束，忽略执行结果", taskInstance.getId());
+        return true;
+    }
+
     private Map<String, Object> parseJson(String resultFile) {
         if (resultFile == null || resultFile.isBlank()) {
             throw new RuntimeException("任务结果文件为空");
         }
-        var objectMapper = new ObjectMapper();
         try {
-            return objectMapper.readValue(resultFile, new TypeReference<>() {
-            });
+            return CodecRegistry.RESULT_READER.readValue(resultFile);
         } catch (JsonProcessingException e) {
             logger.error("Json转换", e);
             throw new RuntimeException("任务结果文件格式错误");
@@ -1,24 +1,23 @@
 package dev.jianmu.application.service;
 
 import com.github.pagehelper.PageInfo;
+import dev.jianmu.application.el.InstanceContextFactory;
 import dev.jianmu.application.exception.DataNotFoundException;
-import dev.jianmu.el.ElContext;
-import dev.jianmu.eventbridge.aggregate.TargetEvent;
-import dev.jianmu.eventbridge.repository.TargetEventRepository;
 import dev.jianmu.infrastructure.exception.DBException;
 import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceRepositoryImpl;
-import dev.jianmu.task.repository.InstanceParameterRepository;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceSummary;
+import dev.jianmu.infrastructure.serialno.SerialNoAllocator;
 import dev.jianmu.task.repository.TaskInstanceRepository;
 import dev.jianmu.workflow.aggregate.definition.Node;
 import dev.jianmu.workflow.aggregate.definition.Workflow;
-import dev.jianmu.workflow.aggregate.parameter.Parameter;
 import dev.jianmu.workflow.aggregate.process.ProcessStatus;
 import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
 import dev.jianmu.workflow.el.EvaluationContext;
 import dev.jianmu.workflow.el.ExpressionLanguage;
-import dev.jianmu.workflow.repository.ParameterRepository;
+import dev.jianmu.workflow.event.BaseEvent;
+import dev.jianmu.workflow.event.NodeActivatingEvent;
+import dev.jianmu.workflow.event.NodeSkipEvent;
 import dev.jianmu.workflow.repository.WorkflowRepository;
-import dev.jianmu.workflow.service.ParameterDomainService;
 import dev.jianmu.workflow.service.WorkflowInstanceDomainService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,8 +28,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 /**
  * @program: workflow
@@ -48,10 +45,8 @@ public class WorkflowInstanceApplication {
     private final WorkflowInstanceDomainService workflowInstanceDomainService;
     private final TaskInstanceRepository taskInstanceRepository;
     private final ExpressionLanguage expressionLanguage;
-    private final InstanceParameterRepository instanceParameterRepository;
-    private final ParameterDomainService parameterDomainService;
-    private final TargetEventRepository targetEventRepository;
-    private final ParameterRepository parameterRepository;
+    private final InstanceContextFactory instanceContextFactory;
+    private final SerialNoAllocator serialNoAllocator;
 
     public WorkflowInstanceApplication(
             WorkflowRepository workflowRepository,
@@ -59,31 +54,31 @@ public class WorkflowInstanceApplication {
             WorkflowInstanceDomainService workflowInstanceDomainService,
             TaskInstanceRepository taskInstanceRepository,
             ExpressionLanguage expressionLanguage,
-            InstanceParameterRepository instanceParameterRepository,
-            ParameterDomainService parameterDomainService,
-            TargetEventRepository targetEventRepository,
-            ParameterRepository parameterRepository
+            InstanceContextFactory instanceContextFactory,
+            SerialNoAllocator serialNoAllocator
     ) {
         this.workflowRepository = workflowRepository;
         this.workflowInstanceRepository = workflowInstanceRepository;
         this.workflowInstanceDomainService = workflowInstanceDomainService;
         this.taskInstanceRepository = taskInstanceRepository;
         this.expressionLanguage = expressionLanguage;
-        this.instanceParameterRepository = instanceParameterRepository;
-        this.parameterDomainService = parameterDomainService;
-        this.targetEventRepository = targetEventRepository;
-        this.parameterRepository = parameterRepository;
+        this.instanceContextFactory = instanceContextFactory;
+        this.serialNoAllocator = serialNoAllocator;
     }
 
     public Optional<WorkflowInstance> findById(String id) {
         return this.workflowInstanceRepository.findById(id);
     }
 
-    public PageInfo<WorkflowInstance> findAllPage(String id, String name, String workflowVersion, ProcessStatus status, int pageNum, int pageSize) {
+    public PageInfo<WorkflowInstanceSummary> findAllPage(String id, String name, String workflowVersion, ProcessStatus status, int pageNum, int pageSize) {
         return this.workflowInstanceRepository.findAllPage(id, name, workflowVersion, status, pageNum, pageSize);
     }
 
-    public List<WorkflowInstance> findByWorkflowRef(String workflowRef) {
+    public List<WorkflowInstance> findRunning() {
+        return this.workflowInstanceRepository.findByStatus(ProcessStatus.RUNNING);
+    }
+
+    public List<WorkflowInstanceSummary> findByWorkflowRef(String workflowRef) {
         return this.workflowInstanceRepository.findByWorkflowRef(workflowRef);
     }
 
@@ -91,56 +86,16 @@ public class WorkflowInstanceApplication {
         return this.workflowInstanceRepository.findByRefAndSerialNoMax(workflowRef);
     }
 
-    private EvaluationContext findContext(Workflow workflow, String instanceId, String triggerId) {
-        // 查询参数源
-        var eventParameters = this.targetEventRepository.findById(triggerId)
-                .map(TargetEvent::getEventParameters)
-                .orElseGet(Set::of);
-        var instanceParameters = this.instanceParameterRepository
-                .findOutputParamByBusinessIdAndTriggerId(instanceId, triggerId);
-        // 创建表达式上下文
-        var context = new ElContext();
-        // 全局参数加入上下文
-        workflow.getGlobalParameters()
-                .forEach(globalParameter -> context.add("global", globalParameter.getName(), Parameter.Type.STRING.newParameter(globalParameter.getValue())));
-        // 事件参数加入上下文
-        var eventParams = eventParameters.stream()
-                .map(eventParameter -> Map.entry(eventParameter.getName(), eventParameter.getParameterId()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        var eventParamValues = this.parameterRepository.findByIds(new HashSet<>(eventParams.values()));
-        var eventMap = this.parameterDomainService.matchParameters(eventParams, eventParamValues);
-        // 事件参数scope为event
-        eventMap.forEach((key, val) -> context.add("event", key, val));
-        // 任务输出参数加入上下文
-        var outParams = instanceParameters.stream()
-                // 输出参数scope为asyncTaskRef
-                .map(instanceParameter -> Map.entry(instanceParameter.getAsyncTaskRef() + "." + instanceParameter.getRef(), instanceParameter.getParameterId()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        var outParamValues = this.parameterRepository.findByIds(new HashSet<>(outParams.values()));
-        var outMap = this.parameterDomainService.matchParameters(outParams, outParamValues);
-        outMap.forEach(context::add);
-        return context;
-    }
-
-    // 创建并启动流程
+    // 创建并启动流程，并发上限由RunQueueApplication控制
     @Transactional
     public WorkflowInstance createAndStart(String triggerId, String triggerType, String workflowRefVersion) {
         Workflow workflow = this.workflowRepository
                 .findByRefVersion(workflowRefVersion)
                 .orElseThrow(() -> new DataNotFoundException("未找到流程定义"));
-        // 检查是否存在运行中的流程
-        int i = this.workflowInstanceRepository
-                .findByRefAndVersionAndStatus(workflow.getRef(), workflow.getVersion(), ProcessStatus.RUNNING)
-                .size();
-        if (i > 0) {
-            throw new RuntimeException("该流程运行中");
-        }
-        // 查询serialNo
-        AtomicInteger serialNo = new AtomicInteger(1);
-        this.workflowInstanceRepository.findByRefAndSerialNoMax(workflow.getRef())
-                .ifPresent(workflowInstance -> serialNo.set(workflowInstance.getSerialNo() + 1));
+        // 分配serialNo
+        int serialNo = this.serialNoAllocator.nextWorkflowSerialNo(workflow.getRef());
         // 创建新的流程实例
-        WorkflowInstance workflowInstance = workflowInstanceDomainService.create(triggerId, triggerType, serialNo.get(), workflow);
+        WorkflowInstance workflowInstance = workflowInstanceDomainService.create(triggerId, triggerType, serialNo, workflow);
         workflowInstance.setExpressionLanguage(this.expressionLanguage);
         // 启动流程
         Node start = workflow.findStart();
@@ -158,7 +113,7 @@ public class WorkflowInstanceApplication {
         Workflow workflow = this.workflowRepository
                 .findByRefAndVersion(instance.getWorkflowRef(), instance.getWorkflowVersion())
                 .orElseThrow(() -> new DataNotFoundException("未找到流程定义: " + instance.getWorkflowRef() + instance.getWorkflowVersion()));
-        EvaluationContext context = this.findContext(workflow, instanceId, instance.getTriggerId());
+        EvaluationContext context = this.instanceContextFactory.create(workflow, instanceId, instance.getTriggerId());
         instance.setExpressionLanguage(this.expressionLanguage);
         instance.setContext(context);
         // 启动流程
@@ -173,53 +128,74 @@ public class WorkflowInstanceApplication {
         var workflowInstance = this.workflowInstanceRepository
                 .findById(instanceId)
                 .orElseThrow(() -> new DataNotFoundException("未找到该流程实例"));
+        // 任务失败与运行超时可能先后终止同一流程实例，已结束的流程实例不再重复终止
+        if (workflowInstance.getStatus() != ProcessStatus.RUNNING) {
+            logger.info("流程实例{}已结束，无需终止", instanceId);
+            return;
+        }
         // 终止流程
         workflowInstance.terminate();
         this.workflowInstanceRepository.save(workflowInstance);
+        this.instanceContextFactory.evict(instanceId);
     }
 
-    // 节点启动，重做
-    @Transactional
-    @Retryable(value = DBException.OptimisticLocking.class, maxAttempts = 5, backoff = @Backoff(delay = 3000L, multiplier = 2))
-    public WorkflowInstance activateNode(String instanceId, String nodeRef) {
-        WorkflowInstance instance = this.workflowInstanceRepository
-                .findById(instanceId)
-                .orElseThrow(() -> new DataNotFoundException("未找到该流程实例"));
+    // 流程启动时预加载参数上下文
+    public void initContext(String workflowRef, String workflowVersion, String instanceId, String triggerId) {
         Workflow workflow = this.workflowRepository
-                .findByRefAndVersion(instance.getWorkflowRef(), instance.getWorkflowVersion())
+                .findByRefAndVersion(workflowRef, workflowVersion)
                 .orElseThrow(() -> new DataNotFoundException("未找到流程定义"));
-        EvaluationContext context = this.findContext(workflow, instanceId, instance.getTriggerId());
-        instance.setExpressionLanguage(this.expressionLanguage);
-        instance.setContext(context);
-        // 激活节点
-        logger.info("activateNode: " + nodeRef);
-        workflowInstanceDomainService.activateNode(workflow, instance, nodeRef);
-        return this.workflowInstanceRepository.save(instance);
+        this.instanceContextFactory.seed(workflow, instanceId, triggerId);
     }
 
-    @Recover
-    public WorkflowInstance recoverActivateNode(DBException.OptimisticLocking e, String instanceId, String nodeRef) {
-        logger.info("WorkflowInstance id {} 的节点 {} 无法激活", instanceId, nodeRef);
-        logger.error("------------超过重试次数-------------", e);
-        return null;
+    // 流程结束时清除参数上下文
+    public void clearContext(String instanceId) {
+        this.instanceContextFactory.evict(instanceId);
     }
 
-    // 节点跳过
+    // 流程结束或终止后删除任务序号计数
+    public void clearTaskSerialNos(String instanceId) {
+        this.serialNoAllocator.deleteByBusinessId(instanceId);
+    }
+
+    // 批量处理同一流程实例的节点激活与跳过事件，一次加载与保存
     @Transactional
     @Retryable(value = DBException.OptimisticLocking.class, maxAttempts = 5, backoff = @Backoff(delay = 3000L, multiplier = 2))
-    public void skipNode(String instanceId, String nodeRef) {
+    public void applyNodeEvents(String instanceId, List<BaseEvent> events) {
         WorkflowInstance instance = this.workflowInstanceRepository
                 .findById(instanceId)
                 .orElseThrow(() -> new DataNotFoundException("未找到该流程实例"));
         Workflow workflow = this.workflowRepository
                 .findByRefAndVersion(instance.getWorkflowRef(), instance.getWorkflowVersion())
                 .orElseThrow(() -> new DataNotFoundException("未找到流程定义"));
-        // 跳过节点
-        logger.info("skipNode: " + nodeRef);
-        workflowInstanceDomainService.skipNode(workflow, instance, nodeRef);
+        // 跳过事件同样需要表达式上下文，跳过传播激活的汇聚节点可能是网关
+        EvaluationContext context = this.instanceContextFactory.create(workflow, instanceId, instance.getTriggerId());
+        instance.setExpressionLanguage(this.expressionLanguage);
+        instance.setContext(context);
+        logger.info("applyNodeEvents: {} events", events.size());
+        for (BaseEvent event : events) {
+            // 跳过传播可能已激活结束节点，流程实例结束后忽略剩余的节点事件
+            if (instance.getStatus() != ProcessStatus.RUNNING) {
+                logger.info("流程实例{}已结束，忽略节点{}的事件", instanceId, event.getNodeRef());
+                continue;
+            }
+            if (event instanceof NodeSkipEvent) {
+                logger.info("skipNode: " + event.getNodeRef());
+                workflowInstanceDomainService.skipNode(workflow, instance, event.getNodeRef());
+            }
+            if (event instanceof NodeActivatingEvent) {
+                logger.info("activateNode: " + event.getNodeRef());
+                workflowInstanceDomainService.activateNode(workflow, instance, event.getNodeRef());
+            }
+        }
         this.workflowInstanceRepository.save(instance);
     }
 
+    @Recover
+    public void recoverNodeEvents(DBException.OptimisticLocking e, String instanceId, List<BaseEvent> events) {
+        logger.info("WorkflowInstance id {} 的{}个节点事件无法处理", instanceId, events.size());
+        logger.error("------------超过重试次数-------------", e);
+    }
+
     // 任务中止，完成
     @Transactional
     public WorkflowInstance terminateNode(String instanceId, String nodeRef) {
@@ -0,0 +1,52 @@
+package dev.jianmu.benchmark;
+
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.service.WorkflowInstanceDomainService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: ActivateNodeBenchmark
+ * @description: 节点激活汇聚检查基准测试，结束节点的上游任务仅完成一半，激活检查不通过
+ * @author: Ethan Liu
+ * @create: 2021-10-24 10:30
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivateNodeBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int nodes;
+
+    private final WorkflowInstanceDomainService workflowInstanceDomainService = new WorkflowInstanceDomainService();
+    private Workflow workflow;
+    private WorkflowInstance workflowInstance;
+    private String joinRef;
+
+    @Setup
+    public void setup() {
+        this.workflow = Workflows.dag(this.nodes);
+        this.workflowInstance = this.workflowInstanceDomainService.create("trigger", "MANUAL", 1, this.workflow);
+        // 按层依次激活并完成任务，最后一层只完成一半
+        var unfinished = this.nodes - Workflows.WIDTH / 2;
+        for (int i = 0; i < this.nodes; i++) {
+            this.workflowInstanceDomainService.activateNode(this.workflow, this.workflowInstance, Workflows.taskRef(i));
+            if (i < unfinished) {
+                this.workflowInstance.taskSucceed(this.workflow.findNode(Workflows.taskRef(i)));
+            }
+        }
+        this.joinRef = this.workflow.findEnd().getRef();
+    }
+
+    @Benchmark
+    public WorkflowInstance activateNode() {
+        this.workflowInstanceDomainService.activateNode(this.workflow, this.workflowInstance, this.joinRef);
+        return this.workflowInstance;
+    }
+}
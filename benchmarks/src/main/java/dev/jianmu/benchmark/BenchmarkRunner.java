@@ -0,0 +1,22 @@
+package dev.jianmu.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @class: BenchmarkRunner
+ * @description: 基准测试入口，默认附加GC分析器输出内存分配速率，命令行参数与JMH一致
+ * @author: Ethan Liu
+ * @create: 2021-10-24 09:30
+ **/
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        var options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,49 @@
+package dev.jianmu.benchmark;
+
+import dev.jianmu.el.ElContext;
+import dev.jianmu.infrastructure.elimpl.ElProperties;
+import dev.jianmu.infrastructure.elimpl.ExpressionLanguageWarp;
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.parameter.Parameter;
+import dev.jianmu.workflow.el.ExpressionLanguage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: CalculateTaskParamsBenchmark
+ * @description: 任务参数计算基准测试，计算最后一个任务的参数
+ * @author: Ethan Liu
+ * @create: 2021-10-24 10:20
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculateTaskParamsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int nodes;
+
+    private Workflow workflow;
+    private ExpressionLanguage expressionLanguage;
+    private ElContext context;
+    private String taskRef;
+
+    @Setup
+    public void setup() {
+        this.workflow = Workflows.dag(this.nodes);
+        this.expressionLanguage = new ExpressionLanguageWarp(new ElProperties(), new SimpleMeterRegistry());
+        this.context = Workflows.context(this.nodes);
+        this.taskRef = Workflows.taskRef(this.nodes - 1);
+    }
+
+    @Benchmark
+    public Map<String, Parameter<?>> calculateTaskParams() {
+        return this.workflow.calculateTaskParams(this.taskRef, this.expressionLanguage, this.context);
+    }
+}
@@ -0,0 +1,56 @@
+package dev.jianmu.benchmark;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * @class: JdbcStubs
+ * @description: 类型转换器基准测试用JDBC桩对象，只保存与返回二进制流或Blob的内容
+ * @author: Ethan Liu
+ * @create: 2021-10-24 10:40
+ **/
+final class JdbcStubs {
+    private byte[] bytes;
+
+    final PreparedStatement preparedStatement = (PreparedStatement) Proxy.newProxyInstance(
+            JdbcStubs.class.getClassLoader(),
+            new Class[]{PreparedStatement.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("setBinaryStream")) {
+                    // 与驱动一样在绑定参数时读取流
+                    this.bytes = ((InputStream) args[1]).readAllBytes();
+                    return null;
+                }
+                // 旧版类型转换器
+                if (method.getName().equals("setBlob")) {
+                    var blob = (Blob) args[1];
+                    this.bytes = blob.getBytes(1, (int) blob.length());
+                    return null;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+    );
+
+    final ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(
+            JdbcStubs.class.getClassLoader(),
+            new Class[]{ResultSet.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("getBinaryStream")) {
+                    return new ByteArrayInputStream(this.bytes);
+                }
+                if (method.getName().equals("getBlob")) {
+                    return new SerialBlob(this.bytes);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+    );
+
+    byte[] getBytes() {
+        return this.bytes;
+    }
+}
@@ -0,0 +1,62 @@
+package dev.jianmu.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+
+/**
+ * @class: LegacyTypeHandler
+ * @description: 旧版Blob字段类型转换器，序列化为字符串后复制到SerialBlob，读取时复制Blob内容后解析
+ * @author: Ethan Liu
+ * @create: 2021-10-30 10:10
+ **/
+final class LegacyTypeHandler<T> extends BaseTypeHandler<T> {
+    private final ObjectMapper objectMapper;
+    private final TypeReference<T> typeReference;
+
+    LegacyTypeHandler(ObjectMapper objectMapper, TypeReference<T> typeReference) {
+        this.objectMapper = objectMapper;
+        this.typeReference = typeReference;
+    }
+
+    private T read(Blob blob) throws SQLException {
+        // 与旧版一样每次读取时构造类型
+        var javaType = this.objectMapper.getTypeFactory().constructType(this.typeReference);
+        try {
+            return this.objectMapper.readValue(blob.getBytes(1, (int) blob.length()), javaType);
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException {
+        try {
+            String json = this.objectMapper.writerFor(this.typeReference).writeValueAsString(parameter);
+            ps.setBlob(i, new SerialBlob(json.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    @Override
+    public T getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return this.read(rs.getBlob(columnName));
+    }
+
+    @Override
+    public T getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return this.read(rs.getBlob(columnIndex));
+    }
+
+    @Override
+    public T getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return this.read(cs.getBlob(columnIndex));
+    }
+}
@@ -0,0 +1,113 @@
+package dev.jianmu.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import dev.jianmu.infrastructure.codec.BenchmarkCodecs;
+import dev.jianmu.infrastructure.codec.BlobFormat;
+import dev.jianmu.infrastructure.typehandler.BlobTypeHandler;
+import dev.jianmu.infrastructure.typehandler.NodeSetTypeHandler;
+import dev.jianmu.infrastructure.typehandler.TaskInstanceListTypeHandler;
+import dev.jianmu.workflow.aggregate.definition.Node;
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.service.WorkflowInstanceDomainService;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: TypeHandlerBenchmark
+ * @description: 流程定义节点与任务实例列表的序列化、反序列化基准测试，按编码方式对比耗时，数据大小在准备阶段输出
+ * JSON_LEGACY为旧版类型转换器，JSON为当前JSON格式(与旧版数据相同)，JSON_TYPE_ID为JSON加短类型ID，SMILE为Smile加短类型ID
+ * @author: Ethan Liu
+ * @create: 2021-10-24 10:50
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeHandlerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int nodes;
+
+    @Param({"JSON_LEGACY", "JSON", "JSON_TYPE_ID", "SMILE"})
+    public String codec;
+
+    private BaseTypeHandler<Set<Node>> nodeSetTypeHandler;
+    private BaseTypeHandler<List<AsyncTaskInstance>> taskInstanceListTypeHandler;
+    private final JdbcStubs nodeStubs = new JdbcStubs();
+    private final JdbcStubs taskStubs = new JdbcStubs();
+    private Set<Node> nodeSet;
+    private List<AsyncTaskInstance> taskInstances;
+
+    @Setup
+    public void setup() throws SQLException {
+        this.createTypeHandlers();
+        Workflow workflow = Workflows.dag(this.nodes);
+        this.nodeSet = workflow.getNodes();
+        var workflowInstanceDomainService = new WorkflowInstanceDomainService();
+        WorkflowInstance workflowInstance = workflowInstanceDomainService.create("trigger", "MANUAL", 1, workflow);
+        for (int i = 0; i < this.nodes; i++) {
+            workflowInstanceDomainService.activateNode(workflow, workflowInstance, Workflows.taskRef(i));
+            workflowInstance.taskSucceed(workflow.findNode(Workflows.taskRef(i)));
+        }
+        this.taskInstances = workflowInstance.getAsyncTaskInstances();
+        // 预先写入一次，供反序列化使用
+        this.nodeSetTypeHandler.setNonNullParameter(this.nodeStubs.preparedStatement, 1, this.nodeSet, null);
+        this.taskInstanceListTypeHandler.setNonNullParameter(this.taskStubs.preparedStatement, 1, this.taskInstances, null);
+        System.out.printf("%n%s nodes=%d: nodes %d bytes, task instances %d bytes%n",
+                this.codec, this.nodes, this.nodeStubs.getBytes().length, this.taskStubs.getBytes().length);
+    }
+
+    private void createTypeHandlers() {
+        var nodeType = new TypeReference<Set<Node>>() {
+        };
+        var taskInstanceType = new TypeReference<List<AsyncTaskInstance>>() {
+        };
+        switch (this.codec) {
+            case "JSON_LEGACY":
+                this.nodeSetTypeHandler = new LegacyTypeHandler<>(BenchmarkCodecs.legacyJsonMapper(), nodeType);
+                this.taskInstanceListTypeHandler = new LegacyTypeHandler<>(BenchmarkCodecs.legacyJsonMapper(), taskInstanceType);
+                break;
+            case "JSON_TYPE_ID":
+                this.nodeSetTypeHandler = new BlobTypeHandler<>(BenchmarkCodecs.typeIdJson(nodeType), BlobFormat.JSON) {
+                };
+                this.taskInstanceListTypeHandler = new BlobTypeHandler<>(BenchmarkCodecs.typeIdJson(taskInstanceType), BlobFormat.JSON) {
+                };
+                break;
+            default:
+                var format = BlobFormat.valueOf(this.codec);
+                this.nodeSetTypeHandler = new NodeSetTypeHandler(format);
+                this.taskInstanceListTypeHandler = new TaskInstanceListTypeHandler(format);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeNodes() throws SQLException {
+        this.nodeSetTypeHandler.setNonNullParameter(this.nodeStubs.preparedStatement, 1, this.nodeSet, null);
+        return this.nodeStubs.getBytes();
+    }
+
+    @Benchmark
+    public Set<Node> deserializeNodes() throws SQLException {
+        return this.nodeSetTypeHandler.getNullableResult(this.nodeStubs.resultSet, 1);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskInstances() throws SQLException {
+        this.taskInstanceListTypeHandler.setNonNullParameter(this.taskStubs.preparedStatement, 1, this.taskInstances, null);
+        return this.taskStubs.getBytes();
+    }
+
+    @Benchmark
+    public List<AsyncTaskInstance> deserializeTaskInstances() throws SQLException {
+        return this.taskInstanceListTypeHandler.getNullableResult(this.taskStubs.resultSet, 1);
+    }
+}
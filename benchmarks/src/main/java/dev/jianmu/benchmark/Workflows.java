@@ -0,0 +1,98 @@
+package dev.jianmu.benchmark;
+
+import dev.jianmu.el.ElContext;
+import dev.jianmu.workflow.aggregate.definition.*;
+import dev.jianmu.workflow.aggregate.parameter.Parameter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @class: Workflows
+ * @description: 基准测试用流程定义，按层生成DAG，相邻两层任务全连接
+ * @author: Ethan Liu
+ * @create: 2021-10-24 09:40
+ **/
+final class Workflows {
+    // 每层任务数量，即汇聚节点的上游任务数量
+    static final int WIDTH = 10;
+
+    private Workflows() {
+    }
+
+    static String taskRef(int i) {
+        return "task_" + i;
+    }
+
+    // 生成包含taskCount个任务的流程，Start -> 第一层 -> ... -> 最后一层 -> End
+    static Workflow dag(int taskCount) {
+        var start = Start.Builder.aStart().name("start").ref("start").build();
+        var end = End.Builder.anEnd().name("end").ref("end").build();
+        List<Node> tasks = new ArrayList<>();
+        for (int i = 0; i < taskCount; i++) {
+            tasks.add(AsyncTask.Builder.anAsyncTask()
+                    .name(taskRef(i))
+                    .ref(taskRef(i))
+                    .type("shell:1.0.0")
+                    .taskParameters(taskParameters(i))
+                    .build());
+        }
+        var layers = new ArrayList<List<Node>>();
+        for (int i = 0; i < taskCount; i += WIDTH) {
+            layers.add(tasks.subList(i, Math.min(i + WIDTH, taskCount)));
+        }
+        link(List.of(start), layers.get(0));
+        for (int i = 1; i < layers.size(); i++) {
+            link(layers.get(i - 1), layers.get(i));
+        }
+        link(layers.get(layers.size() - 1), List.of(end));
+        Set<Node> nodes = new HashSet<>(tasks);
+        nodes.add(start);
+        nodes.add(end);
+        return Workflow.Builder.aWorkflow()
+                .name("benchmark")
+                .ref("benchmark")
+                .type(Workflow.Type.WORKFLOW)
+                .description("基准测试流程")
+                .nodes(nodes)
+                .globalParameters(Workflow.createGlobalParameters(Map.of("registry", "hub.jianmu.dev")))
+                .dslText("")
+                .build();
+    }
+
+    private static void link(List<Node> sources, List<Node> targets) {
+        var sourceRefs = sources.stream().map(Node::getRef).collect(Collectors.toSet());
+        var targetRefs = targets.stream().map(Node::getRef).collect(Collectors.toSet());
+        sources.forEach(node -> node.setTargets(targetRefs));
+        targets.forEach(node -> node.setSources(sourceRefs));
+    }
+
+    // 字面量、密钥、模版、表达式各一个参数，引用上游任务的输出参数
+    private static Set<TaskParameter> taskParameters(int i) {
+        var upstream = i < WIDTH ? "event" : taskRef(i - WIDTH);
+        return Set.of(
+                TaskParameter.Builder.aTaskParameter().ref("image").expression("alpine:3.13").build(),
+                TaskParameter.Builder.aTaskParameter().ref("password").expression("((dockerhub.password))").build(),
+                TaskParameter.Builder.aTaskParameter().ref("script")
+                        .expression("docker push ${global.registry}/app:${" + upstream + ".tag}").build(),
+                TaskParameter.Builder.aTaskParameter().ref("retries")
+                        .expression("(${" + upstream + ".count} + 1)").build()
+        );
+    }
+
+    static ElContext context(int taskCount) {
+        var context = new ElContext();
+        context.add("global", "registry", Parameter.Type.STRING.newParameter("hub.jianmu.dev"));
+        context.add("event", "tag", Parameter.Type.STRING.newParameter("v1.0.0"));
+        context.add("event", "count", Parameter.Type.NUMBER.newParameter(1));
+        for (int i = 0; i < taskCount; i++) {
+            context.add(taskRef(i), "tag", Parameter.Type.STRING.newParameter("v1.0." + i));
+            context.add(taskRef(i), "count", Parameter.Type.NUMBER.newParameter(i));
+        }
+        return context;
+    }
+}
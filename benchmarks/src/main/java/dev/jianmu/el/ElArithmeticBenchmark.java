@@ -0,0 +1,60 @@
+package dev.jianmu.el;
+
+import dev.jianmu.el.antlr4.JianMuElLexer;
+import dev.jianmu.el.antlr4.JianMuElParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: ElArithmeticBenchmark
+ * @description: 表达式数值运算基准测试，对比整数快速路径与BigDecimal语法树遍历
+ * @author: Ethan Liu
+ * @create: 2021-10-20 10:10
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElArithmeticBenchmark {
+
+    @Param({
+            "${build.count} > 3",
+            "(${build.count} + 1) * 2 - 7 >= 10",
+            "${build.count} % 2 == 0 && ${build.count} / 5 < 3",
+            "(${build.rate} + 2.5) * 3 > 10"
+    })
+    public String expression;
+
+    private ElContext context;
+    private El el;
+    private ParseTree tree;
+
+    @Setup
+    public void setup() {
+        this.context = new ElContext();
+        this.context.add("build.count", 10);
+        this.context.add("build.rate", 1.5);
+        this.el = new El(this.expression);
+        var lexer = new JianMuElLexer(CharStreams.fromString(this.expression));
+        var parser = new JianMuElParser(new CommonTokenStream(lexer));
+        this.tree = parser.equation();
+    }
+
+    // 预编译节点树，整数运算走long快速路径
+    @Benchmark
+    public Object compiled() {
+        return this.el.eval(this.context);
+    }
+
+    // 原语法树遍历，全部使用BigDecimal运算
+    @Benchmark
+    public Object bigDecimalVisitor() {
+        return new ElVisitorImpl(this.context).visit(this.tree);
+    }
+}
@@ -0,0 +1,55 @@
+package dev.jianmu.el;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: ElBenchmark
+ * @description: 表达式解析与求值基准测试，表达式取自el模块测试用例
+ * @author: Ethan Liu
+ * @create: 2021-10-24 10:00
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElBenchmark {
+
+    @Param({
+            "(12 + 33) * (3.1 - 3.142) / 0.3",
+            "22.50 + 2 + 20",
+            "46.345 <= 98.67",
+            "${a} * 10 + \"-\" + `${b}/${c}`",
+            "${a} +\"---\" +  ${b} * ${d} + \"---\" + `${a} != ${b} == ${c}`",
+            "`${a} && ${b}`",
+            "`[\"xxx\", \"xxx\"]`"
+    })
+    public String expression;
+
+    private ElContext context;
+    private El el;
+
+    @Setup
+    public void setup() {
+        this.context = new ElContext();
+        this.context.add("a", 2);
+        this.context.add("b", "xxx");
+        this.context.add("c", true);
+        this.context.add("d", new BigDecimal("1.5"));
+        this.el = new El(this.expression);
+    }
+
+    @Benchmark
+    public El parse() {
+        return new El(this.expression);
+    }
+
+    @Benchmark
+    public Object eval() {
+        return this.el.eval(this.context);
+    }
+}
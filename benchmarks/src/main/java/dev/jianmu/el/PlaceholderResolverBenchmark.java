@@ -0,0 +1,56 @@
+package dev.jianmu.el;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: PlaceholderResolverBenchmark
+ * @description: 占位符模版解析基准测试
+ * @author: Ethan Liu
+ * @create: 2021-10-24 10:10
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaceholderResolverBenchmark {
+
+    // 模版中的占位符数量
+    @Param({"1", "10", "100"})
+    public int placeholders;
+
+    private final PlaceholderResolver resolver = PlaceholderResolver.getDefaultResolver();
+    private ElContext context;
+    private String content;
+    private PlaceholderResolver.Template template;
+
+    @Setup
+    public void setup() {
+        this.context = new ElContext();
+        var builder = new StringBuilder("docker build");
+        for (int i = 0; i < this.placeholders; i++) {
+            this.context.add("arg_" + i, "value_" + i);
+            builder.append(" --build-arg ARG_").append(i).append("=${arg_").append(i).append("}");
+        }
+        this.content = builder.toString();
+        this.template = this.resolver.compile(this.content);
+    }
+
+    @Benchmark
+    public String resolveByContext() {
+        return this.resolver.resolveByContext(this.content, this.context);
+    }
+
+    @Benchmark
+    public String compile() {
+        return this.resolver.compile(this.content).getContent();
+    }
+
+    @Benchmark
+    public String render() {
+        return this.template.render(this.context);
+    }
+}
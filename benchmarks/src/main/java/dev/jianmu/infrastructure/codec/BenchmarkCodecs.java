@@ -0,0 +1,29 @@
+package dev.jianmu.infrastructure.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * @class: BenchmarkCodecs
+ * @description: 基准测试用编解码器，与CodecRegistry同包以复用Blob字段的ObjectMapper配置
+ * 旧版JSON与JSON加短类型ID只用于与写入格式对比
+ * @author: Ethan Liu
+ * @create: 2021-10-30 10:00
+ **/
+public final class BenchmarkCodecs {
+
+    private BenchmarkCodecs() {
+    }
+
+    // 旧版类型转换器使用的配置，类型信息为完整类名
+    public static ObjectMapper legacyJsonMapper() {
+        return CodecRegistry.blobMapper(new ObjectMapper());
+    }
+
+    // JSON格式，类型信息使用TypeIdTable中登记的短ID，按JSON格式写入时不带格式头
+    public static <T> BlobCodec<T> typeIdJson(TypeReference<T> type) {
+        var mapper = CodecRegistry.blobMapper(new ObjectMapper());
+        mapper.setDefaultTyping(TypeIdTable.typeResolverBuilder());
+        return new BlobCodec<>(mapper.getTypeFactory().constructType(type), mapper, mapper);
+    }
+}
@@ -0,0 +1,248 @@
+package dev.jianmu.el;
+
+import dev.jianmu.el.antlr4.JianMuElParser;
+import dev.jianmu.workflow.el.EvaluationContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.math.BigDecimal;
+
+/**
+ * @class: ElCompiler
+ * @description: 表达式编译器，将语法树一次性转换为可直接求值的节点树
+ * @author: Ethan Liu
+ * @create: 2021-10-19 09:40
+ **/
+final class ElCompiler {
+
+    private ElCompiler() {
+    }
+
+    static ElNode compile(JianMuElParser.EquationContext ctx) {
+        if (null == ctx.expression()) {
+            return new FallbackNode(ctx);
+        }
+        return compileExpression(ctx.expression());
+    }
+
+    private static ElNode compileExpression(JianMuElParser.ExpressionContext ctx) {
+        // 最小词法单元解析
+        if (ctx.expression().size() == 0) {
+            if (null == ctx.primary()) {
+                return new FallbackNode(ctx);
+            }
+            return compilePrimary(ctx.primary());
+        }
+        if (ctx.prefix != null) {
+            if (null == ctx.expression(0)) {
+                return new FallbackNode(ctx);
+            }
+            return new NotNode(compileExpression(ctx.expression(0)), ctx.prefix.getType(), ctx.prefix.getText());
+        }
+        // 语法错误恢复后可能出现残缺的二元表达式，交由语法树遍历在求值时报错
+        if (null == ctx.bop || null == ctx.expression(0) || null == ctx.expression(1)) {
+            return new FallbackNode(ctx);
+        }
+        return new BinaryNode(
+                compileExpression(ctx.expression(0)),
+                compileExpression(ctx.expression(1)),
+                ctx.bop.getType(),
+                ctx.bop.getText(),
+                ctx.getText()
+        );
+    }
+
+    private static ElNode compilePrimary(JianMuElParser.PrimaryContext ctx) {
+        if (null != ctx.literal()) {
+            return compileLiteral(ctx.literal());
+        }
+        if (null != ctx.expression()) {
+            return compileExpression(ctx.expression());
+        }
+        if (null != ctx.VARNAME()) {
+            // 去掉头尾的$和{}
+            var variableName = ctx.VARNAME().getText();
+            return new VariableNode(variableName.substring(2, variableName.length() - 1));
+        }
+        if (null != ctx.TEMPLATE()) {
+            // 去掉首尾反引号
+            var template = ctx.TEMPLATE().getText();
+            return new TemplateNode(template.substring(1, template.length() - 1));
+        }
+        return new FallbackNode(ctx);
+    }
+
+    private static ElNode compileLiteral(JianMuElParser.LiteralContext ctx) {
+        if (null != ctx.BOOL_LITERAL()) {
+            return new LiteralNode(Boolean.valueOf(ctx.BOOL_LITERAL().getText()));
+        }
+        if (null != ctx.FLOAT_LITERAL()) {
+            return new LiteralNode(new BigDecimal(ctx.FLOAT_LITERAL().getText()));
+        }
+        // 去掉首尾双引号
+        if (null != ctx.STRING_LITERAL()) {
+            String s = ctx.STRING_LITERAL().getText();
+            return new LiteralNode(s.substring(1, s.length() - 1));
+        }
+        if (null != ctx.INT_LITERAL()) {
+            return new LiteralNode(new BigDecimal(ctx.INT_LITERAL().getText()));
+        }
+        if (null != ctx.NULL_LITERAL()) {
+            return new LiteralNode(null);
+        }
+        return new FallbackNode(ctx);
+    }
+
+    // 字面量，BigDecimal/String/Boolean均为不可变对象，可直接共享
+    private static final class LiteralNode implements ElNode {
+        private final Object value;
+        private final Object numeric;
+
+        private LiteralNode(Object value) {
+            this.value = value;
+            // 整数字面量预先转为long，参与运算时无需再判断
+            this.numeric = ElOperations.isIntegral(value) ? (Object) ElOperations.longValue(value) : value;
+        }
+
+        @Override
+        public Object eval(EvaluationContext context) {
+            return this.value;
+        }
+
+        @Override
+        public Object evalNumeric(EvaluationContext context) {
+            return this.numeric;
+        }
+
+        @Override
+        public boolean isStatic() {
+            return true;
+        }
+    }
+
+    private static final class VariableNode implements ElNode {
+        private final String name;
+
+        private VariableNode(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object eval(EvaluationContext context) {
+            return context.getVariable(this.name);
+        }
+
+        @Override
+        public boolean isStatic() {
+            return false;
+        }
+    }
+
+    // 字符串模版，按占位符预先切分为字面量片段与变量名
+    private static final class TemplateNode implements ElNode {
+        private final PlaceholderResolver.Template template;
+
+        private TemplateNode(String template) {
+            this.template = PlaceholderResolver.getDefaultResolver().compile(template);
+        }
+
+        @Override
+        public Object eval(EvaluationContext context) {
+            return this.template.render(context);
+        }
+
+        @Override
+        public boolean isStatic() {
+            return this.template.isStatic();
+        }
+    }
+
+    private static final class NotNode implements ElNode {
+        private final ElNode expression;
+        private final int flag;
+        private final String op;
+
+        private NotNode(ElNode expression, int flag, String op) {
+            this.expression = expression;
+            this.flag = flag;
+            this.op = op;
+        }
+
+        @Override
+        public Object eval(EvaluationContext context) {
+            return ElOperations.notOperation(this.expression.eval(context), this.flag, this.op);
+        }
+
+        @Override
+        public boolean isStatic() {
+            return this.expression.isStatic();
+        }
+    }
+
+    private static final class BinaryNode implements ElNode {
+        private final ElNode left;
+        private final ElNode right;
+        private final int flag;
+        private final String op;
+        private final String exp;
+
+        private BinaryNode(ElNode left, ElNode right, int flag, String op, String exp) {
+            this.left = left;
+            this.right = right;
+            this.flag = flag;
+            this.op = op;
+            this.exp = exp;
+        }
+
+        @Override
+        public Object eval(EvaluationContext context) {
+            return ElOperations.toDecimal(this.evalNumeric(context));
+        }
+
+        @Override
+        public Object evalNumeric(EvaluationContext context) {
+            Object left = this.left.evalNumeric(context);
+            Object right = this.right.evalNumeric(context);
+            if (ElOperations.isIntegral(left) && ElOperations.isIntegral(right)) {
+                var result = ElOperations.longOperation(
+                        ElOperations.longValue(left),
+                        ElOperations.longValue(right),
+                        this.flag
+                );
+                if (null != result) {
+                    return result;
+                }
+            }
+            return ElOperations.binaryOperation(
+                    ElOperations.toDecimal(left),
+                    ElOperations.toDecimal(right),
+                    this.flag,
+                    this.op,
+                    this.exp
+            );
+        }
+
+        @Override
+        public boolean isStatic() {
+            return this.left.isStatic() && this.right.isStatic();
+        }
+    }
+
+    // 无法编译的语法树片段（语法错误恢复产生），求值时按原方式遍历以保持错误行为一致
+    private static final class FallbackNode implements ElNode {
+        private final ParseTree tree;
+
+        private FallbackNode(ParseTree tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public Object eval(EvaluationContext context) {
+            return new ElVisitorImpl(context).visit(this.tree);
+        }
+
+        @Override
+        public boolean isStatic() {
+            return false;
+        }
+    }
+}
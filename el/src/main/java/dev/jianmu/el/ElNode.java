@@ -0,0 +1,21 @@
+package dev.jianmu.el;
+
+import dev.jianmu.workflow.el.EvaluationContext;
+
+/**
+ * @class: ElNode
+ * @description: 预编译后的表达式节点，不可变且线程安全
+ * @author: Ethan Liu
+ * @create: 2021-10-19 09:35
+ **/
+interface ElNode {
+    Object eval(EvaluationContext context);
+
+    // 求值是否不依赖上下文变量
+    boolean isStatic();
+
+    // 数值运算内部求值，整数中间结果可能以Long返回，不得直接暴露给调用方
+    default Object evalNumeric(EvaluationContext context) {
+        return this.eval(context);
+    }
+}
@@ -0,0 +1,224 @@
+package dev.jianmu.el;
+
+import dev.jianmu.el.antlr4.JianMuElParser;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * @class: ElOperations
+ * @description: 表达式运算符实现，语法树遍历与预编译节点共用
+ * @author: Ethan Liu
+ * @create: 2021-10-19 09:20
+ **/
+final class ElOperations {
+
+    private ElOperations() {
+    }
+
+    static Boolean notOperation(Object value, int flag, String op) {
+        if (!(value instanceof Boolean)) {
+            throw new RuntimeException("非Boolean值不支持该操作符" + op);
+        }
+        if (flag == JianMuElParser.NOT) {
+            var o = (Boolean) value;
+            return !o;
+        }
+        throw new RuntimeException("Boolean值不支持该操作符" + op);
+    }
+
+    // 二元运算，exp为整个表达式的文本，仅用于错误信息
+    static Object binaryOperation(Object left, Object right, int flag, String op, String exp) {
+        // null 运算
+        if (null == left || null == right) {
+            return nullOperation(left, right, flag, op);
+        }
+        // 数字运算
+        if (left instanceof BigDecimal && right instanceof BigDecimal) {
+            return arithmetic((BigDecimal) left, (BigDecimal) right, flag, op);
+        }
+        // 布尔运算
+        if (left instanceof Boolean && right instanceof Boolean) {
+            return logic((Boolean) right, (Boolean) left, flag, op);
+        }
+        // 字符串运算
+        if (left instanceof String && right instanceof String) {
+            return string((String) right, (String) left, flag, op);
+        }
+        return typeCasting(right, left, flag, exp);
+    }
+
+    private static Boolean nullOperation(Object left, Object right, int flag, String op) {
+        if (flag == JianMuElParser.EQ) {
+            return left == right;
+        }
+        if (flag == JianMuElParser.NE) {
+            return left != right;
+        }
+        throw new RuntimeException("null不支持使用该操作符" + op);
+    }
+
+    private static Object string(String left, String right, int flag, String op) {
+        if (flag == JianMuElParser.EQ) {
+            return left.equals(right);
+        }
+        if (flag == JianMuElParser.NE) {
+            return !left.equals(right);
+        }
+        if (flag == JianMuElParser.PLUS) {
+            return right + left;
+        }
+        throw new RuntimeException("字符串不支持使用该操作符: " + op);
+    }
+
+    private static Boolean logic(Boolean left, Boolean right, int flag, String op) {
+        if (flag == JianMuElParser.EQ) {
+            return left == right;
+        }
+        if (flag == JianMuElParser.NE) {
+            return left != right;
+        }
+        if (flag == JianMuElParser.AND) {
+            return left && right;
+        }
+        if (flag == JianMuElParser.OR) {
+            return left || right;
+        }
+        throw new RuntimeException("布尔值不支持使用该操作符" + op);
+    }
+
+    private static Object arithmetic(BigDecimal left, BigDecimal right, int flag, String op) {
+        if (flag == JianMuElParser.TIMES) {
+            return left.multiply(right);
+        }
+        if (flag == JianMuElParser.DIV) {
+            return left.divide(right, 2, RoundingMode.HALF_UP);
+        }
+        if (flag == JianMuElParser.MODULO) {
+            return left.divideAndRemainder(right)[1];
+        }
+        if (flag == JianMuElParser.PLUS) {
+            return left.add(right);
+        }
+        if (flag == JianMuElParser.MINUS) {
+            return left.subtract(right);
+        }
+
+        if (flag == JianMuElParser.EQ) {
+            return left.compareTo(right) == 0;
+        }
+        if (flag == JianMuElParser.NE) {
+            return left.compareTo(right) != 0;
+        }
+        if (flag == JianMuElParser.GT) {
+            return left.compareTo(right) > 0;
+        }
+        if (flag == JianMuElParser.GE) {
+            return left.compareTo(right) > -1;
+        }
+        if (flag == JianMuElParser.LT) {
+            return left.compareTo(right) < 0;
+        }
+        if (flag == JianMuElParser.LE) {
+            return left.compareTo(right) < 1;
+        }
+        throw new RuntimeException("数字不支持使用该操作符" + op);
+    }
+
+    // 是否可使用整数快速路径，Long为内部中间结果，BigDecimal须为可精确转为long的整数
+    static boolean isIntegral(Object value) {
+        if (value instanceof Long) {
+            return true;
+        }
+        if (value instanceof BigDecimal) {
+            var decimal = (BigDecimal) value;
+            return decimal.scale() == 0 && decimal.precision() < 19;
+        }
+        return false;
+    }
+
+    static long longValue(Object value) {
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        return ((BigDecimal) value).longValueExact();
+    }
+
+    // 将内部整数中间结果还原为BigDecimal，与BigDecimal运算结果的scale一致
+    static Object toDecimal(Object value) {
+        if (value instanceof Long) {
+            return BigDecimal.valueOf((Long) value);
+        }
+        return value;
+    }
+
+    // 整数快速路径，溢出、除零或除法结果非整数时返回null，由调用方提升为BigDecimal运算
+    static Object longOperation(long left, long right, int flag) {
+        if (flag == JianMuElParser.PLUS) {
+            long r = left + right;
+            if (((left ^ r) & (right ^ r)) < 0) {
+                return null;
+            }
+            return r;
+        }
+        if (flag == JianMuElParser.MINUS) {
+            long r = left - right;
+            if (((left ^ right) & (left ^ r)) < 0) {
+                return null;
+            }
+            return r;
+        }
+        if (flag == JianMuElParser.TIMES) {
+            long r = left * right;
+            if (Math.multiplyHigh(left, right) != (r >> 63)) {
+                return null;
+            }
+            return r;
+        }
+        if (flag == JianMuElParser.DIV) {
+            if (right == 0 || (left == Long.MIN_VALUE && right == -1) || left % right != 0) {
+                return null;
+            }
+            // 整除时结果与divide(right, 2, HALF_UP)一致，保留两位小数
+            long q = left / right;
+            long scaled = q * 100;
+            if (scaled / 100 != q) {
+                return null;
+            }
+            return BigDecimal.valueOf(scaled, 2);
+        }
+        if (flag == JianMuElParser.MODULO) {
+            if (right == 0) {
+                return null;
+            }
+            return left % right;
+        }
+
+        if (flag == JianMuElParser.EQ) {
+            return left == right;
+        }
+        if (flag == JianMuElParser.NE) {
+            return left != right;
+        }
+        if (flag == JianMuElParser.GT) {
+            return left > right;
+        }
+        if (flag == JianMuElParser.GE) {
+            return left >= right;
+        }
+        if (flag == JianMuElParser.LT) {
+            return left < right;
+        }
+        if (flag == JianMuElParser.LE) {
+            return left <= right;
+        }
+        return null;
+    }
+
+    private static Object typeCasting(Object left, Object right, int flag, String exp) {
+        if (!(flag == JianMuElParser.PLUS)) {
+            throw new RuntimeException("不支持此类运算: " + exp);
+        }
+        return right.toString() + left.toString();
+    }
+}
@@ -5,7 +5,6 @@ import dev.jianmu.el.antlr4.JianMuElParser;
 import dev.jianmu.workflow.el.EvaluationContext;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.List;
 
 /**
@@ -59,28 +58,12 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         //
         if (ctx.prefix != null) {
             Object value = visit(ctx.expression(0));
-            return this.notOperation(value, ctx.prefix.getType(), ctx.prefix.getText());
+            return ElOperations.notOperation(value, ctx.prefix.getType(), ctx.prefix.getText());
         }
         // 表达式关系等式运算
         Object left = visit(ctx.expression(0));
         Object right = visit(ctx.expression(1));
-        // null 运算
-        if (null == left || null == right) {
-            return this.nullOperation(left, right, ctx.bop.getType(), ctx.bop.getText());
-        }
-        // 数字运算
-        if (left instanceof BigDecimal && right instanceof BigDecimal) {
-            return this.arithmetic((BigDecimal) left, (BigDecimal) right, ctx.bop.getType(), ctx.bop.getText());
-        }
-        // 布尔运算
-        if (left instanceof Boolean && right instanceof Boolean) {
-            return this.logic((Boolean) right, (Boolean) left, ctx.bop.getType(), ctx.bop.getText());
-        }
-        // 字符串运算
-        if (left instanceof String && right instanceof String) {
-            return this.string((String) right, (String) left, ctx.bop.getType(), ctx.bop.getText());
-        }
-        return this.typeCasting(right, left, ctx.bop.getType(), ctx.getText());
+        return ElOperations.binaryOperation(left, right, ctx.bop.getType(), ctx.bop.getText(), ctx.getText());
     }
 
     @Override
@@ -104,27 +87,6 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         throw new RuntimeException("Primary解析错误: " + ctx.getText());
     }
 
-    private Boolean notOperation(Object value, int flag, String op) {
-        if (!(value instanceof Boolean)) {
-            throw new RuntimeException("非Boolean值不支持该操作符" + op);
-        }
-        if (flag == JianMuElParser.NOT) {
-            var o = (Boolean) value;
-            return !o;
-        }
-        throw new RuntimeException("Boolean值不支持该操作符" + op);
-    }
-
-    private Boolean nullOperation(Object left, Object right, int flag, String op) {
-        if (flag == JianMuElParser.EQ) {
-            return left == right;
-        }
-        if (flag == JianMuElParser.NE) {
-            return left != right;
-        }
-        throw new RuntimeException("null不支持使用该操作符" + op);
-    }
-
     private Object fieldValue(Object left, String filedName) {
         Object value = ReflectUntil.getFieldValue(left, filedName);
         if (value instanceof Integer) {
@@ -158,80 +120,6 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         return ReflectUntil.invokeMethod(left, methodName, args);
     }
 
-    private Object string(String left, String right, int flag, String op) {
-        if (flag == JianMuElParser.EQ) {
-            return left.equals(right);
-        }
-        if (flag == JianMuElParser.NE) {
-            return !left.equals(right);
-        }
-        if (flag == JianMuElParser.PLUS) {
-            return right + left;
-        }
-        throw new RuntimeException("字符串不支持使用该操作符: " + op);
-    }
-
-    private Boolean logic(Boolean left, Boolean right, int flag, String op) {
-        if (flag == JianMuElParser.EQ) {
-            return left == right;
-        }
-        if (flag == JianMuElParser.NE) {
-            return left != right;
-        }
-        if (flag == JianMuElParser.AND) {
-            return left && right;
-        }
-        if (flag == JianMuElParser.OR) {
-            return left || right;
-        }
-        throw new RuntimeException("布尔值不支持使用该操作符" + op);
-    }
-
-    private Object arithmetic(BigDecimal left, BigDecimal right, int flag, String op) {
-        if (flag == JianMuElParser.TIMES) {
-            return left.multiply(right);
-        }
-        if (flag == JianMuElParser.DIV) {
-            return left.divide(right, 2, RoundingMode.HALF_UP);
-        }
-        if (flag == JianMuElParser.MODULO) {
-            return left.divideAndRemainder(right)[1];
-        }
-        if (flag == JianMuElParser.PLUS) {
-            return left.add(right);
-        }
-        if (flag == JianMuElParser.MINUS) {
-            return left.subtract(right);
-        }
-
-        if (flag == JianMuElParser.EQ) {
-            return left.compareTo(right) == 0;
-        }
-        if (flag == JianMuElParser.NE) {
-            return left.compareTo(right) != 0;
-        }
-        if (flag == JianMuElParser.GT) {
-            return left.compareTo(right) > 0;
-        }
-        if (flag == JianMuElParser.GE) {
-            return left.compareTo(right) > -1;
-        }
-        if (flag == JianMuElParser.LT) {
-            return left.compareTo(right) < 0;
-        }
-        if (flag == JianMuElParser.LE) {
-            return left.compareTo(right) < 1;
-        }
-        throw new RuntimeException("数字不支持使用该操作符" + op);
-    }
-
-    private Object typeCasting(Object left, Object right, int flag, String exp) {
-        if (!(flag == JianMuElParser.PLUS)) {
-            throw new RuntimeException("不支持此类运算: " + exp);
-        }
-        return right.toString() + left.toString();
-    }
-
     private String template(String template) {
         template = template.substring(1);
         template = template.substring(0, template.length() - 1);
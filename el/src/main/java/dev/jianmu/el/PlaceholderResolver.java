@@ -2,6 +2,10 @@ package dev.jianmu.el;
 
 import dev.jianmu.workflow.el.EvaluationContext;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
 
 /**
@@ -57,6 +61,16 @@ public class PlaceholderResolver {
         return new PlaceholderResolver(placeholderPrefix, placeholderSuffix);
     }
 
+    /**
+     * 将模板预先切分为字面量片段与占位符，编译结果不可变，可缓存并重复渲染
+     *
+     * @param content 模板内容
+     * @return 编译后的模板
+     */
+    public Template compile(String content) {
+        return new Template(this, content);
+    }
+
     /**
      * 根据替换规则来替换指定模板中的占位符值
      *
@@ -65,6 +79,11 @@ public class PlaceholderResolver {
      * @return
      */
     public String resolveByRule(String content, Function<String, String> rule) {
+        return this.compile(content).render(rule);
+    }
+
+    // 逐个占位符原地替换，仅用于占位符未闭合的模板以保持原有异常行为
+    private String resolveInPlace(String content, Function<String, String> rule) {
         int start = content.indexOf(this.placeholderPrefix);
         if (start == -1) {
             return content;
@@ -93,6 +112,91 @@ public class PlaceholderResolver {
      * @return 替换完成后的字符串。
      */
     public String resolveByContext(String content, final EvaluationContext context) {
-        return resolveByRule(content, placeholderValue -> String.valueOf(context.getVariable(placeholderValue)));
+        return this.compile(content).render(context);
+    }
+
+    /**
+     * 预编译模板，字面量片段与占位符名交替排列，渲染时单次顺序拼接
+     */
+    public static final class Template {
+        private final PlaceholderResolver resolver;
+        private final String content;
+        // literals比names多一个元素，依次交替拼接；占位符未闭合(或前后缀重叠)时为null
+        private final String[] literals;
+        // 空白占位符对应的名称为null，替换为空字符串
+        private final String[] names;
+        private final int literalLength;
+
+        private Template(PlaceholderResolver resolver, String content) {
+            this.resolver = resolver;
+            this.content = content;
+            var prefix = resolver.placeholderPrefix;
+            var suffix = resolver.placeholderSuffix;
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            boolean closed = true;
+            int position = 0;
+            int start = content.indexOf(prefix);
+            while (start != -1) {
+                int end = content.indexOf(suffix, start);
+                if (end < start + prefix.length()) {
+                    closed = false;
+                    break;
+                }
+                literals.add(content.substring(position, start));
+                var name = content.substring(start + prefix.length(), end);
+                names.add(name.trim().isEmpty() ? null : name);
+                // 替换后的内容不再参与解析，从占位符之后继续查找
+                position = end + suffix.length();
+                start = content.indexOf(prefix, position);
+            }
+            literals.add(content.substring(position));
+            this.literals = closed ? literals.toArray(new String[0]) : null;
+            this.names = closed ? names.toArray(new String[0]) : null;
+            this.literalLength = literals.stream().mapToInt(String::length).sum();
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        // 不包含需要从上下文取值的占位符
+        public boolean isStatic() {
+            return this.names != null && Arrays.stream(this.names).allMatch(Objects::isNull);
+        }
+
+        public String render(Function<String, String> rule) {
+            if (this.literals == null) {
+                return this.resolver.resolveInPlace(this.content, rule);
+            }
+            if (this.names.length == 0) {
+                return this.content;
+            }
+            StringBuilder result = new StringBuilder(this.literalLength + this.names.length * 16);
+            for (int i = 0; i < this.names.length; i++) {
+                result.append(this.literals[i]);
+                if (this.names[i] != null) {
+                    result.append(Objects.requireNonNull(rule.apply(this.names[i])));
+                }
+            }
+            return result.append(this.literals[this.names.length]).toString();
+        }
+
+        public String render(EvaluationContext context) {
+            if (this.literals == null) {
+                return this.resolver.resolveInPlace(this.content, name -> String.valueOf(context.getVariable(name)));
+            }
+            if (this.names.length == 0) {
+                return this.content;
+            }
+            StringBuilder result = new StringBuilder(this.literalLength + this.names.length * 16);
+            for (int i = 0; i < this.names.length; i++) {
+                result.append(this.literals[i]);
+                if (this.names[i] != null) {
+                    result.append(context.getVariable(this.names[i]));
+                }
+            }
+            return result.append(this.literals[this.names.length]).toString();
+        }
     }
 }
@@ -1,11 +1,18 @@
 package dev.jianmu.el;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -15,6 +22,7 @@ import java.util.stream.Collectors;
  * @create: 2021-02-20 22:05
  **/
 public class ReflectUntil {
+    private static final Logger logger = LoggerFactory.getLogger(ReflectUntil.class);
 
     private static final List<Class<?>> convertPriority = new ArrayList<>();
     static {
@@ -50,15 +58,76 @@ public class ReflectUntil {
         }
     }
 
+    /**
+     * 按类缓存反射解析结果，未找到的成员同样缓存(Optional.empty())，避免重复扫描
+     */
+    private static final ClassValue<MemberCache> memberCache = new ClassValue<>() {
+        @Override
+        protected MemberCache computeValue(Class<?> type) {
+            return new MemberCache();
+        }
+    };
+
+    private static final class MemberCache {
+        // 属性名 -> 属性读取MethodHandle
+        private final Map<String, Optional<MethodHandle>> fields = new ConcurrentHashMap<>();
+        // 方法名+参数类型 -> 匹配的方法
+        private final Map<MethodKey, Optional<Method>> methods = new ConcurrentHashMap<>();
+        // 方法 -> (Object target, Object[] args)Object 形式的MethodHandle，按方法的声明类缓存
+        private final Map<Method, MethodHandle> handles = new ConcurrentHashMap<>();
+    }
+
+    private static final class MethodKey {
+        private final String name;
+        private final Class<?>[] paramTypes;
+        private final int hash;
+
+        private MethodKey(String name, Class<?>[] paramTypes) {
+            this.name = name;
+            this.paramTypes = paramTypes;
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(paramTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MethodKey)) return false;
+            MethodKey that = (MethodKey) o;
+            return name.equals(that.name) && Arrays.equals(paramTypes, that.paramTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
     public static Object getFieldValue(Object obj, String fieldName) {
+        Class<?> clazz = obj.getClass();
+        Optional<MethodHandle> getter = memberCache.get(clazz).fields
+                .computeIfAbsent(fieldName, name -> findFieldGetter(clazz, name));
+        if (getter.isEmpty()) {
+            return null;
+        }
+        try {
+            return (Object) getter.get().invokeExact(obj);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            logger.error("属性: {} 读取失败", fieldName, e);
+            return null;
+        }
+    }
+
+    private static Optional<MethodHandle> findFieldGetter(Class<?> clazz, String fieldName) {
         try {
-            Class<?> clazz = obj.getClass();
             Field field = clazz.getDeclaredField(fieldName);
             field.setAccessible(true);
-            return field.get(obj);
+            MethodHandle getter = MethodHandles.lookup().unreflectGetter(field);
+            return Optional.of(getter.asType(MethodType.methodType(Object.class, Object.class)));
         } catch (NoSuchFieldException | IllegalAccessException e) {
-            e.printStackTrace();
-            return null;
+            logger.error("类: {} 属性: {} 无法读取", clazz.getSimpleName(), fieldName, e);
+            return Optional.empty();
         }
     }
 
@@ -104,18 +173,52 @@ public class ReflectUntil {
         throw new RuntimeException("对象: " + target + " 不支持方法： " + name);
     }
 
+    // 目标方法抛出的运行时异常与Error直接抛出，受检异常与原反射调用一样记录后返回null
     public static Object invokeMethod(Method method, Object target, Object... args) {
+        MethodHandle handle = memberCache.get(method.getDeclaringClass()).handles
+                .computeIfAbsent(method, ReflectUntil::toSpreadHandle);
+        try {
+            return (Object) handle.invokeExact(target, args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            logger.error("方法: {} 调用失败", method.getName(), e);
+            return null;
+        }
+    }
+
+    private static MethodHandle toSpreadHandle(Method method) {
         try {
             method.setAccessible(true);
-            return method.invoke(target, args);
-        } catch (InvocationTargetException | IllegalAccessException e) {
-            e.printStackTrace();
+            // 与Method.invoke一致，可变参数方法的末尾参数按数组原样传入，不再收集为数组
+            MethodHandle handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+            if (Modifier.isStatic(method.getModifiers())) {
+                // 静态方法忽略target参数
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            int parameterCount = method.getParameterCount();
+            return handle.asType(MethodType.genericMethodType(parameterCount + 1))
+                    .asSpreader(Object[].class, parameterCount);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("方法: " + method.getName() + " 无法访问", e);
         }
-        return null;
     }
 
     public static Method getMatchingMethod(final Class<?> clazz, final String name,
                                            final Class<?>... paramTypes) {
+        MethodKey key = new MethodKey(name, paramTypes.clone());
+        Map<MethodKey, Optional<Method>> methods = memberCache.get(clazz).methods;
+        Optional<Method> method = methods.get(key);
+        if (method == null) {
+            // 存在多个同等匹配的方法时抛出异常，不缓存
+            method = Optional.ofNullable(findMatchingMethod(clazz, name, paramTypes));
+            methods.putIfAbsent(key, method);
+        }
+        return method.orElse(null);
+    }
+
+    private static Method findMatchingMethod(final Class<?> clazz, final String name,
+                                             final Class<?>... paramTypes) {
         final List<Method> methods = Arrays.stream(clazz.getDeclaredMethods())
                 .filter(method -> method.getName().equals(name))
                 .collect(Collectors.toList());
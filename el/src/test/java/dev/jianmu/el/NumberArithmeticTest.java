@@ -1,12 +1,14 @@
 package dev.jianmu.el;
 
 import dev.jianmu.el.El;
+import dev.jianmu.el.antlr4.JianMuElParser;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
  * @class: NumberArithmeticTest
@@ -138,4 +140,43 @@ public class NumberArithmeticTest {
         Object result = El.eval(eq);
         assertEquals(result, new BigDecimal("-6.30"));
     }
+
+    @Test()
+    @DisplayName("整数非整除运算测试")
+    void divTest3() {
+        String eq = "(10 + 0) / 3";
+        Object result = El.eval(eq);
+        assertEquals(result, new BigDecimal("3.33"));
+    }
+
+    @Test()
+    @DisplayName("整数溢出运算测试")
+    void overflowTest() {
+        String eq = "(9223372036854775807 + 1) * 2";
+        Object result = El.eval(eq);
+        assertEquals(result, new BigDecimal("18446744073709551616"));
+    }
+
+    @Test()
+    @DisplayName("long运算溢出回退测试")
+    void longOverflowFallbackTest() {
+        // 操作数不超过18位，先进入long运算，结果溢出后回退BigDecimal运算
+        assertNull(ElOperations.longOperation(999999999999999999L, 10L, JianMuElParser.TIMES));
+        assertNull(ElOperations.longOperation(8999999999999999991L, 999999999999999999L, JianMuElParser.PLUS));
+        assertNull(ElOperations.longOperation(-8999999999999999991L, 999999999999999999L, JianMuElParser.MINUS));
+        assertEquals(El.eval("999999999999999999 * 10"), new BigDecimal("9999999999999999990"));
+        assertEquals(El.eval("999999999999999999 * 9 + 999999999999999999"), new BigDecimal("9999999999999999990"));
+        assertEquals(El.eval("(0 - 999999999999999999) * 9 - 999999999999999999"), new BigDecimal("-9999999999999999990"));
+        // 溢出后的中间结果继续参与运算
+        assertEquals(El.eval("999999999999999999 * 10 - 999999999999999999 * 10"), new BigDecimal("0"));
+    }
+
+    @Test()
+    @DisplayName("整数中间结果比较测试")
+    void compareTest() {
+        ElContext context = new ElContext();
+        context.add("count", 5);
+        Object result = El.eval(context, "${count} * 2 - 7 > 3");
+        assertEquals(result, false);
+    }
 }
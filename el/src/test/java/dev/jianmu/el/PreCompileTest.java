@@ -5,6 +5,12 @@ import dev.jianmu.el.ElContext;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * @class: PreCompileTest
  * @description: 表达式预编译测试
@@ -22,4 +28,27 @@ public class PreCompileTest {
         Object res = exp.eval(this.context);
         System.out.println(res);
     }
+
+    @Test
+    @DisplayName("同一预编译表达式多上下文求值测试")
+    void reuseTest() {
+        El exp = new El("${a} * 10 + \"-\" + `${b}/${c}`");
+        ElContext context1 = new ElContext();
+        context1.add("a", 2);
+        context1.add("b", "x");
+        ElContext context2 = new ElContext();
+        context2.add("a", new BigDecimal("1.5"));
+        context2.add("c", true);
+        assertEquals(exp.eval(context1), "20-x/${c}");
+        assertEquals(exp.eval(context2), "15.0-${b}/true");
+    }
+
+    @Test
+    @DisplayName("静态表达式判断测试")
+    void staticTest() {
+        assertTrue(new El("(1 + 2) * 3 > 5").isStatic());
+        assertTrue(new El("`echo hello`").isStatic());
+        assertFalse(new El("${a} + 1").isStatic());
+        assertFalse(new El("`echo ${a}`").isStatic());
+    }
 }
@@ -0,0 +1,82 @@
+package dev.jianmu.el;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @class: ReflectUntilTest
+ * @description: 反射工具类测试
+ * @author: Ethan Liu
+ * @create: 2021-10-19 15:02
+ **/
+@DisplayName("反射工具类测试")
+public class ReflectUntilTest {
+    private final SampleObj sampleObj = new SampleObj("jianmu", 3);
+
+    @Test
+    @DisplayName("属性读取测试")
+    void fieldTest() {
+        assertEquals(ReflectUntil.getFieldValue(this.sampleObj, "name"), "jianmu");
+        assertEquals(ReflectUntil.getFieldValue(this.sampleObj, "age"), 3);
+        assertEquals(ReflectUntil.getFieldValue(new SampleObj("el", 5), "age"), 5);
+    }
+
+    @Test
+    @DisplayName("不存在的属性测试")
+    void missingFieldTest() {
+        assertNull(ReflectUntil.getFieldValue(this.sampleObj, "unknown"));
+        assertNull(ReflectUntil.getFieldValue(this.sampleObj, "unknown"));
+    }
+
+    @Test
+    @DisplayName("方法调用参数类型转换测试")
+    void invokeMethodTest() {
+        var obj = new SampleObj("jianmu", 3);
+        ReflectUntil.invokeMethod(obj, "setAge", List.of(new BigDecimal("7")));
+        assertEquals(ReflectUntil.invokeMethod(obj, "getAge", List.of()), 7);
+        ReflectUntil.invokeMethod(obj, "setName", List.of("el"));
+        assertEquals(ReflectUntil.invokeMethod(obj, "getName", List.of()), "el");
+    }
+
+    @Test
+    @DisplayName("可变参数方法调用测试")
+    void varargsMethodTest() {
+        // 末尾参数与Method.invoke一样按数组原样传入
+        var method = ReflectUntil.getMatchingMethod(SampleObj.class, "join", String.class, String[].class);
+        assertEquals(ReflectUntil.invokeMethod(method, this.sampleObj, "-", new String[]{"a", "b"}), "a-b");
+        assertEquals(ReflectUntil.invokeMethod(method, this.sampleObj, "-", new String[0]), "");
+        assertEquals(ReflectUntil.invokeMethod(this.sampleObj, "join", List.of(",", new String[]{"x", "y", "z"})), "x,y,z");
+    }
+
+    @Test
+    @DisplayName("方法解析缓存测试")
+    void matchingMethodCacheTest() {
+        var method = ReflectUntil.getMatchingMethod(SampleObj.class, "setName", String.class);
+        assertSame(method, ReflectUntil.getMatchingMethod(SampleObj.class, "setName", String.class));
+        assertNull(ReflectUntil.getMatchingMethod(SampleObj.class, "setName", Boolean.class));
+        assertNull(ReflectUntil.getMatchingMethod(SampleObj.class, "setName", Boolean.class));
+    }
+
+    @Test
+    @DisplayName("目标方法异常抛出测试")
+    void methodExceptionTest() {
+        var e = assertThrows(IllegalStateException.class,
+                () -> ReflectUntil.invokeMethod(this.sampleObj, "fail", List.of("boom")));
+        assertEquals(e.getMessage(), "boom");
+        assertNull(ReflectUntil.invokeMethod(this.sampleObj, "failChecked", List.of("boom")));
+    }
+
+    @Test
+    @DisplayName("不支持的方法测试")
+    void missingMethodTest() {
+        assertThrows(RuntimeException.class, () -> ReflectUntil.invokeMethod(this.sampleObj, "unknown", List.of()));
+    }
+}
@@ -33,4 +33,16 @@ public class SampleObj implements ElVariable {
     public void setAge(int age) {
         this.age = age;
     }
+
+    public String fail(String message) {
+        throw new IllegalStateException(message);
+    }
+
+    public String failChecked(String message) throws Exception {
+        throw new Exception(message);
+    }
+
+    public String join(String delimiter, String... elements) {
+        return String.join(delimiter, elements);
+    }
 }
@@ -77,4 +77,23 @@ public class StringTemplateTest {
         Object result = El.eval(this.context, eq);
         assertEquals(result, "aaa != 32.3 == ${c}");
     }
+
+    @Test
+    @DisplayName("空白占位符替换测试")
+    void tempTest7() {
+        this.context.add("a", "aaa");
+        String eq = "`${a}${ }-${}`";
+        Object result = El.eval(this.context, eq);
+        assertEquals(result, "aaa-");
+    }
+
+    @Test
+    @DisplayName("预编译模版重复渲染测试")
+    void tempTest8() {
+        var template = PlaceholderResolver.getDefaultResolver().compile("echo ${a} && echo ${b}");
+        this.context.add("a", "aaa");
+        assertEquals(template.render(this.context), "echo aaa && echo ${b}");
+        this.context.add("b", new BigDecimal("2"));
+        assertEquals(template.render(this.context), "echo aaa && echo 2");
+    }
 }
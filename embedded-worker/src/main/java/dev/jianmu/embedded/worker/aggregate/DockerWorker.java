@@ -17,6 +17,9 @@ public interface DockerWorker {
 
     void resumeTask(DockerTask dockerTask, BufferedWriter logWriter);
 
+    // 强制停止任务容器，容器不存在时返回false
+    boolean terminateTask(String taskInstanceId);
+
     void deleteImage(String imageName);
 
     void updateImage(String imageName);
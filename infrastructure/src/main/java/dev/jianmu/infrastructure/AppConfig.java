@@ -1,8 +1,23 @@
 package dev.jianmu.infrastructure;
 
+import dev.jianmu.infrastructure.codec.CodecProperties;
+import dev.jianmu.infrastructure.mailbox.MailboxProperties;
+import dev.jianmu.infrastructure.timer.HashedWheelTimer;
+import dev.jianmu.infrastructure.timer.TimerProperties;
+import dev.jianmu.infrastructure.typehandler.BlobTypeHandler;
+import dev.jianmu.infrastructure.typehandler.CredentialTypeHandler;
+import dev.jianmu.infrastructure.typehandler.NodeInfoTypeHandler;
+import dev.jianmu.infrastructure.typehandler.NodeParameterSetTypeHandler;
+import dev.jianmu.infrastructure.typehandler.NodeSetTypeHandler;
+import dev.jianmu.infrastructure.typehandler.ParameterSetTypeHandler;
+import dev.jianmu.infrastructure.typehandler.PayloadTypeHandler;
+import dev.jianmu.infrastructure.typehandler.TaskInstanceListTypeHandler;
+import dev.jianmu.infrastructure.typehandler.TaskInstanceTypeHandler;
 import dev.jianmu.task.service.InstanceDomainService;
 import dev.jianmu.workflow.service.ParameterDomainService;
 import dev.jianmu.workflow.service.WorkflowInstanceDomainService;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+import org.mybatis.spring.boot.autoconfigure.ConfigurationCustomizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
@@ -16,6 +31,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import java.lang.reflect.Method;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @class: AppConfig
@@ -74,6 +90,59 @@ public class AppConfig implements AsyncConfigurer, WebMvcConfigurer {
         }
     }
 
+    @Bean
+    public ThreadPoolTaskExecutor instanceMailboxExecutor(MailboxProperties mailboxProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // 邮箱自身保证同一流程实例串行，线程池使用无界队列，不能拒绝任务
+        executor.setCorePoolSize(mailboxProperties.getPoolSize());
+        executor.setMaxPoolSize(mailboxProperties.getPoolSize());
+        executor.setThreadNamePrefix("instanceMailbox-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor timeoutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // 超时处理需要停止容器，不能在时间轮工作线程中执行
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setThreadNamePrefix("timeout-");
+        return executor;
+    }
+
+    @Bean(destroyMethod = "stop")
+    public HashedWheelTimer hashedWheelTimer(TimerProperties timerProperties) {
+        return new HashedWheelTimer(
+                timerProperties.getTickDuration().toMillis(),
+                TimeUnit.MILLISECONDS,
+                timerProperties.getTicksPerWheel(),
+                this.timeoutExecutor()
+        );
+    }
+
+    @Bean
+    public ConfigurationCustomizer blobTypeHandlerCustomizer(CodecProperties codecProperties) {
+        var format = codecProperties.getFormat();
+        return configuration -> {
+            var registry = configuration.getTypeHandlerRegistry();
+            // 按配置的写入格式创建Blob类型转换器，Mapper中按类型转换器类引用登记的实例
+            registerBlobTypeHandler(registry, new NodeSetTypeHandler(format));
+            registerBlobTypeHandler(registry, new ParameterSetTypeHandler(format));
+            registerBlobTypeHandler(registry, new NodeParameterSetTypeHandler(format));
+            registerBlobTypeHandler(registry, new TaskInstanceListTypeHandler(format));
+            registerBlobTypeHandler(registry, new TaskInstanceTypeHandler(format));
+            registerBlobTypeHandler(registry, new NodeInfoTypeHandler(format));
+            registerBlobTypeHandler(registry, new CredentialTypeHandler(format));
+            registerBlobTypeHandler(registry, new PayloadTypeHandler(format));
+        };
+    }
+
+    // 不指定Java类型，只按类型转换器类登记，避免成为Set、List等类型的默认转换器
+    private static <T> void registerBlobTypeHandler(TypeHandlerRegistry registry, BlobTypeHandler<T> typeHandler) {
+        registry.register((Class<T>) null, typeHandler);
+    }
+
     @Bean
     public ThreadPoolTaskExecutor mvcTaskExecutor() {
         ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
@@ -0,0 +1,67 @@
+package dev.jianmu.infrastructure.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * @class: BlobCodec
+ * @description: Blob字段编解码器，按调用方传入的格式写入，读取时按格式头识别格式
+ * 格式头为标记字节加格式ID两个字节，JSON文本不会以标记字节开头，没有格式头的数据按旧版JSON读取
+ * @author: Ethan Liu
+ * @create: 2021-10-29 10:40
+ **/
+public class BlobCodec<T> {
+    static final int MAGIC = 0x01;
+
+    private final ObjectReader jsonReader;
+    private final ObjectWriter jsonWriter;
+    private final ObjectReader smileReader;
+    private final ObjectWriter smileWriter;
+
+    // 由CodecRegistry按持久化类型创建，读写器预先解析好类型与序列化器
+    BlobCodec(JavaType javaType, ObjectMapper jsonMapper, ObjectMapper smileMapper) {
+        this.jsonReader = jsonMapper.readerFor(javaType);
+        this.jsonWriter = jsonMapper.writerFor(javaType);
+        this.smileReader = smileMapper.readerFor(javaType);
+        this.smileWriter = smileMapper.writerFor(javaType);
+    }
+
+    public void write(T value, BlobFormat format, OutputStream out) throws IOException {
+        // JSON格式不写格式头，保证旧版本可以读取
+        if (format != BlobFormat.JSON) {
+            out.write(MAGIC);
+            out.write(format.getId());
+        }
+        this.writer(format).writeValue(out, value);
+    }
+
+    // 流为空时返回null，读取结束后关闭流
+    public T read(InputStream in) throws IOException {
+        var input = new PushbackInputStream(in, 1);
+        int first = input.read();
+        if (first == -1) {
+            input.close();
+            return null;
+        }
+        if (first != MAGIC) {
+            input.unread(first);
+            return this.jsonReader.readValue(input);
+        }
+        return this.reader(BlobFormat.of(input.read())).readValue(input);
+    }
+
+    private ObjectReader reader(BlobFormat format) {
+        return format == BlobFormat.SMILE ? this.smileReader : this.jsonReader;
+    }
+
+    private ObjectWriter writer(BlobFormat format) {
+        return format == BlobFormat.SMILE ? this.smileWriter : this.jsonWriter;
+    }
+}
@@ -0,0 +1,33 @@
+package dev.jianmu.infrastructure.codec;
+
+/**
+ * @class: BlobFormat
+ * @description: Blob字段序列化格式，ID写入格式头，只能追加不能修改
+ * @author: Ethan Liu
+ * @create: 2021-10-29 10:00
+ **/
+public enum BlobFormat {
+    // 旧版JSON格式，写入时不带格式头，回滚到旧版本时使用
+    JSON(0),
+    // Smile二进制格式，类型ID使用TypeIdTable中登记的短ID
+    SMILE(1);
+
+    private final int id;
+
+    BlobFormat(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public static BlobFormat of(int id) {
+        for (BlobFormat format : values()) {
+            if (format.id == id) {
+                return format;
+            }
+        }
+        throw new RuntimeException("未知的Blob序列化格式: " + id);
+    }
+}
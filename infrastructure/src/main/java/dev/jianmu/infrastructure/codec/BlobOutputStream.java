@@ -0,0 +1,22 @@
+package dev.jianmu.infrastructure.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+/**
+ * @class: BlobOutputStream
+ * @description: 序列化输出缓冲，写完后直接以输入流交给JDBC，不再复制字节数组
+ * @author: Ethan Liu
+ * @create: 2021-10-29 10:10
+ **/
+public class BlobOutputStream extends ByteArrayOutputStream {
+
+    public BlobOutputStream() {
+        super(512);
+    }
+
+    public InputStream toInputStream() {
+        return new ByteArrayInputStream(this.buf, 0, this.count);
+    }
+}
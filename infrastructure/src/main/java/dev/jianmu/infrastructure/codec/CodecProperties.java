@@ -0,0 +1,20 @@
+package dev.jianmu.infrastructure.codec;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @class: CodecProperties
+ * @description: Blob字段序列化配置项
+ * @author: Ethan Liu
+ * @create: 2021-10-29 10:05
+ **/
+@Data
+@Component
+@ConfigurationProperties(prefix = "jianmu.codec")
+public class CodecProperties {
+    // 写入格式，读取时按格式头识别，与写入格式无关
+    // 默认JSON以兼容只能读取JSON的旧版本，所有节点升级后再切换为SMILE
+    private BlobFormat format = BlobFormat.JSON;
+}
@@ -0,0 +1,116 @@
+package dev.jianmu.infrastructure.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.jianmu.embedded.worker.aggregate.spec.ContainerSpec;
+import dev.jianmu.eventbridge.aggregate.Payload;
+import dev.jianmu.hub.intergration.aggregate.NodeParameter;
+import dev.jianmu.infrastructure.jackson2.UnmodifiableListDeserializer;
+import dev.jianmu.infrastructure.jackson2.UnmodifiableSetDeserializer;
+import dev.jianmu.project.aggregate.Credential;
+import dev.jianmu.task.aggregate.NodeInfo;
+import dev.jianmu.workflow.aggregate.definition.GlobalParameter;
+import dev.jianmu.workflow.aggregate.definition.Node;
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @class: CodecRegistry
+ * @description: 编解码注册表，按持久化类型预先创建不可变的ObjectReader/ObjectWriter，全局共享
+ * 读写器不可变且与写入格式无关，DSL解析等非Spring管理的代码也直接使用，因此使用静态注册表
+ * @author: Ethan Liu
+ * @create: 2021-10-29 16:00
+ **/
+public final class CodecRegistry {
+    // Blob字段使用的ObjectMapper，JSON为旧版格式，两种格式注册相同的模块
+    private static final ObjectMapper BLOB_JSON_MAPPER = blobMapper(new ObjectMapper());
+    private static final ObjectMapper BLOB_SMILE_MAPPER = blobMapper(new ObjectMapper(
+            // 重复出现的短字符串值（类型ID、状态等）写为back reference
+            SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build()
+    ));
+    // 不带类型信息的JSON与YAML
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
+
+    // Blob字段
+    public static final BlobCodec<Set<Node>> NODES = blobCodec(new TypeReference<Set<Node>>() {
+    });
+    public static final BlobCodec<Set<GlobalParameter>> GLOBAL_PARAMETERS = blobCodec(new TypeReference<Set<GlobalParameter>>() {
+    });
+    public static final BlobCodec<Set<NodeParameter>> NODE_PARAMETERS = blobCodec(new TypeReference<Set<NodeParameter>>() {
+    });
+    public static final BlobCodec<List<AsyncTaskInstance>> TASK_INSTANCES = blobCodec(new TypeReference<List<AsyncTaskInstance>>() {
+    });
+    public static final BlobCodec<AsyncTaskInstance> TASK_INSTANCE = blobCodec(new TypeReference<AsyncTaskInstance>() {
+    });
+    public static final BlobCodec<NodeInfo> NODE_INFO = blobCodec(new TypeReference<NodeInfo>() {
+    });
+    public static final BlobCodec<Credential> CREDENTIAL = blobCodec(new TypeReference<Credential>() {
+    });
+    public static final BlobCodec<Payload> PAYLOAD = blobCodec(new TypeReference<Payload>() {
+    });
+
+    // 任务结果文件
+    public static final ObjectReader RESULT_READER = JSON_MAPPER.readerFor(new TypeReference<Map<String, Object>>() {
+    });
+    // 节点定义中的镜像规格，未知字段忽略，与Spring默认配置一致
+    public static final ObjectReader CONTAINER_SPEC_READER = JSON_MAPPER.readerFor(ContainerSpec.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    public static final ObjectWriter CONTAINER_SPEC_WRITER = JSON_MAPPER.writerFor(ContainerSpec.class);
+
+    private CodecRegistry() {
+    }
+
+    // DSL等非持久化类型的YAML读取器，调用方应保存返回的读取器
+    public static ObjectReader yamlReaderFor(Class<?> type) {
+        return YAML_MAPPER.readerFor(type);
+    }
+
+    private static <T> BlobCodec<T> blobCodec(TypeReference<T> type) {
+        JavaType javaType = BLOB_JSON_MAPPER.getTypeFactory().constructType(type);
+        return new BlobCodec<>(javaType, BLOB_JSON_MAPPER, BLOB_SMILE_MAPPER);
+    }
+
+    // 基准测试在同一包中复用该配置对比不同的类型ID写法
+    @SuppressWarnings("unchecked")
+    static ObjectMapper blobMapper(ObjectMapper mapper) {
+        if (mapper.getFactory() instanceof SmileFactory) {
+            mapper.setDefaultTyping(TypeIdTable.typeResolverBuilder());
+        } else {
+            mapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        }
+        // 注册不可变集合自定义反序列化器
+        SimpleModule module = new SimpleModule();
+        Map<String, String> aMap = new HashMap<>();
+        Class setType1 = Set.of(1).getClass();
+        Class setType2 = Set.of().getClass();
+        Class setType3 = aMap.keySet().getClass();
+        Class listType1 = List.of(1).getClass();
+        Class listType2 = List.of().getClass();
+        module.addDeserializer(setType1, new UnmodifiableSetDeserializer());
+        module.addDeserializer(setType2, new UnmodifiableSetDeserializer());
+        module.addDeserializer(setType3, new UnmodifiableSetDeserializer());
+        module.addDeserializer(listType1, new UnmodifiableListDeserializer());
+        module.addDeserializer(listType2, new UnmodifiableListDeserializer());
+        mapper.registerModule(module);
+        // 注册JavaTime模块来支持LocalDataTime类型
+        mapper.registerModule(new JavaTimeModule());
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        return mapper;
+    }
+}
@@ -0,0 +1,125 @@
+package dev.jianmu.infrastructure.codec;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import dev.jianmu.eventbridge.aggregate.Payload;
+import dev.jianmu.hub.intergration.aggregate.NodeParameter;
+import dev.jianmu.project.aggregate.Credential;
+import dev.jianmu.task.aggregate.NodeInfo;
+import dev.jianmu.workflow.aggregate.definition.*;
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * @class: TypeIdTable
+ * @description: 类型ID登记表，默认类型信息中登记过的类型写入短ID，未登记的类型仍写入完整类名
+ * 读取时短ID与完整类名均可识别，ID一旦写入数据库就不能修改或复用，只能追加
+ * @author: Ethan Liu
+ * @create: 2021-10-29 10:20
+ **/
+final class TypeIdTable {
+    private static final Map<Class<?>, String> IDS = new HashMap<>();
+    private static final Map<String, Class<?>> TYPES = new HashMap<>();
+
+    static {
+        // 流程定义
+        register("n.start", Start.class);
+        register("n.end", End.class);
+        register("n.task", AsyncTask.class);
+        register("n.cond", Condition.class);
+        register("n.switch", SwitchGateway.class);
+        register("p.task", TaskParameter.class);
+        register("p.global", GlobalParameter.class);
+        // 流程实例
+        register("i.task", AsyncTaskInstance.class);
+        // 节点定义与其他聚合
+        register("t.info", NodeInfo.class);
+        register("h.param", NodeParameter.class);
+        register("c.credential", Credential.class);
+        register("e.payload", Payload.class);
+        // 集合类型，不可变集合的实现类不是公开类，通过实例获取
+        register("u.hashSet", HashSet.class);
+        register("u.linkedHashSet", LinkedHashSet.class);
+        register("u.arrayList", ArrayList.class);
+        register("u.hashMap", HashMap.class);
+        register("u.linkedHashMap", LinkedHashMap.class);
+        register("u.set12", Set.of(1).getClass());
+        register("u.setN", Set.of().getClass());
+        register("u.list12", List.of(1).getClass());
+        register("u.listN", List.of().getClass());
+        register("u.map1", Map.of(1, 1).getClass());
+        register("u.mapN", Map.of().getClass());
+        register("u.keySet", new HashMap<>().keySet().getClass());
+    }
+
+    private TypeIdTable() {
+    }
+
+    private static void register(String id, Class<?> type) {
+        if (IDS.put(type, id) != null || TYPES.put(id, type) != null) {
+            throw new RuntimeException("类型ID重复登记: " + id);
+        }
+    }
+
+    // 与activateDefaultTyping(NON_FINAL)相同的类型信息规则，只替换类型ID
+    static TypeResolverBuilder<?> typeResolverBuilder() {
+        return new Builder()
+                .init(JsonTypeInfo.Id.CLASS, null)
+                .inclusion(JsonTypeInfo.As.WRAPPER_ARRAY);
+    }
+
+    private static final class Builder extends ObjectMapper.DefaultTypeResolverBuilder {
+        private static final long serialVersionUID = 1L;
+
+        private Builder() {
+            super(ObjectMapper.DefaultTyping.NON_FINAL, LaissezFaireSubTypeValidator.instance);
+        }
+
+        @Override
+        protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType,
+                                            PolymorphicTypeValidator subtypeValidator, Collection<NamedType> subtypes,
+                                            boolean forSer, boolean forDeser) {
+            return new Resolver(baseType, config.getTypeFactory(), subtypeValidator);
+        }
+    }
+
+    private static final class Resolver extends ClassNameIdResolver {
+
+        private Resolver(JavaType baseType, TypeFactory typeFactory, PolymorphicTypeValidator ptv) {
+            super(baseType, typeFactory, ptv);
+        }
+
+        @Override
+        public String idFromValue(Object value) {
+            var id = IDS.get(value.getClass());
+            return id != null ? id : super.idFromValue(value);
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> type) {
+            var id = IDS.get(type);
+            return id != null ? id : super.idFromValueAndType(value, type);
+        }
+
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+            var type = TYPES.get(id);
+            if (type == null) {
+                return super.typeFromId(context, id);
+            }
+            return context.getTypeFactory().constructSpecializedType(this._baseType, type);
+        }
+    }
+}
@@ -412,6 +412,23 @@ public class EmbeddedDockerWorker implements DockerWorker {
         );
     }
 
+    @Override
+    public boolean terminateTask(String taskInstanceId) {
+        // 容器以任务实例ID命名，停止后runTask/resumeTask等待结束，按非0退出码完成任务
+        try {
+            this.dockerClient.killContainerCmd(taskInstanceId).exec();
+            logger.info("已停止任务容器: {}", taskInstanceId);
+            return true;
+        } catch (NotFoundException e) {
+            logger.info("任务容器不存在: {}", taskInstanceId);
+            return false;
+        } catch (RuntimeException e) {
+            // 容器已退出时Docker返回409
+            logger.warn("任务容器停止失败: {} {}", taskInstanceId, e.getMessage());
+            return false;
+        }
+    }
+
     @Override
     public void createVolume(String volumeName) {
         // 创建Volume
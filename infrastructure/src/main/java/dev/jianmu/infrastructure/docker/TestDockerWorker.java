@@ -40,6 +40,12 @@ public class TestDockerWorker implements DockerWorker {
         logger.info("resumeTask: {}", dockerTask);
     }
 
+    @Override
+    public boolean terminateTask(String taskInstanceId) {
+        logger.info("terminateTask: {}", taskInstanceId);
+        return false;
+    }
+
     @Override
     public void deleteImage(String imageName) {
         logger.info("deleteImage: {}", imageName);
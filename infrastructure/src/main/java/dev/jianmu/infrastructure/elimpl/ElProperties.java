@@ -0,0 +1,27 @@
+package dev.jianmu.infrastructure.elimpl;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @class: ElProperties
+ * @description: 表达式引擎配置项
+ * @author: Ethan Liu
+ * @create: 2021-10-18 10:12
+ **/
+@Data
+@Component
+@ConfigurationProperties(prefix = "jianmu.el")
+public class ElProperties {
+    // 预编译表达式缓存最大条目数
+    private long cacheMaximumSize = 10000;
+    // 预编译表达式缓存空闲过期时间
+    private Duration cacheExpireAfterAccess = Duration.ofHours(1);
+    // 流程实例参数上下文缓存最大实例数
+    private long contextCacheMaximumSize = 1000;
+    // 流程实例参数上下文缓存空闲过期时间
+    private Duration contextCacheExpireAfterAccess = Duration.ofHours(2);
+}
@@ -1,10 +1,14 @@
 package dev.jianmu.infrastructure.elimpl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import dev.jianmu.el.El;
 import dev.jianmu.workflow.el.EvaluationContext;
 import dev.jianmu.workflow.el.EvaluationResult;
 import dev.jianmu.workflow.el.Expression;
 import dev.jianmu.workflow.el.ExpressionLanguage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -17,9 +21,22 @@ import org.springframework.stereotype.Service;
 @Service
 @Slf4j
 public class ExpressionLanguageWarp implements ExpressionLanguage {
+    // 预编译表达式缓存，以表达式原文为Key
+    private final Cache<String, El> expressionCache;
+
+    public ExpressionLanguageWarp(ElProperties elProperties, MeterRegistry meterRegistry) {
+        this.expressionCache = Caffeine.newBuilder()
+                .maximumSize(elProperties.getCacheMaximumSize())
+                .expireAfterAccess(elProperties.getCacheExpireAfterAccess())
+                .recordStats()
+                .build();
+        // 注册缓存命中率等指标
+        CaffeineCacheMetrics.monitor(meterRegistry, this.expressionCache, "el.expression");
+    }
+
     @Override
     public Expression parseExpression(String expression) {
-        return new El(expression);
+        return this.expressionCache.get(expression, El::new);
     }
 
     @Override
@@ -2,11 +2,9 @@ package dev.jianmu.infrastructure.jackson2;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -20,22 +18,29 @@ import java.util.List;
  * @create: 2021-03-21 16:11
  **/
 public class UnmodifiableListDeserializer extends JsonDeserializer<List> {
+
     @Override
     public List deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException, JsonProcessingException {
-        ObjectMapper mapper = (ObjectMapper) jsonParser.getCodec();
-        JsonNode node = mapper.readTree(jsonParser);
+        // 元素按Object读取，具体类型由默认类型信息确定，直接从Parser流式读取，不再经过JsonNode
+        JsonDeserializer<Object> deserializer = deserializationContext.findRootValueDeserializer(
+                deserializationContext.constructType(Object.class)
+        );
         List<Object> result = new ArrayList<>();
-        if (node != null) {
-            if (node instanceof ArrayNode) {
-                ArrayNode arrayNode = (ArrayNode) node;
-                for (JsonNode elementNode : arrayNode) {
-                    result.add(mapper.readValue(elementNode.traverse(mapper), Object.class));
-                }
-            }
-            else {
-                result.add(mapper.readValue(node.traverse(mapper), Object.class));
+        if (jsonParser.isExpectedStartArrayToken()) {
+            while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                result.add(readElement(jsonParser, deserializationContext, deserializer));
             }
+        } else {
+            result.add(readElement(jsonParser, deserializationContext, deserializer));
         }
         return Collections.unmodifiableList(result);
     }
+
+    private static Object readElement(JsonParser jsonParser, DeserializationContext deserializationContext,
+                                      JsonDeserializer<Object> deserializer) throws IOException {
+        if (jsonParser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return deserializer.deserialize(jsonParser, deserializationContext);
+    }
 }
@@ -2,16 +2,13 @@ package dev.jianmu.infrastructure.jackson2;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -24,21 +21,26 @@ public class UnmodifiableSetDeserializer extends JsonDeserializer<Set> {
 
     @Override
     public Set deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException, JsonProcessingException {
-        ObjectMapper mapper = (ObjectMapper) jsonParser.getCodec();
-        JsonNode node = mapper.readTree(jsonParser);
+        // 元素按Object读取，具体类型由默认类型信息确定，直接从Parser流式读取，不再经过JsonNode
+        JsonDeserializer<Object> deserializer = deserializationContext.findRootValueDeserializer(
+                deserializationContext.constructType(Object.class)
+        );
         Set<Object> resultSet = new HashSet<>();
-        if (node != null) {
-            if (node instanceof ArrayNode) {
-                ArrayNode arrayNode = (ArrayNode) node;
-                Iterator<JsonNode> nodeIterator = arrayNode.iterator();
-                while (nodeIterator.hasNext()) {
-                    JsonNode elementNode = nodeIterator.next();
-                    resultSet.add(mapper.readValue(elementNode.traverse(mapper), Object.class));
-                }
-            } else {
-                resultSet.add(mapper.readValue(node.traverse(mapper), Object.class));
+        if (jsonParser.isExpectedStartArrayToken()) {
+            while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                resultSet.add(readElement(jsonParser, deserializationContext, deserializer));
             }
+        } else {
+            resultSet.add(readElement(jsonParser, deserializationContext, deserializer));
         }
         return Collections.unmodifiableSet(resultSet);
     }
+
+    private static Object readElement(JsonParser jsonParser, DeserializationContext deserializationContext,
+                                      JsonDeserializer<Object> deserializer) throws IOException {
+        if (jsonParser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return deserializer.deserialize(jsonParser, deserializationContext);
+    }
 }
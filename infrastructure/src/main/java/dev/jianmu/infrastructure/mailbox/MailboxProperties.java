@@ -0,0 +1,23 @@
+package dev.jianmu.infrastructure.mailbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @class: MailboxProperties
+ * @description: 流程实例命令邮箱配置项
+ * @author: Ethan Liu
+ * @create: 2021-10-25 14:20
+ **/
+@Data
+@Component
+@ConfigurationProperties(prefix = "jianmu.mailbox")
+public class MailboxProperties {
+    // 是否按流程实例串行执行命令，关闭时直接在调用线程执行
+    private boolean enabled = true;
+    // 邮箱共享线程池大小
+    private int poolSize = 10;
+    // 单个邮箱每次调度最多连续执行的命令数，超过后让出线程
+    private int throughput = 10;
+}
@@ -20,6 +20,10 @@ public interface ProjectMapper {
     @Delete("delete from jianmu_project where workflow_ref = #{workflowRef}")
     void deleteByWorkflowRef(String workflowRef);
 
+    // 锁定项目行直到事务结束
+    @Select("select id from jianmu_project where workflow_ref = #{workflowRef} for update")
+    Optional<String> lockByWorkflowRef(String workflowRef);
+
     @Update("update jianmu_project set dsl_type = #{dslType}, event_bridge_id = #{eventBridgeId}, trigger_type = #{triggerType}, workflow_name = #{workflowName}, workflow_version = #{workflowVersion}, steps = #{steps}, dsl_text = #{dslText} , last_modified_by = #{lastModifiedBy}, last_modified_time = #{lastModifiedTime} " +
             "where workflow_ref = #{workflowRef}")
     void updateByWorkflowRef(Project project);
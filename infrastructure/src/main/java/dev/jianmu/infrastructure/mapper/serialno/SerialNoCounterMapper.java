@@ -0,0 +1,27 @@
+package dev.jianmu.infrastructure.mapper.serialno;
+
+import org.apache.ibatis.annotations.*;
+
+/**
+ * @class: SerialNoCounterMapper
+ * @description: 序号计数器DB映射接口
+ * @author: Ethan Liu
+ * @create: 2021-10-27 15:10
+ **/
+public interface SerialNoCounterMapper {
+    @Update("update serial_no_counter set current_value = current_value + 1 where counter_key = #{counterKey}")
+    int increment(String counterKey);
+
+    @Insert("insert into serial_no_counter(counter_key, workflow_ref, current_value) values(#{counterKey}, #{workflowRef}, 1)")
+    void add(@Param("counterKey") String counterKey, @Param("workflowRef") String workflowRef);
+
+    @Select("select current_value from serial_no_counter where counter_key = #{counterKey}")
+    int getValue(String counterKey);
+
+    @Delete("delete from serial_no_counter where workflow_ref = #{workflowRef}")
+    void deleteByWorkflowRef(String workflowRef);
+
+    // 按计数器Key前缀删除，使用主键范围扫描
+    @Delete("delete from serial_no_counter where counter_key like concat(#{prefix}, '%')")
+    void deleteByKeyPrefix(String prefix);
+}
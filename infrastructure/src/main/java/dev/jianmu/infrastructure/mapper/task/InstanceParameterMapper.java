@@ -63,4 +63,14 @@ public interface InstanceParameterMapper {
     @Result(column = "trigger_id", property = "triggerId")
     @Result(column = "parameter_id", property = "parameterId")
     List<InstanceParameter> findOutputParamByBusinessIdAndTriggerId(@Param("businessId") String businessId, @Param("triggerId") String triggerId);
+
+    @Select("select * from task_instance_parameter where business_id = #{businessId} and trigger_id = #{triggerId} and async_task_ref = #{asyncTaskRef} and type = 'OUTPUT'")
+    @Result(column = "instance_id", property = "instanceId")
+    @Result(column = "serial_no", property = "serialNo")
+    @Result(column = "def_key", property = "defKey")
+    @Result(column = "async_task_ref", property = "asyncTaskRef")
+    @Result(column = "business_id", property = "businessId")
+    @Result(column = "trigger_id", property = "triggerId")
+    @Result(column = "parameter_id", property = "parameterId")
+    List<InstanceParameter> findOutputParamByBusinessIdAndTriggerIdAndAsyncTaskRef(@Param("businessId") String businessId, @Param("triggerId") String triggerId, @Param("asyncTaskRef") String asyncTaskRef);
 }
@@ -1,5 +1,6 @@
 package dev.jianmu.infrastructure.mapper.task;
 
+import dev.jianmu.infrastructure.mybatis.task.TaskInstanceSummary;
 import dev.jianmu.infrastructure.typehandler.NodeInfoTypeHandler;
 import dev.jianmu.task.aggregate.TaskInstance;
 import org.apache.ibatis.annotations.*;
@@ -40,10 +41,11 @@ public interface TaskInstanceMapper {
     @Result(column = "end_time", property = "endTime")
     Optional<TaskInstance> findById(String instanceId);
 
-    @Select("select * from task_instance where business_id = #{businessId} order by start_time asc")
+    // 列表查询只加载摘要字段，节点信息与任务结果只在详情中加载
+    @Select("select id, serial_no, def_key, async_task_ref, workflow_ref, workflow_version, business_id, trigger_id, start_time, end_time, status " +
+            "from task_instance where business_id = #{businessId} order by start_time asc")
     @Result(column = "serial_no", property = "serialNo")
     @Result(column = "def_key", property = "defKey")
-    @Result(column = "node_info", property = "nodeInfo", typeHandler = NodeInfoTypeHandler.class)
     @Result(column = "async_task_ref", property = "asyncTaskRef")
     @Result(column = "workflow_ref", property = "workflowRef")
     @Result(column = "workflow_version", property = "workflowVersion")
@@ -51,7 +53,7 @@ public interface TaskInstanceMapper {
     @Result(column = "trigger_id", property = "triggerId")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
-    List<TaskInstance> findByBusinessId(String businessId);
+    List<TaskInstanceSummary> findByBusinessId(String businessId);
 
     @Select("select * from task_instance where status = 'RUNNING'")
     @Result(column = "serial_no", property = "serialNo")
@@ -79,6 +81,10 @@ public interface TaskInstanceMapper {
     @Result(column = "end_time", property = "endTime")
     List<TaskInstance> findByAsyncTaskRefAndBusinessId(@Param("asyncTaskRef") String asyncTaskRef, @Param("businessId") String businessId);
 
+    @Select("select count(*) from task_instance where async_task_ref = #{asyncTaskRef} and business_id = #{businessId} " +
+            "and status in ('WAITING', 'RUNNING')")
+    int countActiveByAsyncTaskRefAndBusinessId(@Param("asyncTaskRef") String asyncTaskRef, @Param("businessId") String businessId);
+
 
     @Select("select * from task_instance")
     @Result(column = "serial_no", property = "serialNo")
@@ -0,0 +1,41 @@
+package dev.jianmu.infrastructure.mapper.workflow;
+
+import dev.jianmu.workflow.aggregate.process.QueuedTrigger;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Optional;
+
+/**
+ * @class: QueuedTriggerMapper
+ * @description: 排队中的流程触发DB映射接口
+ * @author: Ethan Liu
+ * @create: 2021-10-27 10:50
+ **/
+public interface QueuedTriggerMapper {
+    @Insert("insert into workflow_run_queue(id, trigger_id, trigger_type, workflow_ref, workflow_version, enqueue_time) " +
+            "values(#{id}, #{triggerId}, #{triggerType}, #{workflowRef}, #{workflowVersion}, #{enqueueTime})")
+    void add(QueuedTrigger queuedTrigger);
+
+    @Delete("delete from workflow_run_queue where id = #{id}")
+    int deleteById(String id);
+
+    @Delete("delete from workflow_run_queue where workflow_ref = #{workflowRef}")
+    int deleteByWorkflowRef(String workflowRef);
+
+    @Select("SELECT * FROM `workflow_run_queue` WHERE workflow_ref = #{workflowRef} ORDER BY seq LIMIT 1")
+    @Result(column = "trigger_id", property = "triggerId")
+    @Result(column = "trigger_type", property = "triggerType")
+    @Result(column = "workflow_ref", property = "workflowRef")
+    @Result(column = "workflow_version", property = "workflowVersion")
+    @Result(column = "enqueue_time", property = "enqueueTime")
+    Optional<QueuedTrigger> findFirstByWorkflowRef(String workflowRef);
+
+    @Select("SELECT count(*) FROM `workflow_run_queue` WHERE workflow_ref = #{workflowRef}")
+    int countByWorkflowRef(String workflowRef);
+
+    @Select("SELECT count(*) FROM `workflow_run_queue`")
+    int count();
+}
@@ -0,0 +1,47 @@
+package dev.jianmu.infrastructure.mapper.workflow;
+
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceEvent;
+import dev.jianmu.infrastructure.typehandler.TaskInstanceTypeHandler;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import org.apache.ibatis.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @class: WorkflowInstanceEventMapper
+ * @description: 流程实例事件DB映射接口
+ * @author: Ethan Liu
+ * @create: 2021-10-26 11:00
+ **/
+public interface WorkflowInstanceEventMapper {
+    @Insert("<script>" +
+            "insert into workflow_instance_event(workflow_instance_id, sequence_no, event_name, async_task_ref, task_instance, occurred_time) values" +
+            "<foreach collection='events' item='i' index='index' separator=','>" +
+            "(#{i.workflowInstanceId}, #{i.sequenceNo}, #{i.eventName}, #{i.asyncTaskRef}, " +
+            "#{i.taskInstance, jdbcType=BLOB,typeHandler=dev.jianmu.infrastructure.typehandler.TaskInstanceTypeHandler}, #{i.occurredTime})" +
+            "</foreach>" +
+            " </script>")
+    void addAll(@Param("events") List<WorkflowInstanceEvent> events);
+
+    // 查询任务实例列表快照之后追加的事件，快照序号使用与流程实例同一次读取的值，
+    // 避免两次查询之间写入新快照导致漏掉事件
+    @Select("<script>" +
+            "SELECT * FROM `workflow_instance_event` WHERE " +
+            "<foreach collection='instances' item='wk' open='(' separator=' OR ' close=')'>" +
+            "(workflow_instance_id = #{wk.id} AND sequence_no > #{wk.snapshotSequence})" +
+            "</foreach>" +
+            " ORDER BY workflow_instance_id, sequence_no" +
+            "</script>")
+    @Result(column = "workflow_instance_id", property = "workflowInstanceId")
+    @Result(column = "sequence_no", property = "sequenceNo")
+    @Result(column = "event_name", property = "eventName")
+    @Result(column = "async_task_ref", property = "asyncTaskRef")
+    @Result(column = "task_instance", property = "taskInstance", typeHandler = TaskInstanceTypeHandler.class)
+    @Result(column = "occurred_time", property = "occurredTime")
+    List<WorkflowInstanceEvent> findAfterSnapshot(@Param("instances") Collection<WorkflowInstance> instances);
+
+    @Delete("delete from workflow_instance_event where workflow_instance_id in " +
+            "(select id from workflow_instance where workflow_ref = #{workflowRef})")
+    void deleteByWorkflowRef(String workflowRef);
+}
@@ -1,5 +1,6 @@
 package dev.jianmu.infrastructure.mapper.workflow;
 
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceSummary;
 import dev.jianmu.infrastructure.typehandler.TaskInstanceListTypeHandler;
 import dev.jianmu.workflow.aggregate.process.ProcessStatus;
 import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
@@ -27,12 +28,52 @@ public interface WorkflowInstanceMapper {
     @Result(column = "run_mode", property = "runMode")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
+    @Result(column = "_version", property = "version")
+    @Result(column = "event_sequence", property = "eventSequence")
+    @Result(column = "snapshot_sequence", property = "snapshotSequence")
     List<WorkflowInstance> findByRefAndVersionAndStatus(
             @Param("workflowRef") String workflowRef,
             @Param("workflowVersion") String workflowVersion,
             @Param("status") ProcessStatus status
     );
 
+    @Select("select * from workflow_instance where workflow_ref = #{workflowRef} " +
+            "and status = #{status} order by serial_no")
+    @Result(column = "task_instances", property = "asyncTaskInstances", typeHandler = TaskInstanceListTypeHandler.class)
+    @Result(column = "serial_no", property = "serialNo")
+    @Result(column = "workflow_ref", property = "workflowRef")
+    @Result(column = "workflow_version", property = "workflowVersion")
+    @Result(column = "trigger_id", property = "triggerId")
+    @Result(column = "trigger_type", property = "triggerType")
+    @Result(column = "run_mode", property = "runMode")
+    @Result(column = "start_time", property = "startTime")
+    @Result(column = "end_time", property = "endTime")
+    @Result(column = "_version", property = "version")
+    @Result(column = "event_sequence", property = "eventSequence")
+    @Result(column = "snapshot_sequence", property = "snapshotSequence")
+    List<WorkflowInstance> findByRefAndStatus(
+            @Param("workflowRef") String workflowRef,
+            @Param("status") ProcessStatus status
+    );
+
+    @Select("select count(*) from workflow_instance where workflow_ref = #{workflowRef} and status = #{status}")
+    int countByRefAndStatus(@Param("workflowRef") String workflowRef, @Param("status") ProcessStatus status);
+
+    @Select("select * from workflow_instance where status = #{status}")
+    @Result(column = "task_instances", property = "asyncTaskInstances", typeHandler = TaskInstanceListTypeHandler.class)
+    @Result(column = "serial_no", property = "serialNo")
+    @Result(column = "workflow_ref", property = "workflowRef")
+    @Result(column = "workflow_version", property = "workflowVersion")
+    @Result(column = "trigger_id", property = "triggerId")
+    @Result(column = "trigger_type", property = "triggerType")
+    @Result(column = "run_mode", property = "runMode")
+    @Result(column = "start_time", property = "startTime")
+    @Result(column = "end_time", property = "endTime")
+    @Result(column = "_version", property = "version")
+    @Result(column = "event_sequence", property = "eventSequence")
+    @Result(column = "snapshot_sequence", property = "snapshotSequence")
+    List<WorkflowInstance> findByStatus(@Param("status") ProcessStatus status);
+
     @Select("select * from workflow_instance where id = #{instanceId}")
     @Result(column = "task_instances", property = "asyncTaskInstances", typeHandler = TaskInstanceListTypeHandler.class)
     @Result(column = "serial_no", property = "serialNo")
@@ -43,23 +84,45 @@ public interface WorkflowInstanceMapper {
     @Result(column = "run_mode", property = "runMode")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
+    @Result(column = "_version", property = "version")
+    @Result(column = "event_sequence", property = "eventSequence")
+    @Result(column = "snapshot_sequence", property = "snapshotSequence")
     Optional<WorkflowInstance> findById(String instanceId);
 
-    @Insert("insert into workflow_instance(id, serial_no, trigger_id, trigger_type, name, description, run_mode, status, workflow_ref, workflow_version, task_instances, start_time, end_time, _version) " +
-            "values(#{wk.id},#{wk.serialNo},#{wk.triggerId},#{wk.triggerType},#{wk.name},#{wk.description},#{wk.runMode},#{wk.status},#{wk.workflowRef},#{wk.workflowVersion}," +
+    @Insert("insert into workflow_instance(id, serial_no, trigger_id, trigger_type, name, description, run_mode, status, latest_task_status, workflow_ref, workflow_version, task_instances, start_time, end_time, _version) " +
+            "values(#{wk.id},#{wk.serialNo},#{wk.triggerId},#{wk.triggerType},#{wk.name},#{wk.description},#{wk.runMode},#{wk.status},#{latestTaskStatus},#{wk.workflowRef},#{wk.workflowVersion}," +
             "#{wk.asyncTaskInstances, jdbcType=BLOB,typeHandler=dev.jianmu.infrastructure.typehandler.TaskInstanceListTypeHandler}," +
             "#{wk.startTime},#{wk.endTime},#{version})")
-    boolean add(@Param("wk") WorkflowInstance workflowInstance, @Param("version") int version);
+    boolean add(@Param("wk") WorkflowInstance workflowInstance, @Param("latestTaskStatus") String latestTaskStatus, @Param("version") int version);
 
-    @Select("select _version from workflow_instance where id = #{id}")
-    int getVersion(String id);
+    @Update("update workflow_instance " +
+            "set run_mode=#{wk.runMode},status=#{wk.status},latest_task_status=#{latestTaskStatus}," +
+            "end_time=#{wk.endTime},event_sequence=#{eventSequence},_version= _version+1 " +
+            "where id = #{wk.id} and _version = #{version}")
+    boolean save(
+            @Param("wk") WorkflowInstance workflowInstance,
+            @Param("latestTaskStatus") String latestTaskStatus,
+            @Param("version") int version,
+            @Param("eventSequence") int eventSequence
+    );
 
+    // 同时写入任务实例列表快照
     @Update("update workflow_instance " +
-            "set run_mode=#{wk.runMode},status=#{wk.status}," +
+            "set run_mode=#{wk.runMode},status=#{wk.status},latest_task_status=#{latestTaskStatus}," +
             "task_instances=#{wk.asyncTaskInstances , jdbcType=BLOB,typeHandler=dev.jianmu.infrastructure.typehandler.TaskInstanceListTypeHandler}," +
-            "end_time=#{wk.endTime},_version= _version+1 " +
+            "end_time=#{wk.endTime},event_sequence=#{eventSequence},snapshot_sequence=#{eventSequence},_version= _version+1 " +
             "where id = #{wk.id} and _version = #{version}")
-    boolean save(@Param("wk") WorkflowInstance workflowInstance, @Param("version") int version);
+    boolean saveSnapshot(
+            @Param("wk") WorkflowInstance workflowInstance,
+            @Param("latestTaskStatus") String latestTaskStatus,
+            @Param("version") int version,
+            @Param("eventSequence") int eventSequence
+    );
+
+    // 补写增加latest_task_status字段之前保存的流程实例，已写入值时不覆盖，不改变乐观锁版本
+    @Update("update workflow_instance set latest_task_status = #{latestTaskStatus} " +
+            "where id = #{id} and latest_task_status is null")
+    boolean fillLatestTaskStatus(@Param("id") String id, @Param("latestTaskStatus") String latestTaskStatus);
 
     @Delete("delete from workflow_instance where workflow_ref=#{workflowRef}")
     void deleteByWorkflowRef(String workflowRef);
@@ -74,13 +137,17 @@ public interface WorkflowInstanceMapper {
     @Result(column = "run_mode", property = "runMode")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
+    @Result(column = "_version", property = "version")
+    @Result(column = "event_sequence", property = "eventSequence")
+    @Result(column = "snapshot_sequence", property = "snapshotSequence")
     List<WorkflowInstance> findAll(
             @Param("pageNum") int pageNum,
             @Param("pageSize") int pageSize
     );
 
+    // 列表查询只加载摘要字段，任务实例列表只在详情中加载
     @Select("<script>" +
-            "SELECT * FROM `workflow_instance` " +
+            "SELECT id, serial_no, trigger_id, trigger_type, name, description, workflow_ref, workflow_version, status, latest_task_status, start_time, end_time FROM `workflow_instance` " +
             "<where>" +
             "<if test='status != null'>status = #{status}</if>" +
             "<if test='!id.isBlank()'> AND `id` like concat('%', #{id}, '%')</if>" +
@@ -89,33 +156,32 @@ public interface WorkflowInstanceMapper {
             "</where>" +
             " order by end_time desc" +
             "</script>")
-    @Result(column = "task_instances", property = "asyncTaskInstances", typeHandler = TaskInstanceListTypeHandler.class)
     @Result(column = "serial_no", property = "serialNo")
-    @Result(column = "workflow_ref", property = "workflowRef")
-    @Result(column = "workflow_version", property = "workflowVersion")
     @Result(column = "trigger_id", property = "triggerId")
     @Result(column = "trigger_type", property = "triggerType")
-    @Result(column = "run_mode", property = "runMode")
+    @Result(column = "workflow_ref", property = "workflowRef")
+    @Result(column = "workflow_version", property = "workflowVersion")
+    @Result(column = "latest_task_status", property = "latestTaskStatus")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
-    List<WorkflowInstance> findAllPage(
+    List<WorkflowInstanceSummary> findAllPage(
             @Param("id") String id,
             @Param("name") String name,
             @Param("workflowVersion") String workflowVersion,
             @Param("status") ProcessStatus status
     );
 
-    @Select("select * from workflow_instance where workflow_ref = #{workflowRef} order by serial_no desc")
-    @Result(column = "task_instances", property = "asyncTaskInstances", typeHandler = TaskInstanceListTypeHandler.class)
+    @Select("select id, serial_no, trigger_id, trigger_type, name, description, workflow_ref, workflow_version, status, latest_task_status, start_time, end_time from workflow_instance " +
+            "where workflow_ref = #{workflowRef} order by serial_no desc")
     @Result(column = "serial_no", property = "serialNo")
-    @Result(column = "workflow_ref", property = "workflowRef")
-    @Result(column = "workflow_version", property = "workflowVersion")
     @Result(column = "trigger_id", property = "triggerId")
     @Result(column = "trigger_type", property = "triggerType")
-    @Result(column = "run_mode", property = "runMode")
+    @Result(column = "workflow_ref", property = "workflowRef")
+    @Result(column = "workflow_version", property = "workflowVersion")
+    @Result(column = "latest_task_status", property = "latestTaskStatus")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
-    List<WorkflowInstance> findByWorkflowRef(@Param("workflowRef") String workflowRef);
+    List<WorkflowInstanceSummary> findByWorkflowRef(@Param("workflowRef") String workflowRef);
 
     @Select("select * from workflow_instance where workflow_ref = #{workflowRef} order by serial_no desc limit 1")
     @Result(column = "task_instances", property = "asyncTaskInstances", typeHandler = TaskInstanceListTypeHandler.class)
@@ -127,5 +193,8 @@ public interface WorkflowInstanceMapper {
     @Result(column = "run_mode", property = "runMode")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
+    @Result(column = "_version", property = "version")
+    @Result(column = "event_sequence", property = "eventSequence")
+    @Result(column = "snapshot_sequence", property = "snapshotSequence")
     Optional<WorkflowInstance> findByRefAndSerialNoMax(@Param("workflowRef") String workflowRef);
 }
@@ -32,11 +32,11 @@ public interface WorkflowMapper {
     @Result(column = "dsl_text", property = "dslText")
     List<Workflow> findByRef(String ref);
 
-    @Insert("insert into workflow(ref_version, ref, version, type, name, description, nodes, global_parameters, dsl_text)" +
+    @Insert("insert into workflow(ref_version, ref, version, type, name, description, nodes, global_parameters, dsl_text, timeout)" +
             "values('${ref + version}', #{ref}, #{version}, #{type}, #{name}, #{description}, " +
             "#{nodes, jdbcType=BLOB,typeHandler=dev.jianmu.infrastructure.typehandler.NodeSetTypeHandler}, " +
             "#{globalParameters, jdbcType=BLOB,typeHandler=dev.jianmu.infrastructure.typehandler.ParameterSetTypeHandler}, " +
-            "#{dslText})")
+            "#{dslText}, #{timeout})")
     void add(Workflow workflow);
 
     @Delete("delete from workflow where ref_version = #{refVersion}")
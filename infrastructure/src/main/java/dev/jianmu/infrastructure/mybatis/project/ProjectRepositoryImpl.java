@@ -44,6 +44,11 @@ public class ProjectRepositoryImpl implements ProjectRepository {
         return this.projectMapper.findById(id);
     }
 
+    // 锁定项目行直到事务结束，项目不存在时返回false
+    public boolean lockByWorkflowRef(String workflowRef) {
+        return this.projectMapper.lockByWorkflowRef(workflowRef).isPresent();
+    }
+
     public PageInfo<Project> findAllPage(String workflowName, int pageNum, int pageSize) {
         return PageHelper.startPage(pageNum, pageSize)
                 .doSelectPageInfo(() -> this.projectMapper.findAllPage(workflowName));
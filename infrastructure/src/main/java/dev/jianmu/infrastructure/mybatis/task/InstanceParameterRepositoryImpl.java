@@ -49,4 +49,9 @@ public class InstanceParameterRepositoryImpl implements InstanceParameterReposit
     public List<InstanceParameter> findOutputParamByBusinessIdAndTriggerId(String businessId, String triggerId) {
         return this.instanceParameterMapper.findOutputParamByBusinessIdAndTriggerId(businessId, triggerId);
     }
+
+    @Override
+    public List<InstanceParameter> findOutputParamByBusinessIdAndTriggerIdAndAsyncTaskRef(String businessId, String triggerId, String asyncTaskRef) {
+        return this.instanceParameterMapper.findOutputParamByBusinessIdAndTriggerIdAndAsyncTaskRef(businessId, triggerId, asyncTaskRef);
+    }
 }
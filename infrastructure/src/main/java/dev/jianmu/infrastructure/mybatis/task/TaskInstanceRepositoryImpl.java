@@ -84,8 +84,7 @@ public class TaskInstanceRepositoryImpl implements TaskInstanceRepository {
         return this.taskInstanceMapper.findById(instanceId);
     }
 
-    @Override
-    public List<TaskInstance> findByBusinessId(String businessId) {
+    public List<TaskInstanceSummary> findByBusinessId(String businessId) {
         return this.taskInstanceMapper.findByBusinessId(businessId);
     }
 
@@ -99,6 +98,11 @@ public class TaskInstanceRepositoryImpl implements TaskInstanceRepository {
         return this.taskInstanceMapper.findByAsyncTaskRefAndBusinessId(asyncTaskRef, businessId);
     }
 
+    @Override
+    public int countActiveByAsyncTaskRefAndBusinessId(String asyncTaskRef, String businessId) {
+        return this.taskInstanceMapper.countActiveByAsyncTaskRefAndBusinessId(asyncTaskRef, businessId);
+    }
+
     @Override
     public List<TaskInstance> findAll(int pageNum, int pageSize) {
         return this.taskInstanceMapper.findAll(pageNum, pageSize);
@@ -0,0 +1,28 @@
+package dev.jianmu.infrastructure.mybatis.task;
+
+import dev.jianmu.task.aggregate.InstanceStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * @class: TaskInstanceSummary
+ * @description: 任务实例摘要，列表查询只加载摘要字段，不加载节点信息与任务结果
+ * @author: Ethan Liu
+ * @create: 2021-10-29 10:30
+ **/
+@Data
+public class TaskInstanceSummary {
+    private String id;
+    // 执行顺序号
+    private int serialNo;
+    private String defKey;
+    private String asyncTaskRef;
+    private String workflowRef;
+    private String workflowVersion;
+    private String businessId;
+    private String triggerId;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private InstanceStatus status;
+}
@@ -0,0 +1,86 @@
+package dev.jianmu.infrastructure.mybatis.workflow;
+
+import dev.jianmu.infrastructure.mapper.workflow.QueuedTriggerMapper;
+import dev.jianmu.workflow.aggregate.process.QueuedTrigger;
+import dev.jianmu.workflow.repository.QueuedTriggerRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+/**
+ * @class: QueuedTriggerRepositoryImpl
+ * @description: 排队中的流程触发仓储实现
+ * 排队总数在内存中计数，首次使用时从数据库加载，之后在事务提交后随入队与出队增减
+ * @author: Ethan Liu
+ * @create: 2021-10-27 11:00
+ **/
+@Repository
+public class QueuedTriggerRepositoryImpl implements QueuedTriggerRepository {
+    private final QueuedTriggerMapper queuedTriggerMapper;
+    // 排队中的触发总数，未加载时为-1
+    private int length = -1;
+
+    public QueuedTriggerRepositoryImpl(QueuedTriggerMapper queuedTriggerMapper) {
+        this.queuedTriggerMapper = queuedTriggerMapper;
+    }
+
+    @Override
+    public void add(QueuedTrigger queuedTrigger) {
+        this.queuedTriggerMapper.add(queuedTrigger);
+        this.adjustAfterCommit(1);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        this.adjustAfterCommit(-this.queuedTriggerMapper.deleteById(id));
+    }
+
+    @Override
+    public void deleteByWorkflowRef(String workflowRef) {
+        this.adjustAfterCommit(-this.queuedTriggerMapper.deleteByWorkflowRef(workflowRef));
+    }
+
+    @Override
+    public Optional<QueuedTrigger> findFirstByWorkflowRef(String workflowRef) {
+        return this.queuedTriggerMapper.findFirstByWorkflowRef(workflowRef);
+    }
+
+    @Override
+    public int countByWorkflowRef(String workflowRef) {
+        return this.queuedTriggerMapper.countByWorkflowRef(workflowRef);
+    }
+
+    @Override
+    public synchronized int count() {
+        if (this.length < 0) {
+            this.length = this.queuedTriggerMapper.count();
+        }
+        return this.length;
+    }
+
+    // 事务回滚时不计数
+    private void adjustAfterCommit(int delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.adjust(delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                adjust(delta);
+            }
+        });
+    }
+
+    // 未加载时不计数，加载时读取的已是提交后的数量
+    private synchronized void adjust(int delta) {
+        if (this.length >= 0) {
+            this.length += delta;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dev.jianmu.infrastructure.mybatis.workflow;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @class: WorkflowCacheProperties
+ * @description: 流程定义缓存配置项
+ * @author: Ethan Liu
+ * @create: 2021-10-27 09:30
+ **/
+@Data
+@Component
+@ConfigurationProperties(prefix = "jianmu.workflow.cache")
+public class WorkflowCacheProperties {
+    // 流程定义缓存最大条目数
+    private long maximumSize = 500;
+    // 流程定义缓存空闲过期时间
+    private Duration expireAfterAccess = Duration.ofHours(1);
+}
@@ -0,0 +1,28 @@
+package dev.jianmu.infrastructure.mybatis.workflow;
+
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * @class: WorkflowInstanceEvent
+ * @description: 流程实例事件记录，每条记录对应一次任务实例状态变化，加载流程实例时在任务实例列表快照之上回放
+ * @author: Ethan Liu
+ * @create: 2021-10-26 10:50
+ **/
+@Data
+public class WorkflowInstanceEvent {
+    // 流程实例ID
+    private String workflowInstanceId;
+    // 事件序号，流程实例内递增
+    private int sequenceNo;
+    // 事件名称，与流程实例发布的领域事件名称一致
+    private String eventName;
+    // 任务定义唯一引用名称
+    private String asyncTaskRef;
+    // 变化后的任务实例
+    private AsyncTaskInstance taskInstance;
+    // 发生时间
+    private LocalDateTime occurredTime;
+}
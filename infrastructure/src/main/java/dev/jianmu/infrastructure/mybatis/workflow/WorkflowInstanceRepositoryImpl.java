@@ -3,90 +3,228 @@ package dev.jianmu.infrastructure.mybatis.workflow;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import dev.jianmu.infrastructure.exception.DBException;
+import dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceEventMapper;
 import dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceMapper;
 import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import dev.jianmu.workflow.aggregate.process.TaskInstanceChange;
+import dev.jianmu.workflow.aggregate.process.TaskStatus;
 import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.event.*;
 import dev.jianmu.workflow.repository.WorkflowInstanceRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 
 import javax.annotation.Resource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * @class: WorkflowInstanceRepositoryImpl
  * @description: 流程实例仓储实现类
+ * 任务实例状态变化以事件形式追加到workflow_instance_event表，任务实例列表快照每隔一定数量的事件或流程结束时写入，
+ * 加载时在快照之上回放快照之后的事件
  * @author: Ethan Liu
  * @create: 2021-03-18 08:38
  **/
 @Repository
 public class WorkflowInstanceRepositoryImpl implements WorkflowInstanceRepository {
+    // 任务实例列表快照间隔的事件数量
+    private static final int SNAPSHOT_INTERVAL = 20;
 
-    private static final Logger logger = LoggerFactory.getLogger(WorkflowInstanceRepositoryImpl.class);
     @Resource
     private ApplicationEventPublisher publisher;
 
     @Resource
     private WorkflowInstanceMapper workflowInstanceMapper;
 
+    @Resource
+    private WorkflowInstanceEventMapper workflowInstanceEventMapper;
+
     @Override
     public List<WorkflowInstance> findByRefAndVersionAndStatus(String workflowRef, String workflowVersion, ProcessStatus status) {
-        return this.workflowInstanceMapper.findByRefAndVersionAndStatus(workflowRef, workflowVersion, status);
+        return this.replay(this.workflowInstanceMapper.findByRefAndVersionAndStatus(workflowRef, workflowVersion, status));
+    }
+
+    @Override
+    public List<WorkflowInstance> findByRefAndStatus(String workflowRef, ProcessStatus status) {
+        return this.replay(this.workflowInstanceMapper.findByRefAndStatus(workflowRef, status));
+    }
+
+    @Override
+    public int countByRefAndStatus(String workflowRef, ProcessStatus status) {
+        return this.workflowInstanceMapper.countByRefAndStatus(workflowRef, status);
+    }
+
+    @Override
+    public List<WorkflowInstance> findByStatus(ProcessStatus status) {
+        return this.replay(this.workflowInstanceMapper.findByStatus(status));
     }
 
     @Override
     public Optional<WorkflowInstance> findById(String instanceId) {
-        return this.workflowInstanceMapper.findById(instanceId);
+        return this.workflowInstanceMapper.findById(instanceId).map(this::replay);
     }
 
+    // 插入时写入完整的任务实例列表，返回内存中的聚合根，不再重新查询
     @Override
     public WorkflowInstance add(WorkflowInstance workflowInstance) {
-        boolean succeed = this.workflowInstanceMapper.add(workflowInstance, 1);
+        boolean succeed = this.workflowInstanceMapper.add(workflowInstance, latestTaskStatus(workflowInstance), 1);
         if (!succeed) {
             throw new DBException.InsertFailed("流程实例插入失败");
         }
-        Optional<WorkflowInstance> instanceOptional = this.workflowInstanceMapper.findById(workflowInstance.getId());
-        publisher.publishEvent(workflowInstance);
-        return instanceOptional.orElseThrow(() -> new DBException.DataNotFound("未找到流程实例"));
+        workflowInstance.persisted(1, 0, 0);
+        this.publisher.publishEvent(workflowInstance.drainDomainEvents());
+        return workflowInstance;
     }
 
+    // 以聚合根加载时的版本做条件更新，一条语句完成乐观锁检查与保存，返回内存中的聚合根
     @Override
     public WorkflowInstance save(WorkflowInstance workflowInstance) {
-        int version = this.workflowInstanceMapper.getVersion(workflowInstance.getId());
-        logger.info("-------------------------the version is: {}", version);
-        boolean succeed = this.workflowInstanceMapper.save(workflowInstance, version);
+        var changes = workflowInstance.getTaskInstanceChanges();
+        int version = workflowInstance.getVersion();
+        int previousSequence = workflowInstance.getEventSequence();
+        int eventSequence = previousSequence + changes.size();
+        var latestTaskStatus = latestTaskStatus(workflowInstance);
+        var snapshotSequence = workflowInstance.getSnapshotSequence();
+        boolean succeed;
+        if (this.isSnapshotDue(workflowInstance, previousSequence, eventSequence)) {
+            snapshotSequence = eventSequence;
+            succeed = this.workflowInstanceMapper.saveSnapshot(workflowInstance, latestTaskStatus, version, eventSequence);
+        } else {
+            succeed = this.workflowInstanceMapper.save(workflowInstance, latestTaskStatus, version, eventSequence);
+        }
         if (!succeed) {
             throw new DBException.OptimisticLocking("未找到对应的乐观锁版本数据，无法完成数据更新");
         }
-        Optional<WorkflowInstance> instanceOptional = this.workflowInstanceMapper.findById(workflowInstance.getId());
-        this.publisher.publishEvent(workflowInstance);
-        return instanceOptional.orElseThrow(() -> new DBException.UpdateFailed("流程实例更新失败"));
+        this.appendEvents(workflowInstance.getId(), previousSequence, changes);
+        workflowInstance.persisted(version + 1, eventSequence, snapshotSequence);
+        this.publisher.publishEvent(workflowInstance.drainDomainEvents());
+        return workflowInstance;
     }
 
     @Override
     public List<WorkflowInstance> findAll(int pageNum, int pageSize) {
-        return this.workflowInstanceMapper.findAll(pageNum, pageSize);
+        return this.replay(this.workflowInstanceMapper.findAll(pageNum, pageSize));
     }
 
     @Override
     public Optional<WorkflowInstance> findByRefAndSerialNoMax(String workflowRef) {
-        return this.workflowInstanceMapper.findByRefAndSerialNoMax(workflowRef);
+        return this.workflowInstanceMapper.findByRefAndSerialNoMax(workflowRef).map(this::replay);
     }
 
     @Override
     public void deleteByWorkflowRef(String workflowRef) {
+        this.workflowInstanceEventMapper.deleteByWorkflowRef(workflowRef);
         this.workflowInstanceMapper.deleteByWorkflowRef(workflowRef);
     }
 
-    public PageInfo<WorkflowInstance> findAllPage(String id, String name, String workflowVersion, ProcessStatus status, int pageNum, int pageSize) {
-        return PageHelper.startPage(pageNum, pageSize)
+    public PageInfo<WorkflowInstanceSummary> findAllPage(String id, String name, String workflowVersion, ProcessStatus status, int pageNum, int pageSize) {
+        PageInfo<WorkflowInstanceSummary> pageInfo = PageHelper.startPage(pageNum, pageSize)
                 .doSelectPageInfo(() -> this.workflowInstanceMapper.findAllPage(id, name, workflowVersion, status));
+        this.fillLatestTaskStatus(pageInfo.getList());
+        return pageInfo;
+    }
+
+    public List<WorkflowInstanceSummary> findByWorkflowRef(String workflowRef) {
+        return this.fillLatestTaskStatus(this.workflowInstanceMapper.findByWorkflowRef(workflowRef));
+    }
+
+    // 最近启动的任务实例状态，没有已启动的任务实例时为空字符串
+    private static String latestTaskStatus(WorkflowInstance workflowInstance) {
+        return workflowInstance.findLatestAsyncTaskInstance()
+                .map(asyncTaskInstance -> asyncTaskInstance.getStatus().name())
+                .orElse("");
+    }
+
+    // 增加latest_task_status字段之前保存的流程实例没有该字段，加载完整流程实例计算一次并写回，之后的列表查询直接读取
+    private List<WorkflowInstanceSummary> fillLatestTaskStatus(List<WorkflowInstanceSummary> summaries) {
+        summaries.stream()
+                .filter(summary -> summary.getLatestTaskStatus() == null)
+                .forEach(summary -> {
+                    var latestTaskStatus = this.findById(summary.getId())
+                            .map(WorkflowInstanceRepositoryImpl::latestTaskStatus)
+                            .orElse(null);
+                    if (latestTaskStatus == null) {
+                        summary.setLatestTaskStatus("");
+                        return;
+                    }
+                    this.workflowInstanceMapper.fillLatestTaskStatus(summary.getId(), latestTaskStatus);
+                    summary.setLatestTaskStatus(latestTaskStatus);
+                });
+        return summaries;
     }
 
-    public List<WorkflowInstance> findByWorkflowRef(String workflowRef) {
-        return this.workflowInstanceMapper.findByWorkflowRef(workflowRef);
+    // 累计事件跨过快照间隔或流程已结束时写入快照
+    private boolean isSnapshotDue(WorkflowInstance workflowInstance, int previousSequence, int eventSequence) {
+        if (workflowInstance.getStatus() != ProcessStatus.RUNNING) {
+            return true;
+        }
+        return eventSequence / SNAPSHOT_INTERVAL > previousSequence / SNAPSHOT_INTERVAL;
+    }
+
+    private void appendEvents(String instanceId, int previousSequence, List<TaskInstanceChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        var occurredTime = LocalDateTime.now();
+        List<WorkflowInstanceEvent> events = new ArrayList<>();
+        for (TaskInstanceChange change : changes) {
+            var event = new WorkflowInstanceEvent();
+            event.setWorkflowInstanceId(instanceId);
+            event.setSequenceNo(previousSequence + events.size() + 1);
+            event.setEventName(eventName(change));
+            event.setAsyncTaskRef(change.getTaskInstance().getAsyncTaskRef());
+            event.setTaskInstance(change.getTaskInstance());
+            event.setOccurredTime(occurredTime);
+            events.add(event);
+        }
+        this.workflowInstanceEventMapper.addAll(events);
+    }
+
+    // 事件名称与流程实例发布的领域事件一致，任务跳过时流程实例不单独发布事件，使用NodeSkipEvent
+    private static String eventName(TaskInstanceChange change) {
+        var status = change.getTaskInstance().getStatus();
+        if (status == TaskStatus.SKIPPED) {
+            return NodeSkipEvent.class.getSimpleName();
+        }
+        if (change.isActivated()) {
+            return TaskActivatingEvent.class.getSimpleName();
+        }
+        if (status == TaskStatus.RUNNING) {
+            return TaskRunningEvent.class.getSimpleName();
+        }
+        if (status == TaskStatus.SUCCEEDED) {
+            return TaskSucceededEvent.class.getSimpleName();
+        }
+        return TaskFailedEvent.class.getSimpleName();
+    }
+
+    // 激活与跳过会将任务实例移至列表末尾
+    private static boolean isActivation(String eventName) {
+        return TaskActivatingEvent.class.getSimpleName().equals(eventName)
+                || NodeSkipEvent.class.getSimpleName().equals(eventName);
+    }
+
+    private WorkflowInstance replay(WorkflowInstance workflowInstance) {
+        this.replay(List.of(workflowInstance));
+        return workflowInstance;
+    }
+
+    private List<WorkflowInstance> replay(List<WorkflowInstance> workflowInstances) {
+        if (workflowInstances.isEmpty()) {
+            return workflowInstances;
+        }
+        Map<String, WorkflowInstance> instances = workflowInstances.stream()
+                .collect(Collectors.toMap(WorkflowInstance::getId, Function.identity(), (a, b) -> a));
+        this.workflowInstanceEventMapper.findAfterSnapshot(instances.values()).forEach(event ->
+                instances.get(event.getWorkflowInstanceId())
+                        .replayTaskInstance(event.getTaskInstance(), isActivation(event.getEventName()))
+        );
+        return workflowInstances;
     }
 }
@@ -0,0 +1,30 @@
+package dev.jianmu.infrastructure.mybatis.workflow;
+
+import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * @class: WorkflowInstanceSummary
+ * @description: 流程实例摘要，列表查询只加载摘要字段，不加载任务实例列表
+ * @author: Ethan Liu
+ * @create: 2021-10-29 10:20
+ **/
+@Data
+public class WorkflowInstanceSummary {
+    private String id;
+    // 执行顺序号
+    private int serialNo;
+    private String triggerId;
+    private String triggerType;
+    private String name;
+    private String description;
+    private String workflowRef;
+    private String workflowVersion;
+    private ProcessStatus status;
+    // 最近启动的任务实例状态，保存流程实例时写入
+    private String latestTaskStatus;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
@@ -1,9 +1,13 @@
 package dev.jianmu.infrastructure.mybatis.workflow;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import dev.jianmu.infrastructure.exception.DBException;
 import dev.jianmu.infrastructure.mapper.workflow.WorkflowMapper;
 import dev.jianmu.workflow.aggregate.definition.Workflow;
 import dev.jianmu.workflow.repository.WorkflowRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Repository;
 
 import javax.annotation.Resource;
@@ -13,6 +17,7 @@ import java.util.Optional;
 /**
  * @class: WorkflowRepositoryImpl
  * @description: 流程定义仓储实现类
+ * 流程定义版本创建后不再修改，按ref+version缓存反序列化后的流程定义
  * @author: Ethan Liu
  * @create: 2021-02-12 21:35
  **/
@@ -22,14 +27,31 @@ public class WorkflowRepositoryImpl implements WorkflowRepository {
     @Resource
     private WorkflowMapper workflowMapper;
 
+    // 流程定义缓存，以ref_version为Key
+    private final Cache<String, Workflow> workflowCache;
+
+    public WorkflowRepositoryImpl(WorkflowCacheProperties workflowCacheProperties, MeterRegistry meterRegistry) {
+        this.workflowCache = Caffeine.newBuilder()
+                .maximumSize(workflowCacheProperties.getMaximumSize())
+                .expireAfterAccess(workflowCacheProperties.getExpireAfterAccess())
+                .recordStats()
+                .build();
+        // 注册缓存命中率等指标
+        CaffeineCacheMetrics.monitor(meterRegistry, this.workflowCache, "workflow.definition");
+    }
+
     @Override
     public Optional<Workflow> findByRefAndVersion(String ref, String version) {
-        return this.workflowMapper.findByRefAndVersion(ref + version);
+        return this.findByRefVersion(ref + version);
     }
 
     @Override
     public Optional<Workflow> findByRefVersion(String refVersion) {
-        return this.workflowMapper.findByRefAndVersion(refVersion);
+        // 未找到的流程定义不缓存
+        return Optional.ofNullable(this.workflowCache.get(
+                refVersion,
+                key -> this.workflowMapper.findByRefAndVersion(key).orElse(null)
+        ));
     }
 
     @Override
@@ -48,10 +70,12 @@ public class WorkflowRepositoryImpl implements WorkflowRepository {
     @Override
     public void deleteByRefAndVersion(String ref, String version) {
         this.workflowMapper.deleteByRefAndVersion(ref + version);
+        this.workflowCache.invalidate(ref + version);
     }
 
     @Override
     public void deleteByRef(String ref) {
         this.workflowMapper.deleteByRef(ref);
+        this.workflowCache.asMap().values().removeIf(workflow -> workflow.getRef().equals(ref));
     }
 }
@@ -0,0 +1,57 @@
+package dev.jianmu.infrastructure.runqueue;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @class: RunQueueProperties
+ * @description: 项目运行队列配置项
+ * @author: Ethan Liu
+ * @create: 2021-10-27 11:10
+ **/
+@Data
+@Component
+@ConfigurationProperties(prefix = "jianmu.run-queue")
+public class RunQueueProperties {
+    public enum OverflowPolicy {
+        // 排队等待，有空闲时按触发顺序启动
+        QUEUE,
+        // 只保留最新的一次触发
+        COALESCE,
+        // 终止最早运行的流程实例后立即启动
+        CANCEL_RUNNING
+    }
+
+    // 每个项目同时运行的流程实例数上限
+    private int maxConcurrentRuns = 1;
+    // 运行中的流程实例达到上限时的处理策略
+    private OverflowPolicy overflowPolicy = OverflowPolicy.QUEUE;
+    // 按流程定义唯一引用名称单独配置，未配置的项使用默认值
+    private Map<String, Limit> projects = new HashMap<>();
+
+    @Data
+    public static class Limit {
+        private Integer maxConcurrentRuns;
+        private OverflowPolicy overflowPolicy;
+    }
+
+    public int maxConcurrentRuns(String workflowRef) {
+        var limit = this.projects.get(workflowRef);
+        if (limit == null || limit.getMaxConcurrentRuns() == null) {
+            return this.maxConcurrentRuns;
+        }
+        return limit.getMaxConcurrentRuns();
+    }
+
+    public OverflowPolicy overflowPolicy(String workflowRef) {
+        var limit = this.projects.get(workflowRef);
+        if (limit == null || limit.getOverflowPolicy() == null) {
+            return this.overflowPolicy;
+        }
+        return limit.getOverflowPolicy();
+    }
+}
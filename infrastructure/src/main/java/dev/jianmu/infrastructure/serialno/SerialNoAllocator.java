@@ -0,0 +1,53 @@
+package dev.jianmu.infrastructure.serialno;
+
+import dev.jianmu.infrastructure.mapper.serialno.SerialNoCounterMapper;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+/**
+ * @class: SerialNoAllocator
+ * @description: 流程实例与任务实例的序号分配器
+ * 在调用方事务中递增计数器，计数行的行锁持有到事务结束，同一Key的并发分配串行执行，事务回滚时序号一并回滚不留空号
+ * @author: Ethan Liu
+ * @create: 2021-10-27 15:20
+ **/
+@Component
+public class SerialNoAllocator {
+    private final SerialNoCounterMapper serialNoCounterMapper;
+
+    public SerialNoAllocator(SerialNoCounterMapper serialNoCounterMapper) {
+        this.serialNoCounterMapper = serialNoCounterMapper;
+    }
+
+    // 流程实例序号，同一流程定义的所有版本共用
+    public int nextWorkflowSerialNo(String workflowRef) {
+        return this.next("workflow:" + workflowRef, workflowRef);
+    }
+
+    // 任务实例执行序号，同一流程实例中的同一任务节点递增
+    public int nextTaskSerialNo(String workflowRef, String businessId, String asyncTaskRef) {
+        return this.next("task:" + businessId + ":" + asyncTaskRef, workflowRef);
+    }
+
+    // 流程实例结束后不再创建任务实例，删除该流程实例的任务序号计数
+    public void deleteByBusinessId(String businessId) {
+        this.serialNoCounterMapper.deleteByKeyPrefix("task:" + businessId + ":");
+    }
+
+    public void deleteByWorkflowRef(String workflowRef) {
+        this.serialNoCounterMapper.deleteByWorkflowRef(workflowRef);
+    }
+
+    private int next(String counterKey, String workflowRef) {
+        if (this.serialNoCounterMapper.increment(counterKey) == 0) {
+            try {
+                this.serialNoCounterMapper.add(counterKey, workflowRef);
+                return 1;
+            } catch (DuplicateKeyException e) {
+                // 并发创建计数行，由对方插入后再递增
+                this.serialNoCounterMapper.increment(counterKey);
+            }
+        }
+        return this.serialNoCounterMapper.getValue(counterKey);
+    }
+}
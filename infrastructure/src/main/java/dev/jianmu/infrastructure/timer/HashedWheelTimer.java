@@ -0,0 +1,200 @@
+package dev.jianmu.infrastructure.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @class: HashedWheelTimer
+ * @description: 时间轮定时器，所有超时任务共用一个工作线程，添加与取消均为O(1)
+ * 到期的任务交由执行器执行，工作线程不做任何阻塞操作
+ * @author: Ethan Liu
+ * @create: 2021-10-28 10:20
+ **/
+public class HashedWheelTimer {
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+    // 每格最多从待添加队列转移的任务数，避免大量添加时阻塞时间轮推进
+    private static final int MAX_TRANSFER_PER_TICK = 100000;
+
+    private final long tickNanos;
+    private final int mask;
+    private final LinkedList<WheelTimeout>[] wheel;
+    // 新添加的任务先放入队列，由工作线程放入对应的格子，格子只由工作线程访问
+    private final Queue<WheelTimeout> pending = new ConcurrentLinkedQueue<>();
+    // 已添加且未到期、未取消的任务数
+    private final AtomicInteger size = new AtomicInteger();
+    private final Executor executor;
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running = true;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel, Executor executor) {
+        if (tickDuration <= 0) {
+            throw new RuntimeException("时间轮每格时长必须大于0");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) {
+            throw new RuntimeException("时间轮格数超出范围");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        // 格数取2的幂，定位格子时用位运算代替取模
+        int wheelSize = 1;
+        while (wheelSize < ticksPerWheel) {
+            wheelSize <<= 1;
+        }
+        this.mask = wheelSize - 1;
+        this.wheel = new LinkedList[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            this.wheel[i] = new LinkedList<>();
+        }
+        this.executor = executor;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, "hashedWheelTimer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // 添加超时任务，delay小于等于0时在下一格触发
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (!this.running) {
+            throw new RuntimeException("定时器已停止");
+        }
+        long deadline = System.nanoTime() - this.startTime + Math.max(0, unit.toNanos(delay));
+        var timeout = new WheelTimeout(task, deadline);
+        this.size.incrementAndGet();
+        this.pending.add(timeout);
+        return timeout;
+    }
+
+    public int pendingTimeouts() {
+        return this.size.get();
+    }
+
+    public void stop() {
+        this.running = false;
+        this.worker.interrupt();
+    }
+
+    private void run() {
+        while (this.running) {
+            if (!this.waitForNextTick()) {
+                continue;
+            }
+            this.transferPending();
+            this.expire(this.wheel[(int) (this.tick & this.mask)]);
+            this.tick++;
+        }
+    }
+
+    // 等待到下一格的开始时间，定时器停止时返回false
+    private boolean waitForNextTick() {
+        long deadline = this.tickNanos * (this.tick + 1);
+        while (true) {
+            long currentTime = System.nanoTime() - this.startTime;
+            long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - currentTime + 999999);
+            if (sleepMillis <= 0) {
+                return true;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (!this.running) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            var timeout = this.pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == WheelTimeout.CANCELLED) {
+                continue;
+            }
+            long calculated = timeout.deadline / this.tickNanos;
+            timeout.remainingRounds = (calculated - this.tick) / this.wheel.length;
+            // 已过期的任务放入当前格，本格即触发
+            long ticks = Math.max(calculated, this.tick);
+            this.wheel[(int) (ticks & this.mask)].add(timeout);
+        }
+    }
+
+    private void expire(LinkedList<WheelTimeout> bucket) {
+        Iterator<WheelTimeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            var timeout = iterator.next();
+            if (timeout.state.get() == WheelTimeout.CANCELLED) {
+                iterator.remove();
+                continue;
+            }
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                continue;
+            }
+            iterator.remove();
+            if (timeout.state.compareAndSet(WheelTimeout.INIT, WheelTimeout.EXPIRED)) {
+                this.size.decrementAndGet();
+                this.execute(timeout.task);
+            }
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            this.executor.execute(task);
+        } catch (Exception e) {
+            logger.error("超时任务提交失败", e);
+        }
+    }
+
+    public interface Timeout {
+        // 取消未到期的任务，返回是否取消成功
+        boolean cancel();
+
+        boolean isExpired();
+    }
+
+    private final class WheelTimeout implements Timeout {
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        // 相对定时器启动时间的到期时间
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        // 剩余轮数，只由工作线程访问
+        private long remainingRounds;
+
+        private WheelTimeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!this.state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            // 已取消的任务由工作线程在经过所在格子时移除
+            size.decrementAndGet();
+            return true;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return this.state.get() == EXPIRED;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dev.jianmu.infrastructure.timer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @class: TimerProperties
+ * @description: 超时定时器配置项
+ * @author: Ethan Liu
+ * @create: 2021-10-28 10:10
+ **/
+@Data
+@Component
+@ConfigurationProperties(prefix = "jianmu.timer")
+public class TimerProperties {
+    // 时间轮每格的时长，即超时触发的精度
+    private Duration tickDuration = Duration.ofSeconds(1);
+    // 时间轮格数，会向上取整为2的幂
+    private int ticksPerWheel = 512;
+}
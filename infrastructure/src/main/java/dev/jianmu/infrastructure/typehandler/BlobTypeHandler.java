@@ -0,0 +1,68 @@
+package dev.jianmu.infrastructure.typehandler;
+
+import dev.jianmu.infrastructure.codec.BlobCodec;
+import dev.jianmu.infrastructure.codec.BlobFormat;
+import dev.jianmu.infrastructure.codec.BlobOutputStream;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.*;
+
+/**
+ * @class: BlobTypeHandler
+ * @description: Blob字段类型转换器基类，通过BlobCodec直接读写JDBC二进制流
+ * 写入格式由构造参数传入，实例在AppConfig中创建并登记到MyBatis，不由MyBatis反射创建
+ * @author: Ethan Liu
+ * @create: 2021-10-29 11:10
+ **/
+public abstract class BlobTypeHandler<T> extends BaseTypeHandler<T> {
+    private final BlobCodec<T> codec;
+    private final BlobFormat format;
+
+    protected BlobTypeHandler(BlobCodec<T> codec, BlobFormat format) {
+        this.codec = codec;
+        this.format = format;
+    }
+
+    private T read(InputStream in) throws SQLException {
+        if (in == null) {
+            return null;
+        }
+        // 无法解析的记录直接报错，不能当作空值继续处理
+        try {
+            return this.codec.read(in);
+        } catch (IOException e) {
+            throw new SQLException("Blob字段反序列化失败", e);
+        }
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException {
+        // PreparedStatement不提供输出流，序列化到缓冲区后以输入流交给驱动
+        var out = new BlobOutputStream();
+        try {
+            this.codec.write(parameter, this.format, out);
+        } catch (IOException e) {
+            throw new SQLException("Blob字段序列化失败", e);
+        }
+        ps.setBinaryStream(i, out.toInputStream(), out.size());
+    }
+
+    @Override
+    public T getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return this.read(rs.getBinaryStream(columnName));
+    }
+
+    @Override
+    public T getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return this.read(rs.getBinaryStream(columnIndex));
+    }
+
+    @Override
+    public T getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        Blob blob = cs.getBlob(columnIndex);
+        return blob == null ? null : this.read(blob.getBinaryStream());
+    }
+}
@@ -0,0 +1,18 @@
+package dev.jianmu.infrastructure.typehandler;
+
+import dev.jianmu.infrastructure.codec.BlobFormat;
+import dev.jianmu.infrastructure.codec.CodecRegistry;
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+
+/**
+ * @class: TaskInstanceTypeHandler
+ * @description: 自定义类型(AsyncTaskInstance)转换器，与TaskInstanceListTypeHandler使用相同的序列化配置
+ * @author: Ethan Liu
+ * @create: 2021-10-26 10:40
+ **/
+public class TaskInstanceTypeHandler extends BlobTypeHandler<AsyncTaskInstance> {
+
+    public TaskInstanceTypeHandler(BlobFormat format) {
+        super(CodecRegistry.TASK_INSTANCE, format);
+    }
+}
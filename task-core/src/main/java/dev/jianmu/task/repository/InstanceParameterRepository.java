@@ -22,4 +22,6 @@ public interface InstanceParameterRepository {
     List<InstanceParameter> findByInstanceIdAndType(String instanceId, InstanceParameter.Type type);
 
     List<InstanceParameter> findOutputParamByBusinessIdAndTriggerId(String businessId, String triggerId);
+
+    List<InstanceParameter> findOutputParamByBusinessIdAndTriggerIdAndAsyncTaskRef(String businessId, String triggerId, String asyncTaskRef);
 }
@@ -20,12 +20,13 @@ public interface TaskInstanceRepository {
 
     Optional<TaskInstance> findById(String instanceId);
 
-    List<TaskInstance> findByBusinessId(String businessId);
-
     List<TaskInstance> findRunningTask();
 
     List<TaskInstance> findByAsyncTaskRefAndBusinessId(String asyncTaskRef, String businessId);
 
+    // 等待中与运行中的任务实例数
+    int countActiveByAsyncTaskRefAndBusinessId(String asyncTaskRef, String businessId);
+
     List<TaskInstance> findAll(int pageNum, int pageSize);
 
     void deleteByWorkflowRef(String workflowRef);
@@ -1,10 +1,5 @@
 package dev.jianmu.task.service;
 
-import dev.jianmu.task.aggregate.InstanceStatus;
-import dev.jianmu.task.aggregate.TaskInstance;
-
-import java.util.List;
-
 /**
  * @class: InstanceDomainService
  * @description: 任务实例Domain服务
@@ -13,16 +8,10 @@ import java.util.List;
  **/
 public class InstanceDomainService {
 
-    public void runningCheck(List<TaskInstance> taskInstances) {
-        if (taskInstances.size() > 0) {
-            boolean isRunning = taskInstances.stream()
-                    .anyMatch(instance ->
-                            instance.getStatus().equals(InstanceStatus.WAITING) ||
-                                    instance.getStatus().equals(InstanceStatus.RUNNING)
-                    );
-            if (isRunning) {
-                throw new RuntimeException("已有任务运行中，不能重复触发");
-            }
+    // 运行前检查规则，activeCount为同一任务节点等待中与运行中的任务实例数
+    public void runningCheck(int activeCount) {
+        if (activeCount > 0) {
+            throw new RuntimeException("已有任务运行中，不能重复触发");
         }
     }
 }
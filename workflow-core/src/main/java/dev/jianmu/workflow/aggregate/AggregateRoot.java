@@ -25,4 +25,12 @@ public class AggregateRoot {
     public List<DomainEvent> getUncommittedDomainEvents() {
         return List.copyOf(this.events);
     }
+
+    // 取出未提交的领域事件用于发布，当前聚合根的事件随即清空，保存后继续使用同一聚合根时不会重复发布
+    public AggregateRoot drainDomainEvents() {
+        var drained = new AggregateRoot();
+        drained.events.addAll(this.events);
+        this.clear();
+        return drained;
+    }
 }
@@ -11,10 +11,16 @@ import java.util.stream.Collectors;
  * @create: 2021-01-21 20:42
  **/
 public class AsyncTask extends BaseNode {
+    // 执行超时时间（秒），为null时不限制
+    private Long timeout;
 
     private AsyncTask() {
     }
 
+    public Long getTimeout() {
+        return timeout;
+    }
+
     public static Set<TaskParameter> createTaskParameters(Map<String, String> param) {
         return param.entrySet().stream().map(entry ->
                 TaskParameter.Builder.aTaskParameter()
@@ -34,6 +40,8 @@ public class AsyncTask extends BaseNode {
         // 类型
         protected String type;
         private Set<TaskParameter> taskParameters;
+        // 执行超时时间（秒）
+        private Long timeout;
 
         private Builder() {
         }
@@ -67,13 +75,22 @@ public class AsyncTask extends BaseNode {
             return this;
         }
 
+        public Builder timeout(Long timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
         public AsyncTask build() {
+            if (this.timeout != null && this.timeout <= 0) {
+                throw new RuntimeException("任务超时时间必须大于0");
+            }
             AsyncTask asyncTask = new AsyncTask();
             asyncTask.name = this.name;
             asyncTask.ref = this.ref;
             asyncTask.description = this.description;
             asyncTask.taskParameters = this.taskParameters;
             asyncTask.type = this.type;
+            asyncTask.timeout = this.timeout;
             return asyncTask;
         }
     }
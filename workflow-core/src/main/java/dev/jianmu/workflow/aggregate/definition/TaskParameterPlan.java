@@ -0,0 +1,105 @@
+package dev.jianmu.workflow.aggregate.definition;
+
+import dev.jianmu.workflow.aggregate.parameter.Parameter;
+import dev.jianmu.workflow.el.EvaluationContext;
+import dev.jianmu.workflow.el.EvaluationResult;
+import dev.jianmu.workflow.el.Expression;
+import dev.jianmu.workflow.el.ExpressionLanguage;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @class: TaskParameterPlan
+ * @description: 任务参数计算计划，流程定义创建或加载时按参数表达式类型预先分类
+ * @author: Ethan Liu
+ * @create: 2021-10-23 10:20
+ **/
+public class TaskParameterPlan {
+    public enum Kind {
+        // 普通字符串，直接作为参数值
+        LITERAL,
+        // 密钥引用，格式为((namespace.key))
+        SECRET,
+        // 字符串模版，包含${}占位符
+        TEMPLATE,
+        // 表达式，以(开头
+        EXPRESSION
+    }
+
+    private static final Pattern EL_PATTERN = Pattern.compile("^\\(");
+    private static final Pattern SECRET_PATTERN = Pattern.compile("^\\(\\(([a-zA-Z0-9_-]+\\.*[a-zA-Z0-9_-]+)\\)\\)$");
+
+    private final String ref;
+    private final String expression;
+    private final Kind kind;
+    // 密钥名称或待计算的表达式
+    private final String value;
+    // 不依赖上下文的表达式只计算一次，每次使用时生成新的参数
+    private volatile EvaluationResult staticResult;
+
+    private TaskParameterPlan(String ref, String expression, Kind kind, String value) {
+        this.ref = ref;
+        this.expression = expression;
+        this.kind = kind;
+        this.value = value;
+    }
+
+    public static TaskParameterPlan of(TaskParameter taskParameter) {
+        var ref = taskParameter.getRef();
+        var expression = taskParameter.getExpression();
+        Matcher secret = SECRET_PATTERN.matcher(expression);
+        if (secret.find()) {
+            return new TaskParameterPlan(ref, expression, Kind.SECRET, secret.group(1));
+        }
+        if (EL_PATTERN.matcher(expression).lookingAt()) {
+            return new TaskParameterPlan(ref, expression, Kind.EXPRESSION, expression);
+        }
+        // 模版中不允许出现反斜杠、反引号与换行，含有这些字符时仍交由表达式引擎处理以保持原有结果
+        if (!expression.contains("${")
+                && expression.indexOf('\\') == -1
+                && expression.indexOf('`') == -1
+                && expression.indexOf('\r') == -1
+                && expression.indexOf('\n') == -1) {
+            return new TaskParameterPlan(ref, expression, Kind.LITERAL, expression);
+        }
+        return new TaskParameterPlan(ref, expression, Kind.TEMPLATE, "`" + expression + "`");
+    }
+
+    public Parameter<?> calculate(ExpressionLanguage expressionLanguage, EvaluationContext context) {
+        if (this.kind == Kind.LITERAL) {
+            return Parameter.Type.STRING.newParameter(this.value);
+        }
+        if (this.kind == Kind.SECRET) {
+            return Parameter.Type.SECRET.newParameter(this.value);
+        }
+        var result = this.staticResult;
+        if (result == null) {
+            // 计算参数表达式
+            Expression expression = expressionLanguage.parseExpression(this.value);
+            result = expressionLanguage.evaluateExpression(expression, context);
+            if (result.isFailure()) {
+                var errorMsg = "参数：" + this.ref +
+                        " 表达式: " + this.expression +
+                        " 计算错误: " + result.getFailureMessage();
+                throw new RuntimeException(errorMsg);
+            }
+            if (expression.isStatic()) {
+                this.staticResult = result;
+            }
+        }
+        return result.getValue();
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+}
@@ -2,16 +2,15 @@ package dev.jianmu.workflow.aggregate.definition;
 
 import dev.jianmu.workflow.aggregate.parameter.Parameter;
 import dev.jianmu.workflow.el.EvaluationContext;
-import dev.jianmu.workflow.el.EvaluationResult;
-import dev.jianmu.workflow.el.Expression;
 import dev.jianmu.workflow.el.ExpressionLanguage;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -42,22 +41,16 @@ public class Workflow {
     private Set<GlobalParameter> globalParameters = Set.of();
     // DSL原始内容
     private String dslText;
-    // 表达式计算服务
-    private ExpressionLanguage expressionLanguage;
-    // 参数上下文
-    private EvaluationContext context;
+    // 流程实例运行期限（秒），为null时不限制
+    private Long timeout;
+    // 节点索引，不持久化
+    private volatile Index index;
+    // 任务参数计算计划，不持久化
+    private final Map<String, List<TaskParameterPlan>> taskParameterPlans = new ConcurrentHashMap<>();
 
     private Workflow() {
     }
 
-    public void setExpressionLanguage(ExpressionLanguage expressionLanguage) {
-        this.expressionLanguage = expressionLanguage;
-    }
-
-    public void setContext(EvaluationContext context) {
-        this.context = context;
-    }
-
     public static Set<GlobalParameter> createGlobalParameters(Map<String, String> param) {
         return param.entrySet().stream().map(entry ->
                 GlobalParameter.Builder.aGlobalParameter()
@@ -67,51 +60,24 @@ public class Workflow {
         ).collect(Collectors.toSet());
     }
 
-    public Map<String, Parameter<?>> calculateTaskParams(String taskRef) {
-        var asyncTask = this.findTask(taskRef);
-        return asyncTask.getTaskParameters().stream().map(taskParameter -> {
-            var parameter = this.calculateTaskParameter(taskParameter);
-            return Map.entry(taskParameter.getRef(), parameter);
-        }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-    }
-
-    private Parameter<?> calculateTaskParameter(TaskParameter taskParameter) {
-        // 密钥类型单独处理
-        var secret = this.findSecret(taskParameter.getExpression());
-        if (secret != null) {
-            return Parameter.Type.SECRET.newParameter(secret);
-        }
-        String el;
-        if (isEl(taskParameter.getExpression())) {
-            el = taskParameter.getExpression();
-        } else {
-            el = "`" + taskParameter.getExpression() + "`";
-        }
-        // 计算参数表达式
-        Expression expression = expressionLanguage.parseExpression(el);
-        EvaluationResult evaluationResult = expressionLanguage.evaluateExpression(expression, context);
-        if (evaluationResult.isFailure()) {
-            var errorMsg = "参数：" + taskParameter.getRef() +
-                    " 表达式: " + taskParameter.getExpression() +
-                    " 计算错误: " + evaluationResult.getFailureMessage();
-            throw new RuntimeException(errorMsg);
-        }
-        return evaluationResult.getValue();
+    // 流程定义在流程实例之间共享，表达式上下文由调用方按流程实例传入
+    public Map<String, Parameter<?>> calculateTaskParams(String taskRef, ExpressionLanguage expressionLanguage, EvaluationContext context) {
+        return this.findTaskParameterPlans(taskRef).stream()
+                .map(plan -> Map.entry(plan.getRef(), plan.calculate(expressionLanguage, context)))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
-    private boolean isEl(String paramValue) {
-        Pattern pattern = Pattern.compile("^\\(");
-        Matcher matcher = pattern.matcher(paramValue);
-        return matcher.lookingAt();
-    }
-
-    private String findSecret(String paramValue) {
-        Pattern pattern = Pattern.compile("^\\(\\(([a-zA-Z0-9_-]+\\.*[a-zA-Z0-9_-]+)\\)\\)$");
-        Matcher matcher = pattern.matcher(paramValue);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
+    // 任务参数计算计划，流程定义由持久化层加载时在首次使用时生成
+    public List<TaskParameterPlan> findTaskParameterPlans(String taskRef) {
+        return this.taskParameterPlans.computeIfAbsent(taskRef, ref -> {
+            var taskParameters = this.findTask(ref).getTaskParameters();
+            if (taskParameters == null) {
+                return List.of();
+            }
+            return taskParameters.stream()
+                    .map(TaskParameterPlan::of)
+                    .collect(Collectors.toUnmodifiableList());
+        });
     }
 
     private AsyncTask findTask(String taskRef) {
@@ -123,41 +89,57 @@ public class Workflow {
     }
 
     public Node findStart() {
-        return this.nodes.stream()
-                .filter(n -> n instanceof Start)
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("未找到启动节点"));
+        var start = this.index().start;
+        if (start == null) {
+            throw new RuntimeException("未找到启动节点");
+        }
+        return start;
     }
 
     public Node findEnd() {
-        return this.nodes.stream()
-                .filter(n -> n instanceof End)
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("未找到结束节点"));
+        var end = this.index().end;
+        if (end == null) {
+            throw new RuntimeException("未找到结束节点");
+        }
+        return end;
     }
 
     public Node findNode(String nodeRef) {
-        return this.nodes.stream()
-                .filter(n -> n.getRef().equals(nodeRef))
-                .findFirst()
+        return this.getNode(nodeRef)
                 .orElseThrow(() -> new RuntimeException("未找到该节点定义: " + nodeRef));
     }
 
+    public Optional<Node> getNode(String nodeRef) {
+        return Optional.ofNullable(this.index().nodeMap.get(nodeRef));
+    }
+
     // 返回当前节点上游Task的ref List
     public List<String> findTasks(String nodeRef) {
-        Node node = this.findNode(nodeRef);
-        return this.nodes.stream()
-                .filter(n -> n instanceof AsyncTask)
-                .map(Node::getRef)
-                .filter(taskRef -> node.getSources().contains(taskRef))
-                .collect(Collectors.toList());
+        var upstreamTasks = this.index().upstreamTasks.get(nodeRef);
+        if (upstreamTasks == null) {
+            throw new RuntimeException("未找到该节点定义: " + nodeRef);
+        }
+        return upstreamTasks;
+    }
+
+    // 线性流水线中节点的下一个节点，非线性流程返回空
+    public Optional<Node> findPipelineNext(String nodeRef) {
+        return Optional.ofNullable(this.index().pipelineNext.get(nodeRef));
     }
 
     // 返回AsyncTask列表
     public List<Node> findTasks() {
-        return this.nodes.stream()
-                .filter(n -> n instanceof AsyncTask)
-                .collect(Collectors.toList());
+        return this.index().tasks;
+    }
+
+    // 节点索引，持久化层加载的流程定义没有加载后回调，因此在首次使用时生成
+    private Index index() {
+        var index = this.index;
+        if (index == null) {
+            index = new Index(this.nodes, this.type);
+            this.index = index;
+        }
+        return index;
     }
 
     public String getName() {
@@ -181,7 +163,7 @@ public class Workflow {
     }
 
     public Set<Node> getNodes() {
-        return Set.copyOf(nodes);
+        return this.index().nodes;
     }
 
     public Set<GlobalParameter> getGlobalParameters() {
@@ -192,6 +174,64 @@ public class Workflow {
         return dslText;
     }
 
+    public Long getTimeout() {
+        return timeout;
+    }
+
+    // 不可变节点索引，并发情况下重复生成也不影响结果
+    private static final class Index {
+        private final Set<Node> nodes;
+        private final Map<String, Node> nodeMap;
+        // 各节点上游AsyncTask的ref
+        private final Map<String, List<String>> upstreamTasks;
+        private final List<Node> tasks;
+        private final Node start;
+        private final Node end;
+        // 线性流水线的执行顺序，节点ref到下一个节点
+        private final Map<String, Node> pipelineNext;
+
+        private Index(Set<Node> nodes, Type type) {
+            this.nodes = Set.copyOf(nodes);
+            this.nodeMap = this.nodes.stream()
+                    .collect(Collectors.toUnmodifiableMap(Node::getRef, Function.identity()));
+            this.tasks = this.nodes.stream()
+                    .filter(n -> n instanceof AsyncTask)
+                    .collect(Collectors.toUnmodifiableList());
+            this.upstreamTasks = this.nodes.stream()
+                    .collect(Collectors.toUnmodifiableMap(Node::getRef, node -> {
+                        if (node.getSources() == null) {
+                            return List.<String>of();
+                        }
+                        return node.getSources().stream()
+                                .filter(sourceRef -> this.nodeMap.get(sourceRef) instanceof AsyncTask)
+                                .collect(Collectors.toUnmodifiableList());
+                    }));
+            this.start = this.nodes.stream()
+                    .filter(n -> n instanceof Start)
+                    .findFirst()
+                    .orElse(null);
+            this.end = this.nodes.stream()
+                    .filter(n -> n instanceof End)
+                    .findFirst()
+                    .orElse(null);
+            this.pipelineNext = type == Type.PIPELINE && this.isLinear()
+                    ? this.nodes.stream()
+                    .filter(n -> n.getTargets().size() == 1)
+                    .collect(Collectors.toUnmodifiableMap(Node::getRef, n -> this.nodeMap.get(n.getTargets().iterator().next())))
+                    : Map.of();
+        }
+
+        // 不含网关且每个节点最多一个上游与一个下游
+        private boolean isLinear() {
+            return this.nodes.stream().allMatch(n ->
+                    !(n instanceof Gateway)
+                            && n.getSources() != null && n.getSources().size() <= 1
+                            && n.getTargets() != null && n.getTargets().size() <= 1
+                            && n.getTargets().stream().allMatch(this.nodeMap::containsKey)
+            );
+        }
+    }
+
     public static final class Builder {
         // 显示名称
         private String name;
@@ -207,6 +247,8 @@ public class Workflow {
         private Set<GlobalParameter> globalParameters;
         // DSL原始内容
         private String dslText;
+        // 流程实例运行期限（秒）
+        private Long timeout;
 
         private Builder() {
         }
@@ -250,6 +292,11 @@ public class Workflow {
             return this;
         }
 
+        public Builder timeout(Long timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
         public Workflow build() {
 
             // 添加业务规则检查
@@ -272,6 +319,9 @@ public class Workflow {
             if (d) {
                 throw new RuntimeException("节点唯一引用名称不允许重复");
             }
+            if (this.timeout != null && this.timeout <= 0) {
+                throw new RuntimeException("流程超时时间必须大于0");
+            }
 
 
             Workflow workflow = new Workflow();
@@ -282,6 +332,9 @@ public class Workflow {
             workflow.type = this.type;
             workflow.name = this.name;
             workflow.description = this.description;
+            workflow.timeout = this.timeout;
+            // 创建时预先生成所有任务的参数计算计划
+            workflow.findTasks().forEach(node -> workflow.findTaskParameterPlans(node.getRef()));
             return workflow;
         }
     }
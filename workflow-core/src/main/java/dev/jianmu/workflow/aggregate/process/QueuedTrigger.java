@@ -0,0 +1,93 @@
+package dev.jianmu.workflow.aggregate.process;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * @class: QueuedTrigger
+ * @description: 排队中的流程触发，运行中的流程实例达到并发上限时持久化，有空闲时按入队顺序启动
+ * @author: Ethan Liu
+ * @create: 2021-10-27 10:20
+ **/
+public class QueuedTrigger {
+    private String id;
+    // 触发器ID
+    private String triggerId;
+    // 触发器类型
+    private String triggerType;
+    // 流程定义唯一引用名称
+    private String workflowRef;
+    // 流程定义版本
+    private String workflowVersion;
+    // 入队时间
+    private LocalDateTime enqueueTime;
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTriggerId() {
+        return triggerId;
+    }
+
+    public String getTriggerType() {
+        return triggerType;
+    }
+
+    public String getWorkflowRef() {
+        return workflowRef;
+    }
+
+    public String getWorkflowVersion() {
+        return workflowVersion;
+    }
+
+    public LocalDateTime getEnqueueTime() {
+        return enqueueTime;
+    }
+
+    public static final class Builder {
+        private String triggerId;
+        private String triggerType;
+        private String workflowRef;
+        private String workflowVersion;
+
+        private Builder() {
+        }
+
+        public static Builder aQueuedTrigger() {
+            return new Builder();
+        }
+
+        public Builder triggerId(String triggerId) {
+            this.triggerId = triggerId;
+            return this;
+        }
+
+        public Builder triggerType(String triggerType) {
+            this.triggerType = triggerType;
+            return this;
+        }
+
+        public Builder workflowRef(String workflowRef) {
+            this.workflowRef = workflowRef;
+            return this;
+        }
+
+        public Builder workflowVersion(String workflowVersion) {
+            this.workflowVersion = workflowVersion;
+            return this;
+        }
+
+        public QueuedTrigger build() {
+            QueuedTrigger queuedTrigger = new QueuedTrigger();
+            queuedTrigger.id = UUID.randomUUID().toString().replace("-", "");
+            queuedTrigger.triggerId = this.triggerId;
+            queuedTrigger.triggerType = this.triggerType;
+            queuedTrigger.workflowRef = this.workflowRef;
+            queuedTrigger.workflowVersion = this.workflowVersion;
+            queuedTrigger.enqueueTime = LocalDateTime.now();
+            return queuedTrigger;
+        }
+    }
+}
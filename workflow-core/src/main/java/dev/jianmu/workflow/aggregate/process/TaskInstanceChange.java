@@ -0,0 +1,27 @@
+package dev.jianmu.workflow.aggregate.process;
+
+/**
+ * @class: TaskInstanceChange
+ * @description: 任务实例变更，记录流程实例加载后发生变化的任务实例及是否被重新激活
+ * @author: Ethan Liu
+ * @create: 2021-10-26 10:20
+ **/
+public class TaskInstanceChange {
+    // 变化后的任务实例
+    private final AsyncTaskInstance taskInstance;
+    // 是否被激活或跳过，此时任务实例移至列表末尾
+    private final boolean activated;
+
+    TaskInstanceChange(AsyncTaskInstance taskInstance, boolean activated) {
+        this.taskInstance = taskInstance;
+        this.activated = activated;
+    }
+
+    public AsyncTaskInstance getTaskInstance() {
+        return taskInstance;
+    }
+
+    public boolean isActivated() {
+        return activated;
+    }
+}
@@ -37,12 +37,24 @@ public class WorkflowInstance extends AggregateRoot {
     private String workflowRef;
     // 流程定义版本
     private String workflowVersion;
-    // 任务实例列表
-    private List<AsyncTaskInstance> asyncTaskInstances = new ArrayList<>();
+    // 任务实例，以任务定义ref为Key并保持激活顺序，持久化时仍为任务实例列表
+    private final Map<String, AsyncTaskInstance> asyncTaskInstances = new LinkedHashMap<>();
+    // 节点未完成的上游任务数量，首次检查时初始化，任务状态变化时增减，不持久化
+    private final Map<String, Integer> pendingUpstreamTasks = new HashMap<>();
+    // 任务ref与已初始化计数的下游节点ref
+    private final Map<String, List<String>> downstreamNodes = new HashMap<>();
+    // 加载后发生变化的任务实例ref及是否被重新激活，持久化层据此追加任务实例事件，不持久化
+    private final Map<String, Boolean> changedTaskInstances = new LinkedHashMap<>();
     // 开始时间
     private final LocalDateTime startTime = LocalDateTime.now();
     // 结束时间
     private LocalDateTime endTime;
+    // 乐观锁版本，由持久化层加载并在保存成功后更新
+    private int version;
+    // 已追加的任务实例事件序号，由持久化层加载并在保存成功后更新
+    private int eventSequence;
+    // 任务实例列表快照对应的事件序号，由持久化层加载并在保存成功后更新
+    private int snapshotSequence;
     // 表达式计算服务
     private ExpressionLanguage expressionLanguage;
     // 参数上下文
@@ -64,25 +76,97 @@ public class WorkflowInstance extends AggregateRoot {
             return Optional.empty();
         }
         Comparator<AsyncTaskInstance> byStartTime = Comparator.comparing(AsyncTaskInstance::getStartTime);
-        return asyncTaskInstances.stream().filter(asyncTaskInstance -> asyncTaskInstance.getStartTime() != null).max(byStartTime);
+        return asyncTaskInstances.values().stream().filter(asyncTaskInstance -> asyncTaskInstance.getStartTime() != null).max(byStartTime);
     }
 
     // 根据上游节点列表，统计已完成的任务数量
     public long countCompletedTask(List<String> refList) {
-        return this.asyncTaskInstances.stream()
-                .filter(t -> refList.contains(t.getAsyncTaskRef()) &&
-                        (
-                                t.getStatus().equals(TaskStatus.FAILED)
-                                        || t.getStatus().equals(TaskStatus.SUCCEEDED)
-                                        || t.getStatus().equals(TaskStatus.SKIPPED)
-                        ))
+        return refList.stream()
+                .distinct()
+                .map(this.asyncTaskInstances::get)
+                .filter(WorkflowInstance::isCompleted)
                 .count();
     }
 
+    // 统计节点未完成的上游任务数量，同一节点只在首次检查时遍历上游任务，之后由任务状态变化维护
+    public int countPendingTask(String nodeRef, List<String> upstreamRefs) {
+        return this.pendingUpstreamTasks.computeIfAbsent(nodeRef, ref -> {
+            var refs = upstreamRefs.stream().distinct().collect(Collectors.toList());
+            refs.forEach(upstreamRef ->
+                    this.downstreamNodes.computeIfAbsent(upstreamRef, k -> new ArrayList<>()).add(ref)
+            );
+            return (int) (refs.size() - this.countCompletedTask(refs));
+        });
+    }
+
+    private static boolean isCompleted(AsyncTaskInstance taskInstance) {
+        if (taskInstance == null) {
+            return false;
+        }
+        return taskInstance.getStatus().equals(TaskStatus.FAILED)
+                || taskInstance.getStatus().equals(TaskStatus.SUCCEEDED)
+                || taskInstance.getStatus().equals(TaskStatus.SKIPPED);
+    }
+
+    // 变更任务状态，任务完成状态变化时同步更新下游节点的未完成计数
+    private void changeStatus(AsyncTaskInstance taskInstance, Runnable transition) {
+        var completed = isCompleted(taskInstance);
+        transition.run();
+        this.changedTaskInstances.putIfAbsent(taskInstance.getAsyncTaskRef(), false);
+        if (completed == isCompleted(taskInstance)) {
+            return;
+        }
+        var delta = completed ? 1 : -1;
+        this.downstreamNodes.getOrDefault(taskInstance.getAsyncTaskRef(), List.of())
+                .forEach(nodeRef -> this.pendingUpstreamTasks.merge(nodeRef, delta, Integer::sum));
+    }
+
+    // 重新放入任务实例，移至末尾以保持激活顺序
+    private void putTaskInstance(AsyncTaskInstance taskInstance) {
+        this.asyncTaskInstances.remove(taskInstance.getAsyncTaskRef());
+        this.asyncTaskInstances.put(taskInstance.getAsyncTaskRef(), taskInstance);
+        this.changedTaskInstances.remove(taskInstance.getAsyncTaskRef());
+        this.changedTaskInstances.put(taskInstance.getAsyncTaskRef(), true);
+    }
+
+    // 加载后发生变化的任务实例，重新激活的任务实例按激活顺序排列
+    public List<TaskInstanceChange> getTaskInstanceChanges() {
+        return this.changedTaskInstances.entrySet().stream()
+                .map(entry -> new TaskInstanceChange(this.asyncTaskInstances.get(entry.getKey()), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    // 持久化层保存成功后调用，更新版本与事件序号，已持久化的任务实例变化不再重复追加
+    public void persisted(int version, int eventSequence, int snapshotSequence) {
+        this.version = version;
+        this.eventSequence = eventSequence;
+        this.snapshotSequence = snapshotSequence;
+        this.changedTaskInstances.clear();
+    }
+
+    // 持久化层加载时回放任务实例事件，被重新激活的任务实例移至末尾，其余原位替换
+    public void replayTaskInstance(AsyncTaskInstance taskInstance, boolean activated) {
+        if (activated) {
+            this.asyncTaskInstances.remove(taskInstance.getAsyncTaskRef());
+        }
+        this.asyncTaskInstances.put(taskInstance.getAsyncTaskRef(), taskInstance);
+        this.pendingUpstreamTasks.clear();
+        this.downstreamNodes.clear();
+    }
+
     // 终止流程实例
     public void terminate() {
         this.status = ProcessStatus.TERMINATED;
         this.endTime = LocalDateTime.now();
+        // 发布流程终止事件
+        this.raiseEvent(
+                WorkflowTerminatedEvent.Builder.aWorkflowTerminatedEvent()
+                        .triggerId(this.triggerId)
+                        .workflowInstanceId(this.id)
+                        .workflowRef(this.workflowRef)
+                        .workflowVersion(this.workflowVersion)
+                        .build()
+        );
     }
 
     // 激活节点
@@ -119,11 +203,7 @@ public class WorkflowInstance extends AggregateRoot {
                                     .asyncTaskType(node.getType())
                                     .build()
                     );
-            // 处理反序列化后asyncTaskInstances为不可变List的情况
-            List<AsyncTaskInstance> instances = new ArrayList<>(this.asyncTaskInstances);
-            instances.removeIf(i -> i.getAsyncTaskRef().equals(node.getRef()));
-            instances.add(taskInstance);
-            this.asyncTaskInstances = instances;
+            this.putTaskInstance(taskInstance);
             // 发布任务激活事件并返回
             TaskActivatingEvent taskActivatingEvent = TaskActivatingEvent.Builder.aTaskActivatingEvent()
                     .nodeRef(node.getRef())
@@ -188,42 +268,23 @@ public class WorkflowInstance extends AggregateRoot {
         });
     }
 
-    // 跳过节点
+    // 跳过节点，任务节点创建状态为已跳过的任务实例，下游传播由领域服务完成
     public void skipNode(Node node) {
-        if (node instanceof End) {
+        if (!(node instanceof AsyncTask)) {
             return;
         }
-        if (node instanceof AsyncTask) {
-            // 跳过任务节点时也需要创建任务实例，状态为已跳过
-            AsyncTaskInstance taskInstance = this.findInstanceByRef(node.getRef())
-                    .orElse(
-                            AsyncTaskInstance.Builder
-                                    .anAsyncTaskInstance()
-                                    .name(node.getName())
-                                    .description(node.getDescription())
-                                    .asyncTaskRef(node.getRef())
-                                    .asyncTaskType(node.getType())
-                                    .build()
-                    );
-            taskInstance.skip();
-            // 处理反序列化后asyncTaskInstances为不可变List的情况
-            List<AsyncTaskInstance> instances = new ArrayList<>(this.asyncTaskInstances);
-            instances.removeIf(i -> i.getAsyncTaskRef().equals(node.getRef()));
-            instances.add(taskInstance);
-            this.asyncTaskInstances = instances;
-        }
-        // 发布下游节点跳过事件
-        var targets = node.getTargets();
-        targets.forEach(targetRef -> {
-            var nodeSkipEvent = NodeSkipEvent.Builder.aNodeSkipEvent()
-                    .nodeRef(targetRef)
-                    .triggerId(this.triggerId)
-                    .workflowInstanceId(this.id)
-                    .workflowRef(this.workflowRef)
-                    .workflowVersion(this.workflowVersion)
-                    .build();
-            this.raiseEvent(nodeSkipEvent);
-        });
+        AsyncTaskInstance taskInstance = this.findInstanceByRef(node.getRef())
+                .orElse(
+                        AsyncTaskInstance.Builder
+                                .anAsyncTaskInstance()
+                                .name(node.getName())
+                                .description(node.getDescription())
+                                .asyncTaskRef(node.getRef())
+                                .asyncTaskType(node.getType())
+                                .build()
+                );
+        this.changeStatus(taskInstance, taskInstance::skip);
+        this.putTaskInstance(taskInstance);
     }
 
     // 中止节点, 非任务类节点无法中止
@@ -254,7 +315,7 @@ public class WorkflowInstance extends AggregateRoot {
     public void taskRun(String asyncTaskRef) {
         AsyncTaskInstance taskInstance = this.findInstanceByRef(asyncTaskRef)
                 .orElseThrow(() -> new RuntimeException("未找到该任务"));
-        taskInstance.run();
+        this.changeStatus(taskInstance, taskInstance::run);
         // 发布任务开始执行事件
         this.raiseEvent(
                 TaskRunningEvent.Builder.aTaskRunningEvent()
@@ -272,7 +333,7 @@ public class WorkflowInstance extends AggregateRoot {
     public void taskFail(String asyncTaskRef) {
         AsyncTaskInstance taskInstance = this.findInstanceByRef(asyncTaskRef)
                 .orElseThrow(() -> new RuntimeException("未找到该任务"));
-        taskInstance.fail();
+        this.changeStatus(taskInstance, taskInstance::fail);
         // 发布任务执行失败事件
         this.raiseEvent(
                 TaskFailedEvent.Builder.aTaskFailedEvent()
@@ -288,9 +349,35 @@ public class WorkflowInstance extends AggregateRoot {
 
     // 异步任务执行成功
     public void taskSucceed(Node node) {
+        this.succeedTask(node);
+        // 发布所有下游节点激活事件
+        Set<String> nodes = node.getTargets();
+        nodes.forEach(n -> {
+            NodeActivatingEvent activatingEvent = NodeActivatingEvent.Builder.aNodeActivatingEvent()
+                    .nodeRef(n)
+                    .triggerId(this.triggerId)
+                    .workflowInstanceId(this.id)
+                    .workflowRef(this.workflowRef)
+                    .workflowVersion(this.workflowVersion)
+                    .build();
+            this.raiseEvent(activatingEvent);
+        });
+    }
+
+    // 线性流水线中的异步任务执行成功，无需汇聚检查，直接激活下一个节点
+    public void taskSucceed(Node node, Node next) {
+        this.succeedTask(node);
+        // 流程实例已终止时只记录任务成功，不再推进
+        if (this.status != ProcessStatus.RUNNING) {
+            return;
+        }
+        this.activateNode(next);
+    }
+
+    private void succeedTask(Node node) {
         AsyncTaskInstance taskInstance = this.findInstanceByRef(node.getRef())
                 .orElseThrow(() -> new RuntimeException("未找到该任务"));
-        taskInstance.succeed();
+        this.changeStatus(taskInstance, taskInstance::succeed);
         // 发布任务执行成功事件
         this.raiseEvent(
                 TaskSucceededEvent.Builder.aTaskSucceededEvent()
@@ -302,25 +389,11 @@ public class WorkflowInstance extends AggregateRoot {
                         .nodeType(taskInstance.getAsyncTaskType())
                         .build()
         );
-        // 发布所有下游节点激活事件
-        Set<String> nodes = node.getTargets();
-        nodes.forEach(n -> {
-            NodeActivatingEvent activatingEvent = NodeActivatingEvent.Builder.aNodeActivatingEvent()
-                    .nodeRef(n)
-                    .triggerId(this.triggerId)
-                    .workflowInstanceId(this.id)
-                    .workflowRef(this.workflowRef)
-                    .workflowVersion(this.workflowVersion)
-                    .build();
-            this.raiseEvent(activatingEvent);
-        });
     }
 
     // 根据任务定义Ref查找任务实例
     public Optional<AsyncTaskInstance> findInstanceByRef(String asyncTaskRef) {
-        return asyncTaskInstances.stream()
-                .filter(i -> i.getAsyncTaskRef().equals(asyncTaskRef))
-                .findFirst();
+        return Optional.ofNullable(this.asyncTaskInstances.get(asyncTaskRef));
     }
 
     public String getId() {
@@ -364,7 +437,15 @@ public class WorkflowInstance extends AggregateRoot {
     }
 
     public List<AsyncTaskInstance> getAsyncTaskInstances() {
-        return List.copyOf(asyncTaskInstances);
+        return List.copyOf(asyncTaskInstances.values());
+    }
+
+    // 持久化层加载时使用，兼容已保存的任务实例列表
+    private void setAsyncTaskInstances(List<AsyncTaskInstance> asyncTaskInstances) {
+        this.asyncTaskInstances.clear();
+        this.pendingUpstreamTasks.clear();
+        this.downstreamNodes.clear();
+        asyncTaskInstances.forEach(taskInstance -> this.asyncTaskInstances.put(taskInstance.getAsyncTaskRef(), taskInstance));
     }
 
     public LocalDateTime getStartTime() {
@@ -375,6 +456,18 @@ public class WorkflowInstance extends AggregateRoot {
         return endTime;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public int getEventSequence() {
+        return eventSequence;
+    }
+
+    public int getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
     public static final class Builder {
         // ID
         // TODO 暂时使用UUID的值
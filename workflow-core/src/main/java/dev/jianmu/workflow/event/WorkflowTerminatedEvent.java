@@ -0,0 +1,59 @@
+package dev.jianmu.workflow.event;
+
+/**
+ * @class: WorkflowTerminatedEvent
+ * @description: 流程终止事件
+ * @author: Ethan Liu
+ * @create: 2021-10-27 10:40
+ **/
+public class WorkflowTerminatedEvent extends BaseEvent {
+    private WorkflowTerminatedEvent() {
+    }
+
+    public static final class Builder {
+        // 流程定义唯一引用名称
+        protected String workflowRef;
+        // 流程定义版本
+        protected String workflowVersion;
+        // 流程实例ID
+        protected String workflowInstanceId;
+        // 触发器ID
+        protected String triggerId;
+
+        private Builder() {
+        }
+
+        public static Builder aWorkflowTerminatedEvent() {
+            return new Builder();
+        }
+
+        public Builder workflowRef(String workflowRef) {
+            this.workflowRef = workflowRef;
+            return this;
+        }
+
+        public Builder workflowVersion(String workflowVersion) {
+            this.workflowVersion = workflowVersion;
+            return this;
+        }
+
+        public Builder workflowInstanceId(String workflowInstanceId) {
+            this.workflowInstanceId = workflowInstanceId;
+            return this;
+        }
+
+        public Builder triggerId(String triggerId) {
+            this.triggerId = triggerId;
+            return this;
+        }
+
+        public WorkflowTerminatedEvent build() {
+            WorkflowTerminatedEvent workflowTerminatedEvent = new WorkflowTerminatedEvent();
+            workflowTerminatedEvent.workflowRef = this.workflowRef;
+            workflowTerminatedEvent.workflowInstanceId = this.workflowInstanceId;
+            workflowTerminatedEvent.triggerId = this.triggerId;
+            workflowTerminatedEvent.workflowVersion = this.workflowVersion;
+            return workflowTerminatedEvent;
+        }
+    }
+}
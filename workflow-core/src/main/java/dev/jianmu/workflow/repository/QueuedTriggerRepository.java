@@ -0,0 +1,27 @@
+package dev.jianmu.workflow.repository;
+
+import dev.jianmu.workflow.aggregate.process.QueuedTrigger;
+
+import java.util.Optional;
+
+/**
+ * @class: QueuedTriggerRepository
+ * @description: 排队中的流程触发仓储
+ * @author: Ethan Liu
+ * @create: 2021-10-27 10:30
+ **/
+public interface QueuedTriggerRepository {
+    void add(QueuedTrigger queuedTrigger);
+
+    void deleteById(String id);
+
+    void deleteByWorkflowRef(String workflowRef);
+
+    // 最早入队的触发
+    Optional<QueuedTrigger> findFirstByWorkflowRef(String workflowRef);
+
+    int countByWorkflowRef(String workflowRef);
+
+    // 排队中的触发总数，用于监控指标采集
+    int count();
+}
@@ -10,6 +10,13 @@ public interface WorkflowInstanceRepository {
 
     List<WorkflowInstance> findByRefAndVersionAndStatus(String workflowRef, String workflowVersion, ProcessStatus status);
 
+    // 按序号升序返回流程定义所有版本中指定状态的流程实例
+    List<WorkflowInstance> findByRefAndStatus(String workflowRef, ProcessStatus status);
+
+    int countByRefAndStatus(String workflowRef, ProcessStatus status);
+
+    List<WorkflowInstance> findByStatus(ProcessStatus status);
+
     Optional<WorkflowInstance> findById(String instanceId);
 
     WorkflowInstance add(WorkflowInstance workflowInstance);
@@ -1,15 +1,16 @@
 package dev.jianmu.workflow.service;
 
+import dev.jianmu.workflow.aggregate.definition.AsyncTask;
+import dev.jianmu.workflow.aggregate.definition.End;
 import dev.jianmu.workflow.aggregate.definition.Node;
 import dev.jianmu.workflow.aggregate.definition.Workflow;
-import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
 import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import dev.jianmu.workflow.aggregate.process.TaskStatus;
 import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
 
 /**
  * @program: workflow
@@ -38,26 +39,60 @@ public class WorkflowInstanceDomainService {
         Node node = workflow.findNode(nodeRef);
         // 返回当前节点上游Task的ref List
         List<String> refList = workflow.findTasks(nodeRef);
-        List<String> instanceList = workflowInstance.getAsyncTaskInstances().stream()
-                .map(AsyncTaskInstance::getAsyncTaskRef)
-                .collect(Collectors.toList());
-        instanceList.retainAll(refList);
         // 统计上游Task已完成数量
-        long completed = workflowInstance.countCompletedTask(instanceList);
+        int pending = workflowInstance.countPendingTask(nodeRef, refList);
+        long completed = refList.size() - pending;
         logger.info("当前节点{}上游Task数量为{}", nodeRef, refList.size());
         logger.info("当前节点{}上游Task已完成数量为{}", nodeRef, completed);
         // 如果上游任务执行完成数量小于上游任务总数，则当前节点不激活
-        if (completed < refList.size()) {
+        if (pending > 0) {
             logger.info("当前节点{}上游任务执行完成数量{}小于上游任务总数{}", nodeRef, completed, refList.size());
             return;
         }
         workflowInstance.activateNode(node);
     }
 
-    // 跳过节点
+    // 跳过节点，在内存中沿下游一次性传播
+    // 所有上游都已跳过的节点随之跳过，仍有未跳过上游的汇聚节点与结束节点只做一次激活检查，不再逐个发布跳过事件
     public void skipNode(Workflow workflow, WorkflowInstance workflowInstance, String nodeRef) {
-        Node node = workflow.findNode(nodeRef);
-        workflowInstance.skipNode(node);
+        Set<String> skipped = new HashSet<>();
+        Set<String> joins = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(nodeRef);
+        while (!queue.isEmpty()) {
+            String ref = queue.poll();
+            if (skipped.contains(ref)) {
+                continue;
+            }
+            Node node = workflow.findNode(ref);
+            // 汇聚节点可能在其他上游跳过前被访问，上游再次跳过时重新检查
+            if (node instanceof End || !this.isUnreachable(workflow, workflowInstance, node, skipped, ref.equals(nodeRef))) {
+                joins.add(ref);
+                continue;
+            }
+            logger.info("跳过节点{}", ref);
+            skipped.add(ref);
+            workflowInstance.skipNode(node);
+            queue.addAll(node.getTargets());
+        }
+        joins.removeAll(skipped);
+        joins.forEach(ref -> this.activateNode(workflow, workflowInstance, ref));
+    }
+
+    // 所有上游都已跳过时节点不可达，跳过事件的目标节点的非任务上游（网关）即为发出跳过的节点
+    private boolean isUnreachable(Workflow workflow, WorkflowInstance workflowInstance, Node node, Set<String> skipped, boolean origin) {
+        return node.getSources().stream().allMatch(sourceRef -> {
+            if (skipped.contains(sourceRef)) {
+                return true;
+            }
+            Node source = workflow.findNode(sourceRef);
+            if (!(source instanceof AsyncTask)) {
+                return origin;
+            }
+            return workflowInstance.findInstanceByRef(sourceRef)
+                    .map(taskInstance -> taskInstance.getStatus().equals(TaskStatus.SKIPPED))
+                    .orElse(false);
+        });
     }
 
     // 中止节点
@@ -68,19 +103,22 @@ public class WorkflowInstanceDomainService {
         if (workflowInstance.getStatus().equals(ProcessStatus.TERMINATED)) {
             throw new RuntimeException("该流程实例已终止，不能中止节点");
         }
-        Node node = workflow.getNodes().stream()
-                .filter(n -> n.getRef().equals(nodeRef))
-                .findFirst()
+        Node node = workflow.getNode(nodeRef)
                 .orElseThrow(() -> new RuntimeException("未找到要中止的节点: " + nodeRef));
         workflowInstance.terminateNode(node);
     }
 
     // 任务执行成功
     public void taskSucceed(Workflow workflow, WorkflowInstance workflowInstance, String asyncTaskRef) {
-        Node node = workflow.getNodes().stream()
-                .filter(n -> n.getRef().equals(asyncTaskRef))
-                .findFirst()
+        Node node = workflow.getNode(asyncTaskRef)
                 .orElseThrow(() -> new RuntimeException("未找到执行完成的任务节点: " + asyncTaskRef));
+        // 线性流水线在同一次保存中直接激活下一个节点，省去节点激活事件的往返
+        var next = workflow.findPipelineNext(asyncTaskRef);
+        if (next.isPresent()) {
+            logger.info("流水线任务{}执行成功，激活下一个节点{}", asyncTaskRef, next.get().getRef());
+            workflowInstance.taskSucceed(node, next.get());
+            return;
+        }
         workflowInstance.taskSucceed(node);
     }
 }
@@ -111,4 +111,21 @@ public class NodeTest {
                 .build();
         assertEquals(switchGateway.getRef(), "switch_1");
     }
+
+    @Test
+    @DisplayName("任务节点超时测试")
+    void asyncTaskTimeoutTest() {
+        AsyncTask asyncTask = AsyncTask.Builder.anAsyncTask()
+                .name("task1")
+                .ref("task_1")
+                .timeout(600L)
+                .build();
+        assertEquals(Long.valueOf(600L), asyncTask.getTimeout());
+        Throwable exception = Assertions.assertThrows(RuntimeException.class, () -> AsyncTask.Builder.anAsyncTask()
+                .name("task2")
+                .ref("task_2")
+                .timeout(0L)
+                .build());
+        assertEquals("任务超时时间必须大于0", exception.getMessage());
+    }
 }
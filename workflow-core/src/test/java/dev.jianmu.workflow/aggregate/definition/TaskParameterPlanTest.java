@@ -0,0 +1,43 @@
+package dev.jianmu.workflow.aggregate.definition;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @class: TaskParameterPlanTest
+ * @description: 任务参数计算计划测试类
+ * @author: Ethan Liu
+ * @create: 2021-10-23 11:05
+ **/
+@DisplayName("任务参数计算计划测试类")
+public class TaskParameterPlanTest {
+
+    private TaskParameterPlan plan(String expression) {
+        return TaskParameterPlan.of(
+                TaskParameter.Builder.aTaskParameter()
+                        .ref("param")
+                        .expression(expression)
+                        .build()
+        );
+    }
+
+    @Test
+    @DisplayName("参数分类测试")
+    void kindTest() {
+        assertEquals(TaskParameterPlan.Kind.LITERAL, plan("echo hello").getKind());
+        assertEquals(TaskParameterPlan.Kind.LITERAL, plan("$HOME/bin").getKind());
+        assertEquals(TaskParameterPlan.Kind.SECRET, plan("((dockerhub.password))").getKind());
+        assertEquals(TaskParameterPlan.Kind.EXPRESSION, plan("(${a} + 1)").getKind());
+        assertEquals(TaskParameterPlan.Kind.TEMPLATE, plan("echo ${event.branch}").getKind());
+        assertEquals(TaskParameterPlan.Kind.TEMPLATE, plan("a\\nb").getKind());
+    }
+
+    @Test
+    @DisplayName("含反引号的参数仍交由表达式引擎处理")
+    void backtickTest() {
+        assertEquals(TaskParameterPlan.Kind.TEMPLATE, plan("echo `date`").getKind());
+        assertEquals(TaskParameterPlan.Kind.TEMPLATE, plan("`").getKind());
+    }
+}
@@ -119,4 +119,34 @@ public class WorkflowTest {
         });
         assertEquals("节点唯一引用名称不允许重复", exception.getMessage(), "节点唯一引用名称不允许重复");
     }
+
+    @Test
+    @DisplayName("节点索引查询测试")
+    void indexTest() {
+        Start start = Start.Builder.aStart().name("Start").ref("start").build();
+        AsyncTask task1 = AsyncTask.Builder.anAsyncTask().name("Task1").ref("task_1").build();
+        AsyncTask task2 = AsyncTask.Builder.anAsyncTask().name("Task2").ref("task_2").build();
+        End end = End.Builder.anEnd().name("End").ref("end").build();
+        start.setTargets(Set.of(task1.getRef(), task2.getRef()));
+        task1.setSources(Set.of(start.getRef()));
+        task2.setSources(Set.of(start.getRef()));
+        task1.setTargets(Set.of(end.getRef()));
+        task2.setTargets(Set.of(end.getRef()));
+        end.setSources(Set.of(task1.getRef(), task2.getRef()));
+        Workflow workflow = Workflow.Builder.aWorkflow()
+                .name("TestWL")
+                .ref("test_wl1")
+                .description("测试流程1")
+                .nodes(Set.of(start, task1, task2, end))
+                .globalParameters(Set.of())
+                .build();
+        assertEquals(start, workflow.findStart());
+        assertEquals(end, workflow.findEnd());
+        assertEquals(task1, workflow.findNode("task_1"));
+        assertEquals(Set.of("task_1", "task_2"), Set.copyOf(workflow.findTasks("end")));
+        assertEquals(0, workflow.findTasks("task_1").size());
+        assertEquals(2, workflow.findTasks().size());
+        Throwable exception = assertThrows(RuntimeException.class, () -> workflow.findNode("task_3"));
+        assertEquals("未找到该节点定义: task_3", exception.getMessage());
+    }
 }
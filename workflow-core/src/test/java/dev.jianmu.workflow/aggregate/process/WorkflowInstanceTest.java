@@ -8,6 +8,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -53,6 +54,7 @@ public class WorkflowInstanceTest {
                 .ref("test_wl1")
                 .description("测试流程1")
                 .nodes(nodes)
+                .globalParameters(Set.of())
                 .build();
         WorkflowInstanceDomainService workflowInstanceDomainService = new WorkflowInstanceDomainService();
         instance = workflowInstanceDomainService.create("trigger567", "CRON", 1, workflow);
@@ -149,4 +151,196 @@ public class WorkflowInstanceTest {
 
         workflowInstanceDomainService.terminateNode(workflow, instance, "asyncTask_1");
     }
+
+    @Test
+    @DisplayName("汇聚节点上游任务计数测试")
+    void joinCountTest() {
+        WorkflowInstance instance = workflowInstanceDomainService.create("trigger567", "CRON", 1, workflow);
+        instance.activateNode(workflow.findNode("asyncTask_1"));
+        var refs = List.of("asyncTask_1");
+        assertEquals(1, instance.countPendingTask("end_1", refs));
+        instance.taskRun("asyncTask_1");
+        assertEquals(1, instance.countPendingTask("end_1", refs));
+        instance.taskSucceed(workflow.findNode("asyncTask_1"));
+        assertEquals(0, instance.countPendingTask("end_1", refs));
+        assertEquals(1, instance.countCompletedTask(refs));
+        // 任务重试后重新计为未完成
+        instance.taskRun("asyncTask_1");
+        assertEquals(1, instance.countPendingTask("end_1", refs));
+        assertEquals(1, instance.getAsyncTaskInstances().size());
+    }
+
+    @Test
+    @DisplayName("任务实例变更回放测试")
+    void replayTest() {
+        WorkflowInstance instance = workflowInstanceDomainService.create("trigger567", "CRON", 1, workflow);
+        instance.activateNode(workflow.findNode("asyncTask_1"));
+        instance.taskRun("asyncTask_1");
+        var changes = instance.getTaskInstanceChanges();
+        assertEquals(1, changes.size());
+        assertEquals(true, changes.get(0).isActivated());
+        assertEquals(TaskStatus.RUNNING, changes.get(0).getTaskInstance().getStatus());
+
+        WorkflowInstance replayed = workflowInstanceDomainService.create("trigger567", "CRON", 1, workflow);
+        changes.forEach(change -> replayed.replayTaskInstance(change.getTaskInstance(), change.isActivated()));
+        assertEquals(0, replayed.getTaskInstanceChanges().size());
+        assertEquals(TaskStatus.RUNNING, replayed.findInstanceByRef("asyncTask_1").orElseThrow().getStatus());
+        assertEquals(1, replayed.countPendingTask("end_1", List.of("asyncTask_1")));
+    }
+
+    @Test
+    @DisplayName("节点跳过传播测试")
+    void skipPropagationTest() {
+        Start start = Start.Builder.aStart()
+                .name("Start2")
+                .ref("start_2")
+                .description("开始节点2")
+                .build();
+        AsyncTask taskA = AsyncTask.Builder.anAsyncTask()
+                .name("TaskA")
+                .ref("task_a")
+                .description("异步任务节点A")
+                .build();
+        AsyncTask taskB = AsyncTask.Builder.anAsyncTask()
+                .name("TaskB")
+                .ref("task_b")
+                .description("异步任务节点B")
+                .build();
+        AsyncTask taskC = AsyncTask.Builder.anAsyncTask()
+                .name("TaskC")
+                .ref("task_c")
+                .description("异步任务节点C")
+                .build();
+        End end = End.Builder.anEnd()
+                .name("End2")
+                .ref("end_2")
+                .description("结束节点2")
+                .build();
+        start.setTargets(Set.of(taskA.getRef(), taskB.getRef()));
+        taskA.setSources(Set.of(start.getRef()));
+        taskA.setTargets(Set.of(end.getRef()));
+        taskB.setSources(Set.of(start.getRef()));
+        taskB.setTargets(Set.of(taskC.getRef()));
+        taskC.setSources(Set.of(taskB.getRef()));
+        taskC.setTargets(Set.of(end.getRef()));
+        end.setSources(Set.of(taskA.getRef(), taskC.getRef()));
+        Workflow branchWorkflow = Workflow.Builder.aWorkflow()
+                .name("TestWL2")
+                .ref("test_wl2")
+                .description("测试流程2")
+                .nodes(Set.of(start, taskA, taskB, taskC, end))
+                .globalParameters(Set.of())
+                .build();
+
+        WorkflowInstance instance = workflowInstanceDomainService.create("trigger568", "CRON", 1, branchWorkflow);
+        instance.activateNode(taskA);
+        workflowInstanceDomainService.skipNode(branchWorkflow, instance, "task_b");
+        // 下游节点一次性跳过，结束节点仍在等待未完成的分支
+        assertEquals(TaskStatus.SKIPPED, instance.findInstanceByRef("task_b").orElseThrow().getStatus());
+        assertEquals(TaskStatus.SKIPPED, instance.findInstanceByRef("task_c").orElseThrow().getStatus());
+        assertEquals(ProcessStatus.RUNNING, instance.getStatus());
+
+        instance.taskRun("task_a");
+        instance.taskSucceed(taskA);
+        workflowInstanceDomainService.activateNode(branchWorkflow, instance, "end_2");
+        assertEquals(ProcessStatus.FINISHED, instance.getStatus());
+
+        // 其他分支已完成时，跳过传播直接激活结束节点
+        WorkflowInstance finished = workflowInstanceDomainService.create("trigger569", "CRON", 1, branchWorkflow);
+        finished.activateNode(taskA);
+        finished.taskRun("task_a");
+        finished.taskSucceed(taskA);
+        workflowInstanceDomainService.skipNode(branchWorkflow, finished, "task_b");
+        assertEquals(TaskStatus.SKIPPED, finished.findInstanceByRef("task_c").orElseThrow().getStatus());
+        assertEquals(ProcessStatus.FINISHED, finished.getStatus());
+    }
+
+    // 两个步骤的线性流水线
+    private static Workflow pipeline() {
+        Start start = Start.Builder.aStart()
+                .name("Start3")
+                .ref("start_3")
+                .description("开始节点3")
+                .build();
+        AsyncTask step1 = AsyncTask.Builder.anAsyncTask()
+                .name("Step1")
+                .ref("step_1")
+                .description("流水线步骤1")
+                .build();
+        AsyncTask step2 = AsyncTask.Builder.anAsyncTask()
+                .name("Step2")
+                .ref("step_2")
+                .description("流水线步骤2")
+                .build();
+        End end = End.Builder.anEnd()
+                .name("End3")
+                .ref("end_3")
+                .description("结束节点3")
+                .build();
+        start.setTargets(Set.of(step1.getRef()));
+        step1.setSources(Set.of(start.getRef()));
+        step1.setTargets(Set.of(step2.getRef()));
+        step2.setSources(Set.of(step1.getRef()));
+        step2.setTargets(Set.of(end.getRef()));
+        end.setSources(Set.of(step2.getRef()));
+        return Workflow.Builder.aWorkflow()
+                .name("TestPL")
+                .ref("test_pl")
+                .type(Workflow.Type.PIPELINE)
+                .description("测试流水线")
+                .nodes(Set.of(start, step1, step2, end))
+                .globalParameters(Set.of())
+                .build();
+    }
+
+    @Test
+    @DisplayName("流水线任务完成直接激活下一节点测试")
+    void pipelineTaskSucceedTest() {
+        Workflow pipeline = pipeline();
+        assertEquals("step_2", pipeline.findPipelineNext("step_1").orElseThrow().getRef());
+        assertEquals(false, pipeline.findPipelineNext("end_3").isPresent());
+
+        WorkflowInstance instance = workflowInstanceDomainService.create("trigger570", "CRON", 1, pipeline);
+        instance.activateNode(pipeline.findNode("step_1"));
+        instance.taskRun("step_1");
+        workflowInstanceDomainService.taskSucceed(pipeline, instance, "step_1");
+        // 同一次保存中激活下一个步骤，不再发布节点激活事件
+        assertEquals(true, instance.findInstanceByRef("step_2").isPresent());
+        assertEquals(false, instance.getUncommittedDomainEvents().stream()
+                .anyMatch(event -> event instanceof NodeActivatingEvent));
+
+        instance.taskRun("step_2");
+        workflowInstanceDomainService.taskSucceed(pipeline, instance, "step_2");
+        assertEquals(ProcessStatus.FINISHED, instance.getStatus());
+    }
+
+    @Test
+    @DisplayName("流程实例终止后流水线任务完成测试")
+    void pipelineTaskSucceedAfterStopTest() {
+        Workflow pipeline = pipeline();
+        WorkflowInstance instance = workflowInstanceDomainService.create("trigger572", "CRON", 1, pipeline);
+        instance.activateNode(pipeline.findNode("step_1"));
+        instance.taskRun("step_1");
+        instance.terminate();
+        // 终止前已在运行的任务完成时只记录任务状态，不再激活下一个步骤
+        workflowInstanceDomainService.taskSucceed(pipeline, instance, "step_1");
+        assertEquals(ProcessStatus.TERMINATED, instance.getStatus());
+        assertEquals(TaskStatus.SUCCEEDED, instance.findInstanceByRef("step_1").orElseThrow().getStatus());
+        assertEquals(false, instance.findInstanceByRef("step_2").isPresent());
+        // 只有步骤1的激活事件
+        assertEquals(1L, instance.getUncommittedDomainEvents().stream()
+                .filter(event -> event instanceof TaskActivatingEvent)
+                .count());
+    }
+
+    @Test
+    @DisplayName("流程实例终止事件测试")
+    void terminateTest() {
+        WorkflowInstance instance = workflowInstanceDomainService.create("trigger571", "CRON", 1, workflow);
+        instance.terminate();
+        assertEquals(ProcessStatus.TERMINATED, instance.getStatus());
+        var event = (WorkflowTerminatedEvent) instance.getUncommittedDomainEvents().get(0);
+        assertEquals(workflow.getRef(), event.getWorkflowRef());
+        assertEquals(instance.getId(), event.getWorkflowInstanceId());
+    }
 }